@@ -0,0 +1,93 @@
+package dk.kodeninjaer.testing.gradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Work action converting one collection. It runs in a class loader holding the converter
+ * classpath, which the plugin is not compiled against, so the converter is called reflectively
+ * through its programmatic API: the test class is named by <code>BatchConverter.className</code>
+ * and the options are applied through the setters of the generator
+ */
+public abstract class GenerateAction implements WorkAction<GenerateAction.Parameters> {
+    private static final String GENERATOR = "dk.kodeninjaer.testing.converter.PostmanToRestAssuredGenerator";
+    private static final String BATCH_CONVERTER = "dk.kodeninjaer.testing.converter.BatchConverter";
+
+    public interface Parameters extends WorkParameters {
+        RegularFileProperty getCollection();
+
+        Property<String> getOutputPackage();
+
+        MapProperty<String, String> getOptions();
+
+        RegularFileProperty getDataFile();
+
+        ConfigurableFileCollection getTimings();
+
+        DirectoryProperty getOutputDirectory();
+
+        DirectoryProperty getResourceDirectory();
+    }
+
+    @Override
+    public void execute() {
+        Path collection = getParameters().getCollection().get().getAsFile().toPath();
+        try {
+            ClassLoader loader = getClass().getClassLoader();
+            String className = (String) loader.loadClass(BATCH_CONVERTER).getMethod("className", Path.class)
+                    .invoke(null, collection);
+            Object generator = loader.loadClass(GENERATOR).getConstructor(String.class, String.class)
+                    .newInstance(getParameters().getOutputPackage().get(), className);
+            set(generator, "outputDirectory", getParameters().getOutputDirectory().get().getAsFile().getAbsolutePath());
+            set(generator, "resourceDirectory", getParameters().getResourceDirectory().get().getAsFile().getAbsolutePath());
+            for (Map.Entry<String, String> option : getParameters().getOptions().get().entrySet()) {
+                set(generator, option.getKey(), option.getValue());
+            }
+            if (getParameters().getDataFile().isPresent()) {
+                set(generator, "dataFile", getParameters().getDataFile().get().getAsFile().getAbsolutePath());
+            }
+            for (File timings : getParameters().getTimings().getFiles()) {
+                set(generator, "timingFile", timings.getAbsolutePath());
+            }
+            generator.getClass().getMethod("generate", String.class).invoke(generator, collection.toString());
+        } catch (InvocationTargetException e) {
+            throw new GradleException("Could not convert " + collection + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new GradleException("The converter classpath does not hold a compatible converter", e);
+        }
+    }
+
+    /**
+     * Method to apply an option through the setter of the generator, converting the value to the parameter type
+     * @param generator
+     * @param option name of the setter without set, e.g. splitSize
+     * @param value
+     * @throws ReflectiveOperationException
+     */
+    static void set(Object generator, String option, String value) throws ReflectiveOperationException {
+        String setter = "set" + Character.toUpperCase(option.charAt(0)) + option.substring(1);
+        for (Method method : generator.getClass().getMethods()) {
+            Class<?> type = method.getParameterCount() == 1 ? method.getParameterTypes()[0] : null;
+            // setters taking other types, such as setEmitter(Emitter), have a String overload
+            if (method.getName().equals(setter) && (type == String.class || type == boolean.class || type == int.class)) {
+                Object argument = type == boolean.class ? (Object) Boolean.parseBoolean(value)
+                        : type == int.class ? (Object) Integer.parseInt(value) : value;
+                method.invoke(generator, argument);
+                return;
+            }
+        }
+        throw new GradleException("Unknown converter option " + option);
+    }
+}
@@ -0,0 +1,143 @@
+package dk.kodeninjaer.testing.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Task generating a RestAssured test class per Postman collection. The collections, the options
+ * and the converter are the inputs and the source and resource directories are the outputs, so
+ * the task is up to date, or taken from the build cache, when none of them changed. Otherwise the
+ * directories are cleared and every collection is converted by its own worker, in parallel up to
+ * the maximum number of workers of the build.
+ * <p>
+ * Files read by the converter are declared as the data file and timings properties, options
+ * naming files are rejected since their content would not be an input, and so are the options
+ * writing caches outside of the output directories
+ */
+@CacheableTask
+public abstract class GeneratePostmanTests extends DefaultTask {
+    /**
+     * Options that are declared as task properties, or write outside of the outputs, by the property to use instead
+     */
+    static final Map<String, String> REJECTED_OPTIONS = Map.of(
+            "dataFile", "the dataFile property",
+            "timingFile", "the timings property",
+            "incremental", "the up to date check of the task",
+            "modelCache", "the up to date check of the task",
+            "outputDirectory", "the outputDirectory property",
+            "resourceDirectory", "the resourceDirectory property");
+
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getCollections();
+
+    @Input
+    public abstract Property<String> getOutputPackage();
+
+    @Input
+    public abstract MapProperty<String, String> getOptions();
+
+    /**
+     * @return the collection runner data file the generated tests iterate over
+     */
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract RegularFileProperty getDataFile();
+
+    /**
+     * @return the JUnit XML report, or directory of reports, of a previous run balancing the shards.
+     * It is optional and may not exist yet, before the first run of the generated tests
+     */
+    @InputFiles
+    @Optional
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getTimings();
+
+    @Classpath
+    public abstract ConfigurableFileCollection getConverterClasspath();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getResourceDirectory();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void generate() {
+        for (String option : getOptions().get().keySet()) {
+            if (REJECTED_OPTIONS.containsKey(option)) {
+                throw new GradleException("The option " + option + " is not supported by " + getName()
+                        + ", use " + REJECTED_OPTIONS.get(option) + " instead");
+            }
+        }
+        Set<File> timings = getTimings().getFiles();
+        if (timings.size() > 1) {
+            throw new GradleException("The timings of " + getName() + " must be one report or directory of reports, not " + timings);
+        }
+
+        List<File> collections = getCollections().getFiles().stream().sorted().collect(Collectors.toList());
+        // the class is named after the file, so two collections with the same name would overwrite each other
+        Map<String, File> names = new HashMap<>();
+        for (File collection : collections) {
+            File other = names.put(collection.getName(), collection);
+            if (other != null) {
+                throw new GradleException("The collections " + other + " and " + collection + " would generate the same class");
+            }
+        }
+
+        // classes of removed collections and of other options must not be left behind
+        getFileSystemOperations().delete(spec -> spec.delete(getOutputDirectory(), getResourceDirectory()));
+        getOutputDirectory().get().getAsFile().mkdirs();
+        getResourceDirectory().get().getAsFile().mkdirs();
+
+        WorkQueue queue = getWorkerExecutor().classLoaderIsolation(spec -> spec.getClasspath().from(getConverterClasspath()));
+        for (File collection : collections) {
+            queue.submit(GenerateAction.class, parameters -> {
+                parameters.getCollection().set(collection);
+                parameters.getOutputPackage().set(getOutputPackage());
+                parameters.getOptions().set(getOptions());
+                parameters.getDataFile().set(getDataFile());
+                parameters.getTimings().from(timings);
+                parameters.getOutputDirectory().set(getOutputDirectory());
+                parameters.getResourceDirectory().set(getResourceDirectory());
+            });
+        }
+        queue.await();
+        getLogger().info("Generated tests of {} collections", collections.size());
+    }
+}
@@ -0,0 +1,52 @@
+package dk.kodeninjaer.testing.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * Extension configuring the tests generated from Postman collections, e.g.
+ * <pre>
+ * postmanTests {
+ *     collections.from(fileTree("src/test/resources") { include "*.postman_collection.json" })
+ *     outputPackage = "dk.kodeninjaer.generated"
+ *     options.put("concurrent", "true")
+ *     timings.from("build/test-results/runGeneratedTests")
+ * }
+ * </pre>
+ */
+public abstract class PostmanTestsExtension {
+
+    /**
+     * @return the collection files, every collection is generated as a test class named after the file
+     */
+    public abstract ConfigurableFileCollection getCollections();
+
+    /**
+     * @return the package of the generated classes, generated by default
+     */
+    public abstract Property<String> getOutputPackage();
+
+    /**
+     * Options of the converter by the name of their generator setter, e.g. concurrent for
+     * setConcurrent or splitSize for setSplitSize, with the values as strings
+     * @return
+     */
+    public abstract MapProperty<String, String> getOptions();
+
+    /**
+     * @return the collection runner data file the generated tests iterate over, instead of the dataFile option
+     */
+    public abstract RegularFileProperty getDataFile();
+
+    /**
+     * @return the report, or directory of reports, of a previous run balancing the shards, instead of the timingFile option
+     */
+    public abstract ConfigurableFileCollection getTimings();
+
+    /**
+     * @return the classpath of the converter, the {@value PostmanTestsPlugin#CONFIGURATION_NAME} configuration by default
+     */
+    public abstract ConfigurableFileCollection getConverterClasspath();
+}
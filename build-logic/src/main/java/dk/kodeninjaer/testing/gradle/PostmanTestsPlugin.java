@@ -0,0 +1,56 @@
+package dk.kodeninjaer.testing.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+/**
+ * Plugin generating RestAssured tests from Postman collections. It adds the {@value #EXTENSION_NAME}
+ * extension, the {@value #TASK_NAME} task and, with the Java plugin, the {@value #SOURCE_SET_NAME}
+ * source set compiling the generated tests, so compiling or running them generates them first.
+ * <p>
+ * The converter is taken from the {@value #CONFIGURATION_NAME} configuration, or from the classpath
+ * set on the extension, and runs in the Gradle daemon in an isolated class loader.
+ */
+public class PostmanTestsPlugin implements Plugin<Project> {
+    public static final String EXTENSION_NAME = "postmanTests";
+    public static final String TASK_NAME = "generatePostmanTests";
+    public static final String CONFIGURATION_NAME = "postmanConverter";
+    public static final String SOURCE_SET_NAME = "generatedTests";
+
+    @Override
+    public void apply(Project project) {
+        PostmanTestsExtension extension = project.getExtensions().create(EXTENSION_NAME, PostmanTestsExtension.class);
+        extension.getOutputPackage().convention("generated");
+
+        Configuration converter = project.getConfigurations().create(CONFIGURATION_NAME, configuration -> {
+            configuration.setDescription("Classpath of the Postman to RestAssured converter");
+            configuration.setCanBeConsumed(false);
+        });
+        extension.getConverterClasspath().from(converter);
+
+        TaskProvider<GeneratePostmanTests> generate = project.getTasks().register(TASK_NAME, GeneratePostmanTests.class, task -> {
+            task.setGroup("verification");
+            task.setDescription("Generates RestAssured tests from Postman collections");
+            task.getCollections().from(extension.getCollections());
+            task.getOutputPackage().set(extension.getOutputPackage());
+            task.getOptions().set(extension.getOptions());
+            task.getDataFile().set(extension.getDataFile());
+            task.getTimings().from(extension.getTimings());
+            task.getConverterClasspath().from(extension.getConverterClasspath());
+            task.getOutputDirectory().convention(project.getLayout().getBuildDirectory().dir("generated-sources/postman"));
+            task.getResourceDirectory().convention(project.getLayout().getBuildDirectory().dir("generated-resources/postman"));
+        });
+
+        project.getPlugins().withType(JavaPlugin.class, plugin -> {
+            SourceSet generatedTests = project.getExtensions().getByType(SourceSetContainer.class).maybeCreate(SOURCE_SET_NAME);
+            // the directories carry the task dependency, compiling the source set runs the generation first
+            generatedTests.getJava().srcDir(generate.flatMap(GeneratePostmanTests::getOutputDirectory));
+            generatedTests.getResources().srcDir(generate.flatMap(GeneratePostmanTests::getResourceDirectory));
+        });
+    }
+}
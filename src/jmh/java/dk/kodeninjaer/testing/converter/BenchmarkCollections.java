@@ -0,0 +1,93 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Collections the benchmarks run against. Names of the form <code>synthetic-N</code> are
+ * generated into a temporary file with N requests, any other name refers to a collection in
+ * <code>src/test/resources</code>.
+ */
+final class BenchmarkCollections {
+    private static final String SYNTHETIC = "synthetic-";
+    private static final int REQUESTS_PER_FOLDER = 50;
+    /**
+     * Number of consecutive requests sharing a variable, every other group is chained
+     */
+    private static final int CHAIN_LENGTH = 4;
+
+    private BenchmarkCollections() {
+    }
+
+    /**
+     * Method to get the path of a benchmark collection, generating synthetic collections on demand
+     * @param name
+     * @return
+     */
+    static Path resolve(String name) {
+        if (!name.startsWith(SYNTHETIC)) {
+            return Path.of("src/test/resources", name + ".postman_collection.json");
+        }
+        try {
+            Path file = Files.createTempFile("benchmark-", ".postman_collection.json");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, synthetic(Integer.parseInt(name.substring(SYNTHETIC.length()))));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to generate a collection with nested folders, templated headers, bodies and scripts.
+     * Half of the requests form short dependency chains, each through a variable of its own that
+     * the requests set and assert on, and the other half are independent
+     * @param requests
+     * @return
+     */
+    static String synthetic(int requests) {
+        StringBuilder sb = new StringBuilder("{\"info\":{\"name\":\"Synthetic\",\"url\":\"http://localhost\"},\"item\":[");
+        for (int request = 0; request < requests; request++) {
+            if (request % REQUESTS_PER_FOLDER == 0) {
+                if (request > 0) {
+                    sb.append("]}]},");
+                }
+                sb.append("{\"name\":\"Folder ").append(request / REQUESTS_PER_FOLDER)
+                        .append("\",\"item\":[{\"name\":\"Sub\",\"item\":[");
+            } else {
+                sb.append(',');
+            }
+            int group = request / CHAIN_LENGTH;
+            boolean chained = group % 2 == 0;
+            sb.append("{\"name\":\"Request ").append(request).append("\",\"event\":[");
+            if (chained) {
+                sb.append("{\"listen\":\"prerequest\",\"script\":{\"exec\":[")
+                        .append("\"pm.environment.set(\\\"id").append(group).append("\\\", \\\"").append(request)
+                        .append("\\\");\"]}},");
+            }
+            sb.append("{\"listen\":\"test\",\"script\":{\"exec\":[")
+                    .append("\"pm.test(\\\"Status code is 200\\\", function () {\",")
+                    .append("\"    pm.response.to.have.status(200);\",")
+                    .append("\"    pm.response.to.be.json;\",")
+                    .append(chained
+                            ? "\"    pm.expect(pm.response.json().id).to.equal(pm.environment.get(\\\"id" + group + "\\\"));\","
+                            : "\"    pm.expect(pm.response.json().name).to.equal(\\\"item " + request + "\\\");\",")
+                    .append("\"});\"]}}],")
+                    .append("\"request\":{\"method\":\"POST\",\"header\":[")
+                    .append("{\"key\":\"Content-Type\",\"value\":\"application/json\"},")
+                    .append("{\"key\":\"X-Api-Key\",\"value\":\"{{api-key}}\"},")
+                    .append("{\"key\":\"X-Trace\",\"value\":\"trace-{{user.id}}-").append(request).append("\"}],")
+                    .append("\"body\":{\"mode\":\"raw\",\"raw\":\"{\\\"id\\\": \\\"{{user.id}}\\\", \\\"name\\\": \\\"item ")
+                    .append(request).append("\\\"}\"},")
+                    .append("\"url\":{\"raw\":\"{{url}}/items/").append(request).append("\"}}}");
+        }
+        if (requests > 0) {
+            sb.append("]}]}");
+        }
+        sb.append("],\"variable\":[{\"key\":\"url\",\"value\":\"http://localhost\"},")
+                .append("{\"key\":\"api-key\",\"value\":\"secret\"},{\"key\":\"user.id\",\"value\":\"42\"}]}");
+        return sb.toString();
+    }
+}
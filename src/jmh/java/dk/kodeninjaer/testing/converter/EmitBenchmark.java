@@ -0,0 +1,54 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the emit phase: rendering the header maps, and rendering the whole test class
+ * source of an already parsed collection without writing it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmitBenchmark {
+    @Param({"TestCollection", "TestCollectionFolders", "TestCollectionLoops", "TestCollectionScripts",
+            "TestCollectionVariables", "synthetic-1000", "synthetic-10000"})
+    public String collection;
+
+    private PostmanToRestAssuredGenerator generator;
+    private ParsedCollection parsed;
+
+    @Setup
+    public void setup() throws IOException {
+        generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.benchmark", "EmitBenchmarkTest");
+        parsed = generator.parse(BenchmarkCollections.resolve(collection).toString());
+    }
+
+    @Benchmark
+    public void constantHeaders(Blackhole blackhole) {
+        for (TestCase testCase : parsed.testCases) {
+            blackhole.consume(generator.constantHeaders(testCase.headers, parsed));
+        }
+    }
+
+    @Benchmark
+    public String renderTestClass() {
+        return generator.renderTestClass(parsed, null);
+    }
+}
@@ -0,0 +1,56 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a full conversion, from reading the collection file to writing the test class,
+ * for every combination of the streaming and parallel modes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBenchmark {
+    @Param({"TestCollection", "TestCollectionFolders", "TestCollectionLoops", "TestCollectionScripts",
+            "TestCollectionVariables", "synthetic-1000", "synthetic-10000"})
+    public String collection;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private PostmanToRestAssuredGenerator generator;
+    private String path;
+
+    @Setup
+    public void setup() {
+        path = BenchmarkCollections.resolve(collection).toString();
+        generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.benchmark", "GenerateBenchmarkTest");
+        // keep the output away from the generatedTests source set
+        generator.setOutputDirectory("build/jmh-generated");
+        generator.setStreamingParse(streaming);
+        generator.setParallel(parallel);
+    }
+
+    @Benchmark
+    public void generate() throws IOException {
+        generator.generate(path);
+    }
+}
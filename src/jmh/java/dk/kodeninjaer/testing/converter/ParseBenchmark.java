@@ -0,0 +1,86 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the parse phase: walking the item tree into test cases, and lexing the
+ * pre-request and test scripts of every item
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"TestCollection", "TestCollectionFolders", "TestCollectionLoops", "TestCollectionScripts",
+            "TestCollectionVariables", "synthetic-1000", "synthetic-10000"})
+    public String collection;
+
+    private PostmanToRestAssuredGenerator generator;
+    private JsonNode items;
+    private final List<String> preRequestScripts = new ArrayList<>();
+    private final List<String> testScripts = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.benchmark", "ParseBenchmarkTest", mapper);
+        items = mapper.readTree(BenchmarkCollections.resolve(collection).toFile()).path("item");
+        collectScripts(items);
+    }
+
+    private void collectScripts(JsonNode items) {
+        for (JsonNode item : items) {
+            collectScripts(item.path("item"));
+            for (JsonNode event : item.path("event")) {
+                String script = PostmanToRestAssuredGenerator.scriptText(event.path("script").path("exec"));
+                if ("prerequest".equals(event.path("listen").asText())) {
+                    preRequestScripts.add(script);
+                } else if ("test".equals(event.path("listen").asText())) {
+                    testScripts.add(script);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TestCase> parseItemsRecursive() throws JsonProcessingException {
+        List<TestCase> testCases = new ArrayList<>();
+        generator.parseItemsRecursive(items, "", testCases);
+        return testCases;
+    }
+
+    @Benchmark
+    public void parseScript(Blackhole blackhole) {
+        for (String script : preRequestScripts) {
+            blackhole.consume(generator.parseScript(script));
+        }
+    }
+
+    @Benchmark
+    public void parseAssertions(Blackhole blackhole) {
+        for (String script : testScripts) {
+            blackhole.consume(generator.parseAssertions(script));
+        }
+    }
+}
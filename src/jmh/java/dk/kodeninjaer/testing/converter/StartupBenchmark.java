@@ -0,0 +1,125 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Startup benchmark of the command line launcher. Every collection is converted in a new JVM,
+ * and the time until the launcher prints its first output and the time until it exits are
+ * measured, with the class data sharing archive of the distribution, with only the archive of
+ * the JDK and without class data sharing. JMH measures code in a running JVM, so startup is
+ * measured with separate processes.
+ * <p>
+ * Usage: <code>StartupBenchmark &lt;launcher&gt; &lt;report.json&gt; &lt;runs&gt; &lt;collection&gt;...</code>
+ */
+public class StartupBenchmark {
+
+    /**
+     * Class data sharing setup, given to the launcher through JAVA_OPTS which come after its default options
+     */
+    private enum Mode {
+        APP_CDS(""),
+        JDK_CDS("-XX:-AutoCreateSharedArchive -XX:SharedArchiveFile="
+                + Path.of(System.getProperty("java.home"), "lib", "server", "classes.jsa")),
+        OFF("-Xshare:off");
+
+        final String javaOpts;
+
+        Mode(String javaOpts) {
+            this.javaOpts = javaOpts;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("Usage: StartupBenchmark <launcher> <report.json> <runs> <collection>...");
+            System.exit(1);
+        }
+        String launcher = args[0];
+        Path report = Path.of(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        List<String> collections = Arrays.asList(args).subList(3, args.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode results = mapper.createArrayNode();
+        System.out.printf("%-40s %-8s %18s %12s%n", "collection", "mode", "first output (ms)", "exit (ms)");
+        for (String collection : collections) {
+            for (Mode mode : Mode.values()) {
+                // one run to fill the file system cache
+                run(launcher, collection, mode);
+                long[] firstOutput = new long[runs];
+                long[] exit = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    long[] times = run(launcher, collection, mode);
+                    firstOutput[i] = times[0];
+                    exit[i] = times[1];
+                }
+                String name = Path.of(collection).getFileName().toString().replace(BatchConverter.COLLECTION_SUFFIX, "");
+                System.out.printf(Locale.ROOT, "%-40s %-8s %18.1f %12.1f%n", name, mode.name().toLowerCase(),
+                        median(firstOutput), median(exit));
+
+                ObjectNode result = results.addObject();
+                result.put("collection", name);
+                result.put("mode", mode.name().toLowerCase());
+                result.put("runs", runs);
+                result.put("firstOutputMedianMs", median(firstOutput));
+                result.put("firstOutputMinMs", Arrays.stream(firstOutput).min().getAsLong() / 1e6);
+                result.put("exitMedianMs", median(exit));
+                result.put("exitMinMs", Arrays.stream(exit).min().getAsLong() / 1e6);
+            }
+        }
+        if (report.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), results);
+        System.out.println("Results written to " + report);
+    }
+
+    /**
+     * Method to convert a collection with the launcher
+     * @param launcher
+     * @param collection
+     * @param mode
+     * @return nanoseconds until the first output and until the launcher exited
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private static long[] run(String launcher, String collection, Mode mode) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(launcher, collection, "dk.kodeninjaer.startup", "StartupTest")
+                .redirectErrorStream(true);
+        builder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        builder.environment().put("JAVA_OPTS", mode.javaOpts);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long firstOutput = -1;
+        try (InputStream output = process.getInputStream()) {
+            if (output.read() >= 0) {
+                firstOutput = System.nanoTime() - start;
+            }
+            output.transferTo(OutputStream.nullOutputStream());
+        }
+        int status = process.waitFor();
+        long exit = System.nanoTime() - start;
+        if (status != 0) {
+            throw new IOException("Launcher failed with status " + status + " for " + collection);
+        }
+        return new long[] { firstOutput < 0 ? exit : firstOutput, exit };
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2) / 1e6;
+    }
+}
@@ -0,0 +1,133 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of running the tests generated by each emitter for the same collection against a
+ * local stub server, so the time and, with <code>-prof gc</code>, the allocation of a suite run
+ * can be compared between the backends. The server answers every request with a small JSON body
+ * and takes little of the time, most of it is spent by the client and the assertions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// the stub server would otherwise hold back small responses for the delayed acknowledgement of the client
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class SuiteBenchmark {
+    @Param({RestAssuredEmitter.NAME, HttpClientEmitter.NAME})
+    public String emitter;
+
+    @Param({"100"})
+    public int requests;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Object suite;
+    private final List<Method> tests = new ArrayList<>();
+
+    @Setup
+    public void setup() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = ("{\"id\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\",\"name\":\"item\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(executor);
+        server.start();
+
+        Path collection = Files.createTempFile("suite-benchmark-", ".postman_collection.json");
+        collection.toFile().deleteOnExit();
+        Files.writeString(collection, collection(requests, "http://127.0.0.1:" + server.getAddress().getPort()));
+        PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.benchmark", "SuiteBenchmarkTest");
+        generator.setEmitter(emitter);
+        InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Could not compile the suite: " + result.getProblems());
+        }
+        Class<?> suiteClass = result.classLoader(getClass().getClassLoader()).loadClass("dk.kodeninjaer.benchmark.SuiteBenchmarkTest");
+        suiteClass.getMethod("setup").invoke(null);
+        suite = suiteClass.getConstructor().newInstance();
+        for (Method method : suiteClass.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+                tests.add(method);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void runSuite() throws Exception {
+        for (Method test : tests) {
+            test.invoke(suite);
+        }
+    }
+
+    /**
+     * Method to generate a collection of requests with a templated header and body, asserting the
+     * status, the content type and a value of the response
+     * @param requests
+     * @param url
+     * @return
+     */
+    static String collection(int requests, String url) {
+        StringBuilder sb = new StringBuilder("{\"info\":{\"name\":\"Suite\"},\"item\":[");
+        for (int request = 0; request < requests; request++) {
+            sb.append(request == 0 ? "" : ",")
+                    .append("{\"name\":\"Request ").append(request).append("\",")
+                    .append("\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[")
+                    .append("\"pm.test(\\\"Item is returned\\\", function () {\",")
+                    .append("\"    var jsonData = pm.response.json();\",")
+                    .append("\"    pm.response.to.have.status(200);\",")
+                    .append("\"    pm.response.to.be.json;\",")
+                    .append("\"    pm.expect(jsonData.id).to.equal(\\\"").append(request).append("\\\");\",")
+                    .append("\"});\"]}}],")
+                    .append("\"request\":{\"method\":\"").append(request % 2 == 0 ? "GET" : "POST").append("\",\"header\":[")
+                    .append("{\"key\":\"Content-Type\",\"value\":\"application/json\"},")
+                    .append("{\"key\":\"X-Api-Key\",\"value\":\"{{api-key}}\"}],")
+                    .append(request % 2 == 0 ? "" : "\"body\":{\"mode\":\"raw\",\"raw\":\"{\\\"name\\\": \\\"item " + request + "\\\"}\"},")
+                    .append("\"url\":{\"raw\":\"{{url}}/items/").append(request).append("\"}}}");
+        }
+        sb.append("],\"variable\":[{\"key\":\"url\",\"value\":\"").append(url).append("\"},")
+                .append("{\"key\":\"api-key\",\"value\":\"secret\"}]}");
+        return sb.toString();
+    }
+}
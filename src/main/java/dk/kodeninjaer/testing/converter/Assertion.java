@@ -0,0 +1,37 @@
+package dk.kodeninjaer.testing.converter;
+
+/**
+ * Class to represent an assertion of a test script
+ */
+public class Assertion {
+    String type; // "expect" or "test"
+    String actual;
+    String matcher;
+    String expected;
+    String description; // for pm.test assertions
+    String originalScript; // original Postman script
+
+    public String getType() {
+        return type;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+
+    public String getMatcher() {
+        return matcher;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getOriginalScript() {
+        return originalScript;
+    }
+}
@@ -0,0 +1,46 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class to represent the authorization of a collection, folder or request, such as a bearer
+ * token or basic credentials. The parameters are the key-value pairs of the Postman auth block,
+ * e.g. <code>token</code> for bearer or <code>username</code> and <code>password</code> for basic,
+ * and may contain <code>{{variable}}</code> references.
+ */
+public class Auth {
+    /** type of the auth, e.g. bearer, basic, apikey, oauth2 or noauth */
+    String type;
+    Map<String, String> parameters = new LinkedHashMap<>();
+
+    public Auth() {
+    }
+
+    public Auth(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Method to get a parameter
+     * @param key
+     * @param defaultValue
+     * @return the value, or the default value if the parameter is not set
+     */
+    public String get(String key, String defaultValue) {
+        return parameters.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return type + parameters;
+    }
+}
@@ -0,0 +1,298 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class to convert many Postman collections in one JVM. Collections are converted concurrently on
+ * a bounded thread pool, every conversion gets its own generator and all of them share a single
+ * {@link ObjectMapper}.
+ */
+public class BatchConverter {
+    /**
+     * Logger to log the causes of failed conversions
+     */
+    private static final Logger logger = LoggerFactory.getLogger(BatchConverter.class);
+    /**
+     * File name suffix of exported Postman collections
+     */
+    public static final String COLLECTION_SUFFIX = ".postman_collection.json";
+
+    /**
+     * Output package used for collections without an explicit package
+     */
+    private final String outputPackage;
+    /**
+     * Number of collections converted at the same time
+     */
+    private final int threads;
+    /**
+     * Mapper shared by all conversions
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Callback applying options to every generator before it runs
+     */
+    private Consumer<PostmanToRestAssuredGenerator> configurator = generator -> { };
+
+    /**
+     * Constructor using one thread per available processor
+     * @param outputPackage
+     */
+    public BatchConverter(String outputPackage) {
+        this(outputPackage, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor to initialize the output package and the size of the thread pool
+     * @param outputPackage
+     * @param threads
+     */
+    public BatchConverter(String outputPackage, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.outputPackage = outputPackage;
+        this.threads = threads;
+    }
+
+    /**
+     * Method to set a callback that configures every generator before it runs
+     * @param configurator
+     */
+    public void setConfigurator(Consumer<PostmanToRestAssuredGenerator> configurator) {
+        this.configurator = configurator;
+    }
+
+    /**
+     * Method to resolve a directory, glob or manifest into a list of conversion jobs.
+     * <ul>
+     * <li>a directory is searched recursively for {@value #COLLECTION_SUFFIX} files</li>
+     * <li>a path containing glob characters is matched against the files below its fixed prefix</li>
+     * <li>any other file is read as a manifest with one <code>collection [package] [class]</code> per line,
+     * relative paths are resolved against the directory of the manifest and lines starting with # are ignored</li>
+     * </ul>
+     * @param source
+     * @return
+     * @throws IOException
+     */
+    public List<Job> resolve(String source) throws IOException {
+        if (isGlob(source)) {
+            return resolveGlob(source);
+        }
+        Path path = Path.of(source);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                return files.filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(COLLECTION_SUFFIX))
+                        .sorted()
+                        .map(file -> new Job(file, outputPackage, className(file)))
+                        .collect(Collectors.toList());
+            }
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("No such collection directory, glob or manifest: " + source);
+        }
+        return resolveManifest(path);
+    }
+
+    /**
+     * Method to convert all jobs, printing the outcome of every collection and a summary
+     * @param jobs
+     * @param out
+     * @return
+     */
+    public Summary convert(List<Job> jobs, PrintStream out) {
+        long start = System.nanoTime();
+        List<Future<GenerationMetrics>> futures = new ArrayList<>();
+        Set<String> classNames = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jobs.size())));
+        try {
+            for (Job job : jobs) {
+                if (!classNames.add(job.outputPackage + "." + job.outputClassName)) {
+                    futures.add(null);
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    PostmanToRestAssuredGenerator generator =
+                            new PostmanToRestAssuredGenerator(job.outputPackage, job.outputClassName, mapper);
+                    configurator.accept(generator);
+                    return generator.generate(job.collection.toString());
+                }));
+            }
+
+            Summary summary = new Summary();
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = jobs.get(i);
+                String error = null;
+                if (futures.get(i) == null) {
+                    error = "duplicate output class " + job.outputPackage + "." + job.outputClassName;
+                } else {
+                    try {
+                        summary.metrics.add(futures.get(i).get());
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        error = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+                        logger.debug("Conversion of {} failed", job.collection, cause);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        error = "interrupted";
+                    }
+                }
+                if (error == null) {
+                    summary.succeeded++;
+                    out.println("OK     " + job.collection + " -> " + job.outputPackage + "." + job.outputClassName);
+                } else {
+                    summary.failed++;
+                    out.println("FAILED " + job.collection + ": " + error);
+                }
+            }
+            summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            out.println("Converted " + summary.succeeded + " of " + jobs.size() + " collections ("
+                    + summary.failed + " failed) in " + summary.elapsedMillis + " ms");
+            return summary;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method to derive a test class name from a collection file name
+     * @param collection
+     * @return
+     */
+    public static String className(Path collection) {
+        String name = collection.getFileName().toString();
+        if (name.endsWith(COLLECTION_SUFFIX)) {
+            name = name.substring(0, name.length() - COLLECTION_SUFFIX.length());
+        } else if (name.endsWith(".json")) {
+            name = name.substring(0, name.length() - ".json".length());
+        }
+        name = name.replaceAll("[^a-zA-Z0-9_]", "_");
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name = "_" + name;
+        }
+        return name + "Test";
+    }
+
+    /**
+     * Method to check if a source contains glob characters
+     * @param source
+     * @return
+     */
+    private static boolean isGlob(String source) {
+        return source.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    /**
+     * Method to resolve a glob into jobs, the files below the part of the glob before the first
+     * wildcard are matched
+     * @param glob
+     * @return
+     * @throws IOException
+     */
+    private List<Job> resolveGlob(String glob) throws IOException {
+        String normalized = glob.replace('\\', '/');
+        int wildcard = 0;
+        while (wildcard < normalized.length() && "*?[{".indexOf(normalized.charAt(wildcard)) < 0) {
+            wildcard++;
+        }
+        int slash = normalized.lastIndexOf('/', wildcard);
+        Path root = slash < 0 ? Path.of(".") : Path.of(normalized.substring(0, slash + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(slash < 0 ? root.relativize(file) : file))
+                    .sorted()
+                    .map(file -> new Job(file, outputPackage, className(file)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Method to read a manifest file into jobs
+     * @param manifest
+     * @return
+     * @throws IOException
+     */
+    private List<Job> resolveManifest(Path manifest) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<Job> jobs = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+");
+            Path collection = base.resolve(parts[0]).normalize();
+            String jobPackage = parts.length > 1 ? parts[1] : outputPackage;
+            String jobClass = parts.length > 2 ? parts[2] : className(collection);
+            jobs.add(new Job(collection, jobPackage, jobClass));
+        }
+        return jobs;
+    }
+
+    /**
+     * Class to represent the conversion of one collection
+     */
+    public static class Job {
+        final Path collection;
+        final String outputPackage;
+        final String outputClassName;
+
+        public Job(Path collection, String outputPackage, String outputClassName) {
+            this.collection = collection;
+            this.outputPackage = outputPackage;
+            this.outputClassName = outputClassName;
+        }
+    }
+
+    /**
+     * Class to represent the outcome of a batch conversion
+     */
+    public static class Summary {
+        int succeeded;
+        int failed;
+        long elapsedMillis;
+        final List<GenerationMetrics> metrics = new ArrayList<>();
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return the metrics of the successful conversions in job order
+         */
+        public List<GenerationMetrics> getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Request body read from a classpath resource, used by generated tests for bodies too large to be
+ * inlined as string constants. The resource holds the literal text of the body, and the variables
+ * of the body are given as byte offsets into it. Variable values are looked up when the stream
+ * reaches their offset, so the body is substituted in one streaming pass without building it as a
+ * string.
+ * <p>
+ * The resource is read when the request is sent, classes of tests that are never run do not hold
+ * the body at all.
+ */
+public class BodyResource extends InputStream {
+    private final InputStream resource;
+    private final Map<String, String> variables;
+    private final long[] offsets;
+    private final String[] names;
+    /**
+     * Number of bytes read from the resource
+     */
+    private long position;
+    /**
+     * Index of the next variable to insert
+     */
+    private int next;
+    /**
+     * Value of the variable being inserted and the number of its bytes already read
+     */
+    private byte[] value;
+    private int valuePosition;
+
+    private BodyResource(InputStream resource, Map<String, String> variables, long[] offsets, String[] names) {
+        this.resource = resource;
+        this.variables = variables;
+        this.offsets = offsets;
+        this.names = names;
+    }
+
+    /**
+     * Method to open a body without variables
+     * @param owner class whose class loader the resource is loaded with
+     * @param resource absolute resource name without leading slash
+     * @return
+     */
+    public static InputStream open(Class<?> owner, String resource) {
+        return open(owner, resource, Map.of(), new long[0], new String[0]);
+    }
+
+    /**
+     * Method to open a body with variables
+     * @param owner class whose class loader the resource is loaded with
+     * @param resource absolute resource name without leading slash
+     * @param variables values of the variables, a missing variable is inserted as <code>null</code>
+     * @param offsets byte offsets into the resource the variables are inserted at, in ascending order
+     * @param names names of the variables at the offsets
+     * @return
+     */
+    public static InputStream open(Class<?> owner, String resource, Map<String, String> variables, long[] offsets,
+            String[] names) {
+        InputStream in = owner.getResourceAsStream("/" + resource);
+        if (in == null) {
+            throw new IllegalStateException("Request body resource " + resource + " not found on the classpath");
+        }
+        return new BodyResource(new BufferedInputStream(in), variables, offsets, names);
+    }
+
+    /**
+     * Method to start inserting the variables due at the current position
+     * @return true while a variable value is being inserted
+     */
+    private boolean inserting() {
+        while (value == null || valuePosition == value.length) {
+            if (next >= offsets.length || offsets[next] != position) {
+                value = null;
+                return false;
+            }
+            value = String.valueOf(variables.get(names[next++])).getBytes(StandardCharsets.UTF_8);
+            valuePosition = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (inserting()) {
+            return value[valuePosition++] & 0xff;
+        }
+        int b = resource.read();
+        if (b >= 0) {
+            position++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (inserting()) {
+            int count = Math.min(len, value.length - valuePosition);
+            System.arraycopy(value, valuePosition, buffer, off, count);
+            valuePosition += count;
+            return count;
+        }
+        // read up to the next variable at most
+        if (next < offsets.length) {
+            len = (int) Math.min(len, offsets[next] - position);
+        }
+        int count = resource.read(buffer, off, len);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        resource.close();
+    }
+}
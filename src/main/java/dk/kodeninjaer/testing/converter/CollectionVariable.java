@@ -0,0 +1,10 @@
+package dk.kodeninjaer.testing.converter;
+
+/**
+ * Class to represent a collection variable
+ */
+public class CollectionVariable extends Variable {
+    public CollectionVariable(String key, String value) {
+        super(key, value, "Collection");
+    }
+}
@@ -0,0 +1,248 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Long running converter that watches directories of Postman collections and regenerates a test
+ * class as soon as its collection is saved. Bursts of events for the same file, as written by
+ * editors saving in several steps, are debounced into one conversion. Every collection keeps its
+ * own generator and all of them share one {@link ObjectMapper}, so after the first conversion a
+ * regeneration runs in a warm JVM.
+ */
+public class CollectionWatcher implements Closeable {
+    /**
+     * Output package of the generated test classes
+     */
+    private final String outputPackage;
+    /**
+     * Directories watched for collections, including their sub-directories
+     */
+    private final List<Path> directories;
+    /**
+     * Mapper shared by all generators
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Warm generator per collection file
+     */
+    private final Map<Path, PostmanToRestAssuredGenerator> generators = new HashMap<>();
+    /**
+     * Collection file per generated class name, collections of the same name in other directories
+     * would overwrite its class
+     */
+    private final Map<String, Path> classNames = new HashMap<>();
+    /**
+     * Watched directory per watch key
+     */
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final WatchService watchService;
+    /**
+     * Callback applying options to every generator when it is created
+     */
+    private Consumer<PostmanToRestAssuredGenerator> configurator = generator -> { };
+    /**
+     * Time without new events for a file before it is converted
+     */
+    private long debounceMillis = 200;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor to initialize the output package and the watched directories
+     * @param outputPackage
+     * @param directories
+     * @throws IOException
+     */
+    public CollectionWatcher(String outputPackage, List<Path> directories) throws IOException {
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                throw new IOException("No such collection directory: " + directory);
+            }
+        }
+        this.outputPackage = outputPackage;
+        this.directories = directories;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Method to set a callback that configures every generator when it is created
+     * @param configurator
+     */
+    public void setConfigurator(Consumer<PostmanToRestAssuredGenerator> configurator) {
+        this.configurator = configurator;
+    }
+
+    /**
+     * Method to set the time to wait for more events of a file before it is converted
+     * @param debounceMillis
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Method to convert every collection and then regenerate collections as they change, until
+     * the watcher is closed
+     * @param out
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void run(PrintStream out) throws IOException, InterruptedException {
+        for (Path directory : directories) {
+            register(directory);
+        }
+        // the first conversion of every collection also warms up the JVM
+        for (Path directory : directories) {
+            for (Path collection : collections(directory)) {
+                convert(collection, out);
+            }
+        }
+        out.println("Watching " + directories.stream().map(Path::toString).collect(Collectors.joining(", "))
+                + " for changes");
+
+        Map<Path, Long> pending = new LinkedHashMap<>();
+        try {
+            while (running) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    long wait = pending.values().stream().min(Long::compare).get() - System.currentTimeMillis();
+                    key = watchService.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+                }
+                if (key != null) {
+                    collectEvents(key, pending);
+                }
+                long now = System.currentTimeMillis();
+                for (Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Path, Long> entry = it.next();
+                    if (entry.getValue() <= now) {
+                        it.remove();
+                        if (Files.isRegularFile(entry.getKey())) {
+                            convert(entry.getKey(), out);
+                        }
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed by another thread
+        }
+    }
+
+    /**
+     * Method to add the collections of a watch key's events to the pending conversions
+     * @param key
+     * @param pending collections to convert with the time they may be converted at
+     * @throws IOException
+     */
+    private void collectEvents(WatchKey key, Map<Path, Long> pending) throws IOException {
+        Path directory = keys.get(key);
+        long due = System.currentTimeMillis() + debounceMillis;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, convert everything that is watched
+                for (Path watched : directories) {
+                    for (Path collection : collections(watched)) {
+                        pending.put(collection, due);
+                    }
+                }
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path);
+                for (Path collection : collections(path)) {
+                    pending.put(collection, due);
+                }
+            } else if (isCollection(path)) {
+                pending.put(path, due);
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Method to convert a collection with its warm generator
+     * @param collection
+     * @param out
+     */
+    private void convert(Path collection, PrintStream out) {
+        String className = BatchConverter.className(collection);
+        Path other = classNames.putIfAbsent(className, collection.toAbsolutePath());
+        if (other != null && !other.equals(collection.toAbsolutePath())) {
+            out.println("FAILED " + collection + ": duplicate output class " + outputPackage + "." + className
+                    + " of " + other);
+            return;
+        }
+        PostmanToRestAssuredGenerator generator = generators.computeIfAbsent(collection.toAbsolutePath(), path -> {
+            PostmanToRestAssuredGenerator created =
+                    new PostmanToRestAssuredGenerator(outputPackage, BatchConverter.className(path), mapper);
+            configurator.accept(created);
+            return created;
+        });
+        try {
+            GenerationMetrics metrics = generator.generate(collection.toString());
+            out.println("OK     " + collection + " -> " + outputPackage + "." + className
+                    + " in " + Math.round(metrics.getTotalMillis()) + " ms");
+        } catch (IOException | RuntimeException e) {
+            out.println("FAILED " + collection + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method to watch a directory and its sub-directories
+     * @param directory
+     * @throws IOException
+     */
+    private void register(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+                keys.put(path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY), path);
+            }
+        }
+    }
+
+    private static List<Path> collections(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(CollectionWatcher::isCollection).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static boolean isCollection(Path path) {
+        return path.getFileName().toString().endsWith(BatchConverter.COLLECTION_SUFFIX) && Files.isRegularFile(path);
+    }
+
+    /**
+     * Method to stop watching, a running {@link #run(PrintStream)} returns
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+    }
+}
@@ -0,0 +1,243 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Rows of a Postman collection runner data file, read lazily by the parameterized tests generated
+ * for a data file. A CSV file has a header row naming the variables, a JSON file holds an array of
+ * objects. Only the current row is held in memory, so files with millions of rows are run in
+ * constant memory.
+ * <p>
+ * The file is taken from the system property {@value #PATH_PROPERTY} when it is set, otherwise from
+ * the path given when the tests were generated.
+ */
+public class DataFile {
+    public static final String PATH_PROPERTY = "postman.data.file";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private DataFile() {
+    }
+
+    /**
+     * Method to stream the rows of a data file. Every row is a map of the row's values over the
+     * given variables, a variable that is not in the row is read from the variables, and values
+     * written to the map are written to the variables. The stream must be closed to close the file
+     * @param path path of a .csv or .json file, replaced by the system property {@value #PATH_PROPERTY}
+     * @param variables collection variables of the test class
+     * @return
+     */
+    public static Stream<Map<String, String>> rows(String path, Map<String, String> variables) {
+        Path file = Path.of(System.getProperty(PATH_PROPERTY, path));
+        try {
+            BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            Iterator<Map<String, String>> iterator = file.getFileName().toString().toLowerCase().endsWith(".json")
+                    ? new JsonRows(mapper.createParser(reader)) : new CsvRows(reader);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                    .map(row -> (Map<String, String>) new Row(row, variables))
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read data file " + file, e);
+        }
+    }
+
+    /**
+     * Iterator reading the rows of a CSV file. Fields may be quoted, and quoted fields may contain
+     * separators, line breaks and doubled quotes. Empty lines are skipped
+     */
+    static class CsvRows implements Iterator<Map<String, String>> {
+        private final Reader reader;
+        private final List<String> header;
+        private List<String> next;
+
+        CsvRows(Reader reader) throws IOException {
+            this.reader = reader;
+            this.header = readRecord();
+            this.next = header == null ? null : readRecord();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < next.size(); i++) {
+                row.put(header.get(i), next.get(i));
+            }
+            try {
+                next = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return row;
+        }
+
+        /**
+         * Method to read the next non-empty record
+         * @return the fields, or null at the end of the file
+         * @throws IOException
+         */
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    any = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    any = true;
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    if (any || field.length() > 0) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (any || field.length() > 0) {
+                fields.add(field.toString());
+                return fields;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Iterator reading the objects of a JSON array one at a time. Values that are not strings are
+     * given as their JSON text
+     */
+    static class JsonRows implements Iterator<Map<String, String>> {
+        private final JsonParser parser;
+        private boolean hasNext;
+
+        JsonRows(JsonParser parser) throws IOException {
+            this.parser = parser;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("A JSON data file must contain an array of objects");
+            }
+            hasNext = parser.nextToken() == JsonToken.START_OBJECT;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            try {
+                JsonNode object = parser.readValueAsTree();
+                Map<String, String> row = new LinkedHashMap<>();
+                for (Map.Entry<String, JsonNode> field : object.properties()) {
+                    row.put(field.getKey(), field.getValue().isValueNode()
+                            ? field.getValue().asText() : field.getValue().toString());
+                }
+                hasNext = parser.nextToken() == JsonToken.START_OBJECT;
+                return row;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Values of a row over the collection variables
+     */
+    static class Row extends AbstractMap<String, String> {
+        private final Map<String, String> values;
+        private final Map<String, String> variables;
+
+        Row(Map<String, String> values, Map<String, String> variables) {
+            this.values = values;
+            this.variables = variables;
+        }
+
+        @Override
+        public String get(Object key) {
+            String value = values.get(key);
+            return value != null ? value : variables.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return values.containsKey(key) || variables.containsKey(key);
+        }
+
+        @Override
+        public String put(String key, String value) {
+            return variables.put(key, value);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return values.entrySet();
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+}
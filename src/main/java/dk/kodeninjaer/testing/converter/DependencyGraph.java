@@ -0,0 +1,192 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Producer-consumer graph of the variables passed between the requests of a collection. Every
+ * request is a node identified by its position in the collection, and records the variables it
+ * reads (getters and <code>{{variable}}</code> references) and writes (setters).
+ * <p>
+ * Requests touching a variable that is written by at least one of them depend on each other: a
+ * reader must run after the producer before it, and a writer must not run before an earlier
+ * reader. Such requests are joined into a chain that has to run in collection order, while a
+ * request outside every chain is independent and can run in parallel with anything.
+ */
+public class DependencyGraph {
+    /**
+     * Variables read per node
+     */
+    private final List<Set<String>> reads = new ArrayList<>();
+    /**
+     * Variables written per node
+     */
+    private final List<Set<String>> writes = new ArrayList<>();
+
+    /**
+     * Method to add a node, nodes must be added in collection order
+     * @param reads variables read by the request
+     * @param writes variables written by the request
+     * @return the index of the node
+     */
+    public int addNode(Collection<String> reads, Collection<String> writes) {
+        this.reads.add(new LinkedHashSet<>(reads));
+        this.writes.add(new LinkedHashSet<>(writes));
+        return this.reads.size() - 1;
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return reads.size();
+    }
+
+    /**
+     * Method to find the producer-consumer edges, every read is linked to the last write of the
+     * same variable before it
+     * @return the edges ordered by consumer
+     */
+    public List<Edge> edges() {
+        List<Edge> edges = new ArrayList<>();
+        Map<String, Integer> lastWriter = new HashMap<>();
+        for (int node = 0; node < size(); node++) {
+            for (String variable : reads.get(node)) {
+                Integer producer = lastWriter.get(variable);
+                if (producer != null && producer != node) {
+                    edges.add(new Edge(producer, node, variable));
+                }
+            }
+            for (String variable : writes.get(node)) {
+                lastWriter.put(variable, node);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Method to group the nodes depending on each other into chains
+     * @return the chains with more than one node, ordered by their first node
+     */
+    public List<Chain> chains() {
+        int[] parent = new int[size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        // link every node touching a variable to the first node touching it, if anyone writes it
+        Map<String, Integer> first = new HashMap<>();
+        Set<String> written = new LinkedHashSet<>();
+        for (Set<String> nodeWrites : writes) {
+            written.addAll(nodeWrites);
+        }
+        for (int node = 0; node < size(); node++) {
+            for (String variable : touched(node)) {
+                if (written.contains(variable)) {
+                    Integer root = first.putIfAbsent(variable, node);
+                    if (root != null) {
+                        union(parent, root, node);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, Chain> chains = new LinkedHashMap<>();
+        for (int node = 0; node < size(); node++) {
+            chains.computeIfAbsent(find(parent, node), root -> new Chain()).nodes.add(node);
+        }
+        List<Chain> result = new ArrayList<>();
+        for (Chain chain : chains.values()) {
+            if (chain.nodes.size() > 1) {
+                for (int node : chain.nodes) {
+                    for (String variable : touched(node)) {
+                        if (written.contains(variable)) {
+                            chain.variables.add(variable);
+                        }
+                    }
+                }
+                result.add(chain);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> touched(int node) {
+        Set<String> touched = new LinkedHashSet<>(reads.get(node));
+        touched.addAll(writes.get(node));
+        return touched;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        // keep the smallest index as root so chains are found in collection order
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Class to represent a variable passed from a producer to a consumer
+     */
+    public static class Edge {
+        final int producer;
+        final int consumer;
+        final String variable;
+
+        Edge(int producer, int consumer, String variable) {
+            this.producer = producer;
+            this.consumer = consumer;
+            this.variable = variable;
+        }
+
+        public int getProducer() {
+            return producer;
+        }
+
+        public int getConsumer() {
+            return consumer;
+        }
+
+        public String getVariable() {
+            return variable;
+        }
+    }
+
+    /**
+     * Class to represent nodes that have to run in collection order
+     */
+    public static class Chain {
+        final List<Integer> nodes = new ArrayList<>();
+        final Set<String> variables = new LinkedHashSet<>();
+
+        /**
+         * @return the nodes of the chain in collection order
+         */
+        public List<Integer> getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return the variables linking the nodes of the chain
+         */
+        public Set<String> getVariables() {
+            return variables;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Backend rendering the parts of the generated tests that depend on the HTTP client library: the
+ * imports, the client of the class, the constant headers and auth, the request and the assertions.
+ * The generator renders everything else, such as the variables, the setup, the ordered groups and
+ * the split classes, from the parsed {@link TestCase} model, so every backend supports the options
+ * of the generator.
+ * <p>
+ * Emitters must be stateless, one emitter renders the classes of all conversions of a generator,
+ * possibly in parallel.
+ */
+public interface Emitter {
+
+    /**
+     * Parts of the conversion an emitter renders against
+     */
+    interface Context {
+        /**
+         * Method to resolve a <code>{{variable}}</code> template
+         * @param template
+         * @return the Java expression evaluating the template
+         */
+        String resolve(String template);
+
+        /**
+         * Method to get the expression opening the body of a request that is too large to be inlined
+         * @param test
+         * @return an expression of type InputStream, or null when the body is inlined
+         */
+        String bodyResource(TestCase test);
+
+        /**
+         * @param test
+         * @return the name of the constant holding the constant headers of the request, or null if there are none
+         */
+        String constantHeaders(TestCase test);
+
+        /**
+         * @param test
+         * @return the name of the constant holding the auth of the request, or null if it is added per request
+         */
+        String constantAuth(TestCase test);
+    }
+
+    /**
+     * @return the name selecting the emitter, e.g. with the --emitter option
+     */
+    String name();
+
+    /**
+     * @return the classes imported by the generated classes
+     */
+    List<String> imports();
+
+    /**
+     * @return the members imported statically by the generated classes
+     */
+    List<String> staticImports();
+
+    /**
+     * @return the type of the static field holding the client of a class
+     */
+    String clientType();
+
+    /**
+     * @return the name of the static field holding the client of a class
+     */
+    String clientField();
+
+    /**
+     * Method to create the client of a class
+     * @param baseUrl base URL of the collection
+     * @return the expression assigned to the client field in the setup
+     */
+    String client(String baseUrl);
+
+    /**
+     * @return the type of the <code>response</code> variable the assertions are rendered against
+     */
+    String responseType();
+
+    /**
+     * @return the type of the constants holding header maps
+     */
+    String headersType();
+
+    /**
+     * Method to create a constant header map
+     * @param headers Java expressions of the values by header name
+     * @return the expression, or null if none of the headers can be constant
+     */
+    String headers(SortedMap<String, String> headers);
+
+    /**
+     * @return the type of the constants holding auth
+     */
+    String authType();
+
+    /**
+     * Method to create a constant auth, only called for auth that does not depend on variables
+     * @param auth
+     * @param context
+     * @return the expression, or null if the auth is added per request
+     */
+    String auth(Auth auth, Context context);
+
+    /**
+     * Method to render the execution of a request into a method body, assigning the response to a
+     * <code>response</code> variable
+     * @param test
+     * @param context
+     * @param latency true to record the request with the <code>latencyRecorder</code> of the class
+     * @param out
+     */
+    void renderRequest(TestCase test, Context context, boolean latency, StringBuilder out);
+
+    /**
+     * Method to render the assertions of the test script into a method body
+     * @param test
+     * @param out
+     */
+    void renderAssertions(TestCase test, StringBuilder out);
+
+    /**
+     * Method to get a built-in emitter
+     * @param name restassured or httpclient
+     * @return
+     * @throws IllegalArgumentException if there is no emitter of the name
+     */
+    static Emitter named(String name) {
+        switch (name) {
+            case RestAssuredEmitter.NAME:
+                return new RestAssuredEmitter();
+            case HttpClientEmitter.NAME:
+                return new HttpClientEmitter();
+            default:
+                throw new IllegalArgumentException("Unknown emitter " + name + ", expected "
+                        + RestAssuredEmitter.NAME + " or " + HttpClientEmitter.NAME);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counts of one conversion, returned by {@link PostmanToRestAssuredGenerator#generate(String)}.
+ * Phase times are summed over all threads, so in parallel mode they can exceed the total time.
+ * Script lexing is part of the item parse phase and variable resolution is part of the emit phase.
+ * The metrics can be updated from several threads.
+ */
+public class GenerationMetrics {
+    /**
+     * Phase of a conversion
+     */
+    public enum Phase {
+        /** reading the collection JSON */
+        LOAD,
+        /** converting items into test cases, including script lexing */
+        PARSE,
+        /** lexing pre-request and test scripts */
+        LEX,
+        /** resolving variables of URLs, headers and bodies */
+        RESOLVE,
+        /** rendering and writing the generated source, including variable resolution */
+        EMIT,
+        /** compiling the generated source in-process */
+        COMPILE
+    }
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final String collection;
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder items = new LongAdder();
+    private final LongAdder assertions = new LongAdder();
+    private final LongAdder unresolvedVariables = new LongAdder();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAccumulator peakPendingItems = new LongAccumulator(Math::max, 0);
+    private volatile long totalNanos;
+
+    /**
+     * Constructor to initialize the path of the converted collection
+     * @param collection
+     */
+    public GenerationMetrics(String collection) {
+        this.collection = collection;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Method to add time spent in a phase
+     * @param phase
+     * @param nanos
+     */
+    void addTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    void addItem() {
+        items.increment();
+    }
+
+    void addAssertions(int count) {
+        assertions.add(count);
+    }
+
+    void addUnresolvedVariable() {
+        unresolvedVariables.increment();
+    }
+
+    void addFileWritten(long bytes) {
+        filesWritten.increment();
+        bytesWritten.add(bytes);
+    }
+
+    /**
+     * Method to record the number of items waiting in the pool during a parallel streaming parse
+     * @param pending
+     */
+    void addPendingItems(long pending) {
+        peakPendingItems.accumulate(pending);
+    }
+
+    void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * @param phase
+     * @return the time spent in a phase in nanoseconds
+     */
+    long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param phase
+     * @return the time spent in a phase in milliseconds
+     */
+    public double getMillis(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum() / 1e6;
+    }
+
+    /**
+     * @return the wall clock time of the conversion in milliseconds
+     */
+    public double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    public long getItems() {
+        return items.sum();
+    }
+
+    public long getAssertions() {
+        return assertions.sum();
+    }
+
+    public long getUnresolvedVariables() {
+        return unresolvedVariables.sum();
+    }
+
+    public long getFilesWritten() {
+        return filesWritten.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * @return the highest number of items waiting in the pool during a parallel streaming parse, 0 for other parses
+     */
+    public long getPeakPendingItems() {
+        return peakPendingItems.get();
+    }
+
+    /**
+     * Method to convert the metrics into a JSON object
+     * @return
+     */
+    public ObjectNode toJson() {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("collection", collection);
+        node.put("totalMs", getTotalMillis());
+        ObjectNode phases = node.putObject("phasesMs");
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.name().toLowerCase(), getMillis(phase));
+        }
+        node.put("items", getItems());
+        node.put("assertions", getAssertions());
+        node.put("unresolvedVariables", getUnresolvedVariables());
+        node.put("filesWritten", getFilesWritten());
+        node.put("bytesWritten", getBytesWritten());
+        node.put("peakPendingItems", getPeakPendingItems());
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+    /**
+     * Method to write the metrics as a JSON report
+     * @param file
+     * @throws IOException
+     */
+    public void writeJson(Path file) throws IOException {
+        createParent(file);
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toJson());
+    }
+
+    /**
+     * Method to write the metrics of several conversions as a JSON report with an array of objects
+     * @param metrics
+     * @param file
+     * @throws IOException
+     */
+    public static void writeJson(List<GenerationMetrics> metrics, Path file) throws IOException {
+        createParent(file);
+        ArrayNode array = mapper.createArrayNode();
+        for (GenerationMetrics metric : metrics) {
+            array.add(metric.toJson());
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), array);
+    }
+
+    private static void createParent(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Method to measure the time since a start time
+     * @param start value of {@link System#nanoTime()} at the start
+     * @return
+     */
+    static long since(long start) {
+        return System.nanoTime() - start;
+    }
+}
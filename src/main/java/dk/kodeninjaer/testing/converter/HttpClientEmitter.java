@@ -0,0 +1,226 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Emitter of tests on the JDK java.net.http client with Jackson assertions. The requests are sent
+ * by a {@link HttpTestClient}, sharing one HTTP/2 client and its connections across the suite, and
+ * asserted on the {@link JsonResponse}, so the tests need neither RestAssured nor Hamcrest. Constant
+ * headers and auth are declared as arrays of name and value pairs for <code>HttpRequest.Builder.headers</code>
+ */
+public class HttpClientEmitter implements Emitter {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientEmitter.class);
+    public static final String NAME = "httpclient";
+
+    /**
+     * Headers the JDK client sets itself and does not allow to be set by a request
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<String> imports() {
+        return List.of("dk.kodeninjaer.testing.converter.HttpTestClient", "dk.kodeninjaer.testing.converter.JsonResponse",
+                "java.net.http.HttpRequest");
+    }
+
+    @Override
+    public List<String> staticImports() {
+        return List.of();
+    }
+
+    @Override
+    public String clientType() {
+        return "HttpTestClient";
+    }
+
+    @Override
+    public String clientField() {
+        return "client";
+    }
+
+    @Override
+    public String client(String baseUrl) {
+        return "new HttpTestClient(" + Template.javaString(baseUrl) + ")";
+    }
+
+    @Override
+    public String responseType() {
+        return "JsonResponse";
+    }
+
+    @Override
+    public String headersType() {
+        return "String[]";
+    }
+
+    @Override
+    public String headers(SortedMap<String, String> headers) {
+        List<String> pairs = new ArrayList<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (allowed(header.getKey())) {
+                pairs.add(Template.javaString(header.getKey()) + ", " + header.getValue());
+            }
+        }
+        return pairs.isEmpty() ? null : "new String[] {" + String.join(",\n            ", pairs) + "}";
+    }
+
+    @Override
+    public String authType() {
+        return "String[]";
+    }
+
+    @Override
+    public String auth(Auth auth, Context context) {
+        if (query(auth) != null) {
+            // query parameters are added to the URL of each request
+            return null;
+        }
+        List<String> header = header(auth, context, true);
+        return header.isEmpty() ? null : "new String[] {" + String.join(", ", header) + "}";
+    }
+
+    @Override
+    public void renderRequest(TestCase test, Context context, boolean latency, StringBuilder out) {
+        String url = context.resolve(test.url);
+        String[] query = test.auth == null ? null : query(test.auth);
+        if (query != null) {
+            url = "HttpTestClient.withQuery(" + url + ", " + context.resolve(query[0]) + ", " + context.resolve(query[1]) + ")";
+        }
+        out.append("        HttpRequest.Builder request = client.request(" + url + ")");
+        String auth = context.constantAuth(test);
+        if (auth != null) {
+            out.append("\n            .headers(" + auth + ")");
+        } else if (test.auth != null && query == null) {
+            List<String> header = header(test.auth, context, false);
+            if (!header.isEmpty()) {
+                out.append("\n            .header(" + String.join(", ", header) + ")");
+            }
+        }
+        String headers = context.constantHeaders(test);
+        if (headers != null) {
+            out.append("\n            .headers(" + headers + ")");
+        }
+        for (Map.Entry<String, String> header : new TreeMap<>(test.headers).entrySet()) {
+            if (!Template.compile(header.getValue()).isConstant() && allowed(header.getKey())) {
+                out.append("\n            .header(" + Template.javaString(header.getKey()) + ", "
+                        + context.resolve(header.getValue()) + ")");
+            }
+        }
+        out.append(";\n\n");
+
+        String method = Template.javaString(test.method.toUpperCase(Locale.ROOT));
+        String bodyResource = context.bodyResource(test);
+        if (bodyResource != null) {
+            out.append("        JsonResponse response = client.send(request, " + method + ", () -> " + bodyResource + ");\n");
+        } else if (test.body != null) {
+            out.append("        JsonResponse response = client.send(request, " + method + ", " + context.resolve(test.body) + ");\n");
+        } else {
+            out.append("        JsonResponse response = client.send(request, " + method + ");\n");
+        }
+        if (latency) {
+            out.append("        latencyRecorder.record(" + Template.javaString(test.name) + ", response);\n");
+        }
+        out.append("\n");
+    }
+
+    @Override
+    public void renderAssertions(TestCase test, StringBuilder out) {
+        for (Assertion assertion : test.testScript) {
+            switch (assertion.matcher) {
+                case "equal":
+                    out.append("        response.assertBody(\"" + PostmanToRestAssuredGenerator.jsonPath(assertion) + "\", "
+                            + PostmanToRestAssuredGenerator.expectedValue(assertion) + ");\n");
+                    break;
+                case "contain":
+                    out.append("        response.assertBodyContains(\"" + PostmanToRestAssuredGenerator.jsonPath(assertion)
+                            + "\", " + assertion.expected.replace("\\\"", "\"") + ");\n");
+                    break;
+                case "have.status":
+                    out.append("        response.assertStatus(" + assertion.expected + ");\n");
+                    break;
+                case "contentType":
+                    out.append("        response.assertContentType(" + assertion.expected + ");\n");
+                    break;
+                case "responseTime.below":
+                case "responseTime.atMost":
+                    String bound = PostmanToRestAssuredGenerator.responseTimeBound(assertion.expected);
+                    if (bound != null) {
+                        out.append("        response." + ("responseTime.below".equals(assertion.matcher)
+                                ? "assertTimeBelow" : "assertTimeAtMost") + "(" + bound + ");\n");
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Method to get the name and value of the header of an auth. Basic credentials are encoded when
+     * the class is generated if they are constant, and when the request is sent otherwise
+     * @param auth
+     * @param context
+     * @param constant true if the auth does not depend on variables
+     * @return the expressions of the name and the value, empty if the auth adds no header
+     */
+    private static List<String> header(Auth auth, Context context, boolean constant) {
+        switch (auth.type) {
+            case "bearer":
+                return List.of("\"Authorization\"", context.resolve("Bearer " + auth.get("token", "")));
+            case "oauth2":
+                return List.of("\"Authorization\"",
+                        context.resolve(auth.get("headerPrefix", "Bearer") + " " + auth.get("accessToken", "")));
+            case "apikey":
+                return List.of(context.resolve(auth.get("key", "")), context.resolve(auth.get("value", "")));
+            case "basic":
+                String username = auth.get("username", "");
+                String password = auth.get("password", "");
+                if (constant) {
+                    String credentials = Base64.getEncoder().encodeToString(
+                            (username + ":" + password).getBytes(StandardCharsets.UTF_8));
+                    return List.of("\"Authorization\"", Template.javaString("Basic " + credentials));
+                }
+                return List.of("\"Authorization\"",
+                        "HttpTestClient.basic(" + context.resolve(username) + ", " + context.resolve(password) + ")");
+            default:
+                return List.of();
+        }
+    }
+
+    /**
+     * Method to get the query parameter of an auth added to the URL
+     * @param auth
+     * @return the name and value templates, or null if the auth is a header
+     */
+    private static String[] query(Auth auth) {
+        if ("oauth2".equals(auth.type) && "queryParams".equals(auth.get("addTokenTo", "header"))) {
+            return new String[] {"access_token", auth.get("accessToken", "")};
+        }
+        if ("apikey".equals(auth.type) && "query".equals(auth.get("in", "header"))) {
+            return new String[] {auth.get("key", ""), auth.get("value", "")};
+        }
+        return null;
+    }
+
+    private static boolean allowed(String header) {
+        if (RESTRICTED_HEADERS.contains(header.toLowerCase(Locale.ROOT))) {
+            logger.warn("Header {} is set by the JDK client and is left out", header);
+            return false;
+        }
+        return true;
+    }
+}
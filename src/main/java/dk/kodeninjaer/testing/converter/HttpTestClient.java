@@ -0,0 +1,128 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Client of the tests generated with the java.net.http backend. Every instance sends through one
+ * {@link HttpClient} of the JVM, which keeps its connections open, so the test classes of a suite
+ * share the connections to a host instead of opening their own. HTTPS requests use HTTP/2 when the
+ * server offers it, multiplexing the requests over one connection, while plain HTTP requests use
+ * pooled HTTP/1.1 connections. Bodies are received as strings and wrapped in a {@link JsonResponse}
+ * holding the assertions.
+ * <p>
+ * Only the JDK and Jackson are needed on the classpath of the generated tests.
+ */
+public class HttpTestClient {
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * Base URI of the collection, prepended to relative URLs
+     */
+    private final String baseUri;
+
+    /**
+     * Constructor to initialize the base URI
+     * @param baseUri the base URI, empty when the URLs of the requests are absolute
+     */
+    public HttpTestClient(String baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Method to start a request
+     * @param url absolute URL or URL relative to the base URI
+     * @return
+     */
+    public HttpRequest.Builder request(String url) {
+        URI uri = URI.create((url.contains("://") ? url : baseUri + url).replace(" ", "%20"));
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            // without TLS HTTP/2 would be an upgrade attempt on every request
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        return request;
+    }
+
+    /**
+     * Method to send a request without a body
+     * @param request
+     * @param method
+     * @return
+     */
+    public JsonResponse send(HttpRequest.Builder request, String method) {
+        return send(request.method(method, HttpRequest.BodyPublishers.noBody()));
+    }
+
+    /**
+     * Method to send a request with a body
+     * @param request
+     * @param method
+     * @param body
+     * @return
+     */
+    public JsonResponse send(HttpRequest.Builder request, String method, String body) {
+        return send(request.method(method, HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    /**
+     * Method to send a request with a streamed body, such as a {@link BodyResource}
+     * @param request
+     * @param method
+     * @param body opens the body, again if the request is retried
+     * @return
+     */
+    public JsonResponse send(HttpRequest.Builder request, String method, Supplier<InputStream> body) {
+        return send(request.method(method, HttpRequest.BodyPublishers.ofInputStream(body)));
+    }
+
+    private JsonResponse send(HttpRequest.Builder request) {
+        HttpRequest built = request.build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(built, HttpResponse.BodyHandlers.ofString());
+            return new JsonResponse(response, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not send " + built.method() + " " + built.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted sending " + built.method() + " " + built.uri(), e);
+        }
+    }
+
+    /**
+     * Method to add a query parameter to a URL
+     * @param url
+     * @param name
+     * @param value
+     * @return
+     */
+    public static String withQuery(String url, String name, String value) {
+        return url + (url.contains("?") ? "&" : "?") + URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method to get the value of a basic authorization header
+     * @param username
+     * @param password
+     * @return
+     */
+    public static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,303 @@
+package dk.kodeninjaer.testing.converter;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+
+/**
+ * Compiler of generated source in the running JVM with {@link JavaCompiler}. Sources are read from
+ * strings and class files are kept in memory by a {@link JavaFileManager} that never touches the
+ * disk, so a conversion can be checked or packaged without writing the source and running a
+ * separate compile step. Only a JDK provides the system compiler.
+ */
+public class InMemoryCompiler {
+    /**
+     * Classpath of the generated classes, RestAssured, JUnit, Hamcrest and slf4j must be on it
+     */
+    private final List<Path> classpath;
+
+    /**
+     * Constructor to initialize the classpath the sources are compiled against
+     * @param classpath
+     */
+    public InMemoryCompiler(List<Path> classpath) {
+        this.classpath = classpath;
+    }
+
+    /**
+     * @return the classpath of the running JVM
+     */
+    public static List<Path> currentClasspath() {
+        return List.of(System.getProperty("java.class.path").split(File.pathSeparator)).stream()
+                .filter(entry -> !entry.isEmpty())
+                .map(Path::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Method to compile sources
+     * @param sources source per fully qualified class name
+     * @return the compiled classes and the diagnostics of the compiler
+     */
+    public Result compile(Map<String, String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available, in-process compilation needs a JDK");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classes = new LinkedHashMap<>();
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            units.add(new SourceFile(source.getKey(), source.getValue()));
+        }
+        List<String> options = new ArrayList<>(List.of("-proc:none", "-encoding", "UTF-8"));
+        if (!classpath.isEmpty()) {
+            options.add("-classpath");
+            options.add(classpath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+        }
+
+        boolean success;
+        try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT,
+                StandardCharsets.UTF_8);
+             JavaFileManager fileManager = new MemoryFileManager(standard, classes)) {
+            success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not close the file manager", e);
+        }
+
+        Result result = new Result(success);
+        for (Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()) {
+            result.classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String className = diagnostic.getSource() instanceof SourceFile
+                    ? ((SourceFile) diagnostic.getSource()).className : null;
+            result.problems.add(new Problem(diagnostic.getKind(), className, diagnostic.getLineNumber(),
+                    diagnostic.getMessage(Locale.ROOT)));
+        }
+        return result;
+    }
+
+    /**
+     * Source file read from a string
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+        final String className;
+        final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.className = className;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * Class file written to memory
+     */
+    private static class ClassFile extends SimpleJavaFileObject {
+        final ByteArrayOutputStream bytes;
+
+        ClassFile(String className, ByteArrayOutputStream bytes) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * File manager reading the classpath through the standard file manager and keeping class output in memory
+     */
+    private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        MemoryFileManager(StandardJavaFileManager fileManager, Map<String, ByteArrayOutputStream> classes) {
+            super(fileManager);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            classes.put(className, bytes);
+            return new ClassFile(className, bytes);
+        }
+    }
+
+    /**
+     * Class to represent a diagnostic of the compiler
+     */
+    public static class Problem {
+        final Diagnostic.Kind kind;
+        final String className;
+        final long line;
+        final String message;
+        /**
+         * Name of the Postman item the diagnostic was reported in, if it is known
+         */
+        String item;
+
+        Problem(Diagnostic.Kind kind, String className, long line, String message) {
+            this.kind = kind;
+            this.className = className;
+            this.line = line;
+            this.message = message;
+        }
+
+        public boolean isError() {
+            return kind == Diagnostic.Kind.ERROR;
+        }
+
+        public Diagnostic.Kind getKind() {
+            return kind;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        @Override
+        public String toString() {
+            String location = className == null ? "" : " (" + className + ":" + line + ")";
+            return kind + (item == null ? "" : " in item \"" + item + "\"") + location + ": " + message;
+        }
+    }
+
+    /**
+     * Class to hold the outcome of a compilation
+     */
+    public static class Result {
+        private final boolean success;
+        /**
+         * Class file bytes per binary class name, including nested classes
+         */
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
+        /**
+         * Resources to package with the classes per path in the jar
+         */
+        final Map<String, byte[]> resources = new LinkedHashMap<>();
+        final List<Problem> problems = new ArrayList<>();
+
+        Result(boolean success) {
+            this.success = success;
+        }
+
+        /**
+         * @return true when the compiler reported no errors
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public Map<String, byte[]> getClasses() {
+            return Collections.unmodifiableMap(classes);
+        }
+
+        public List<Problem> getProblems() {
+            return Collections.unmodifiableList(problems);
+        }
+
+        public Map<String, byte[]> getResources() {
+            return Collections.unmodifiableMap(resources);
+        }
+
+        /**
+         * Method to create a class loader defining the compiled classes and serving the resources
+         * @param parent loader of the classpath the classes were compiled against
+         * @return
+         */
+        public ClassLoader classLoader(ClassLoader parent) {
+            return new ClassLoader(parent) {
+                @Override
+                protected Class<?> findClass(String name) throws ClassNotFoundException {
+                    byte[] bytes = classes.get(name);
+                    if (bytes == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+
+                @Override
+                public InputStream getResourceAsStream(String name) {
+                    byte[] bytes = resources.get(name);
+                    return bytes == null ? super.getResourceAsStream(name) : new ByteArrayInputStream(bytes);
+                }
+            };
+        }
+
+        /**
+         * Method to write the classes and resources to a jar
+         * @param jar
+         * @throws IOException
+         */
+        public void writeJar(Path jar) throws IOException {
+            if (jar.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(jar.toAbsolutePath().getParent());
+            }
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                    out.write(entry.getValue());
+                    out.closeEntry();
+                }
+                for (Map.Entry<String, byte[]> entry : resources.entrySet()) {
+                    out.putNextEntry(new JarEntry(entry.getKey()));
+                    out.write(entry.getValue());
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+}
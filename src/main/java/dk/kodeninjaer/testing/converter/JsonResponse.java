@@ -0,0 +1,224 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Response of a request sent by {@link HttpTestClient}, with the assertions of the generated
+ * tests. The body is parsed with Jackson the first time a JSON path is asserted and the tree is
+ * kept for the other assertions of the test. A failed assertion throws an {@link AssertionError}.
+ * <p>
+ * JSON paths are the RestAssured paths of the RestAssured backend, e.g. <code>data.items[0].id</code>,
+ * and compare like its <code>equalTo</code> and <code>containsString</code> matchers, except that
+ * numbers are compared by value whatever their type.
+ */
+public class JsonResponse {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final HttpResponse<String> response;
+    private final long nanos;
+    /**
+     * Parsed body, null until a path is asserted
+     */
+    private JsonNode json;
+
+    /**
+     * Constructor to initialize the response and the time it took
+     * @param response
+     * @param nanos nanoseconds from sending the request to receiving the body
+     */
+    JsonResponse(HttpResponse<String> response, long nanos) {
+        this.response = response;
+        this.nanos = nanos;
+    }
+
+    public HttpResponse<String> getResponse() {
+        return response;
+    }
+
+    public int getStatusCode() {
+        return response.statusCode();
+    }
+
+    public String getBody() {
+        return response.body();
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return the size of the body in bytes
+     */
+    public long getBytes() {
+        return response.body() == null ? 0 : response.body().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Method to get the parsed body
+     * @return the tree, a missing node if the body is empty
+     * @throws AssertionError if the body is not JSON
+     */
+    public JsonNode json() {
+        if (json == null) {
+            String body = response.body();
+            try {
+                json = body == null || body.isBlank() ? MissingNode.getInstance() : mapper.readTree(body);
+            } catch (JsonProcessingException e) {
+                throw new AssertionError("Response body of " + response.uri() + " is not JSON: " + e.getOriginalMessage(), e);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Method to get the value at a path of the body
+     * @param path
+     * @return the value, a missing node if there is none
+     */
+    public JsonNode path(String path) {
+        return json().at(pointer(path));
+    }
+
+    /**
+     * Method to assert the status code
+     * @param expected
+     */
+    public void assertStatus(int expected) {
+        if (response.statusCode() != expected) {
+            throw new AssertionError("Expected status code <" + expected + "> but was <" + response.statusCode()
+                    + "> for " + response.request().method() + " " + response.uri());
+        }
+    }
+
+    /**
+     * Method to assert the value at a path of the body
+     * @param path
+     * @param expected a string, number, boolean or null, other values are compared as their JSON tree
+     */
+    public void assertBody(String path, Object expected) {
+        JsonNode actual = path(path);
+        if (!matches(actual, expected)) {
+            throw new AssertionError("JSON path " + path + " doesn't match.\nExpected: <" + expected + ">\n  Actual: <"
+                    + (actual.isMissingNode() ? null : actual) + ">");
+        }
+    }
+
+    /**
+     * Method to assert that the string at a path of the body contains a text
+     * @param path
+     * @param expected
+     */
+    public void assertBodyContains(String path, Object expected) {
+        JsonNode actual = path(path);
+        if (!actual.isTextual() || !actual.textValue().contains(String.valueOf(expected))) {
+            throw new AssertionError("JSON path " + path + " doesn't match.\nExpected: a string containing \"" + expected
+                    + "\"\n  Actual: <" + (actual.isMissingNode() ? null : actual) + ">");
+        }
+    }
+
+    /**
+     * Method to assert the content type, which matches when it starts with the expected type
+     * ignoring case, so a charset parameter may follow
+     * @param expected
+     */
+    public void assertContentType(String expected) {
+        String actual = response.headers().firstValue("Content-Type").orElse("");
+        if (!actual.regionMatches(true, 0, expected, 0, expected.length())) {
+            throw new AssertionError("Expected content-type \"" + expected + "\" but was \"" + actual + "\"");
+        }
+    }
+
+    /**
+     * Method to assert that the response took less than a number of milliseconds
+     * @param millis
+     */
+    public void assertTimeBelow(long millis) {
+        if (nanos >= millis * 1_000_000L) {
+            throw new AssertionError("Expected response time below " + millis + " ms but was " + nanos / 1_000_000L + " ms");
+        }
+    }
+
+    /**
+     * Method to assert that the response took at most a number of milliseconds
+     * @param millis
+     */
+    public void assertTimeAtMost(long millis) {
+        if (nanos / 1_000_000L > millis) {
+            throw new AssertionError("Expected response time at most " + millis + " ms but was " + nanos / 1_000_000L + " ms");
+        }
+    }
+
+    /**
+     * Method to compare a value of the body to the expected value of an assertion
+     * @param actual
+     * @param expected
+     * @return
+     */
+    static boolean matches(JsonNode actual, Object expected) {
+        if (expected == null) {
+            return actual.isMissingNode() || actual.isNull();
+        }
+        if (expected instanceof Number && actual.isNumber()) {
+            try {
+                return actual.decimalValue().compareTo(new BigDecimal(expected.toString())) == 0;
+            } catch (NumberFormatException e) {
+                // NaN or infinity
+                return false;
+            }
+        }
+        if (expected instanceof String) {
+            return actual.isTextual() && actual.textValue().equals(expected);
+        }
+        if (expected instanceof Boolean) {
+            return actual.isBoolean() && actual.booleanValue() == (Boolean) expected;
+        }
+        return actual.equals(mapper.valueToTree(expected));
+    }
+
+    /**
+     * Method to convert a RestAssured path into a JSON pointer, e.g. <code>data.items[0].id</code>
+     * into <code>/data/items/0/id</code>. Quoted names in brackets may contain dots
+     * @param path
+     * @return
+     */
+    static JsonPointer pointer(String path) {
+        StringBuilder pointer = new StringBuilder();
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            String segment;
+            if (c == '.') {
+                i++;
+                continue;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed [ in JSON path " + path);
+                }
+                segment = path.substring(i + 1, end).trim();
+                if (segment.length() >= 2 && (segment.charAt(0) == '\'' || segment.charAt(0) == '"')) {
+                    segment = segment.substring(1, segment.length() - 1);
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                segment = path.substring(i, end);
+                i = end;
+            }
+            pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+        }
+        return JsonPointer.compile(pointer.toString());
+    }
+}
@@ -0,0 +1,93 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in microseconds. Values are counted in buckets of 64 linear
+ * sub-buckets per power of two, so a percentile is reported within 1.6% of the recorded value
+ * while the histogram has a fixed size regardless of the number of recorded values. The maximum
+ * is tracked exactly. Values can be recorded from many threads at the same time.
+ */
+public class LatencyHistogram {
+    /**
+     * Number of bits of the sub-bucket index, values below 2^SUB_BUCKET_BITS are counted exactly
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    /**
+     * Number of buckets, enough for latencies up to 2^(BUCKETS + SUB_BUCKET_BITS - 1) microseconds
+     */
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray((BUCKETS + 1) * SUB_BUCKET_HALF);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Method to record a latency
+     * @param micros latency in microseconds, negative values are recorded as 0
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(Math.min(index(value), counts.length() - 1));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the largest recorded value in microseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Method to get a percentile of the recorded values
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the percentile in microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Method to get the bucket index of a value
+     * @param value
+     * @return
+     */
+    static int index(long value) {
+        int bucket = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        return (int) (bucket * SUB_BUCKET_HALF + (value >> bucket));
+    }
+
+    /**
+     * Method to get the largest value counted in a bucket index
+     * @param index
+     * @return
+     */
+    static long highestEquivalentValue(int index) {
+        int bucket = Math.max(0, index / SUB_BUCKET_HALF - 1);
+        long subBucket = index - (long) bucket * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
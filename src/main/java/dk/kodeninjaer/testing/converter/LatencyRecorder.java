@@ -0,0 +1,183 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Recorder of the latency, status and payload size of the requests of a generated test class.
+ * Every request is sent through the RestAssured filter of the recorder, or recorded with its
+ * {@link JsonResponse} by the java.net.http backend, and the report is written when the test class
+ * finishes. Requests can be recorded from several threads.
+ * <p>
+ * The report is written to <code>&lt;directory&gt;/&lt;class&gt;.json</code>, where the directory
+ * is taken from the system property {@value #REPORT_DIRECTORY_PROPERTY} and defaults to
+ * {@value #REPORT_DIRECTORY}. Setting the system property {@value #REPORT_FORMAT_PROPERTY} to
+ * <code>csv</code> writes a CSV file instead.
+ * <p>
+ * RestAssured is only needed on the classpath of the generated tests using the filter.
+ */
+public class LatencyRecorder {
+    public static final String REPORT_DIRECTORY_PROPERTY = "latency.report.dir";
+    public static final String REPORT_FORMAT_PROPERTY = "latency.report.format";
+    public static final String REPORT_DIRECTORY = "build/latency-reports";
+
+    /**
+     * Name of the test class, used as file name of the report
+     */
+    private final String name;
+    /**
+     * Recorded requests in order of completion
+     */
+    private final ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor to initialize the name of the test class
+     * @param name
+     */
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Method to create a filter recording the requests of a test
+     * @param request name of the request in the collection
+     * @return
+     */
+    public Filter filter(String request) {
+        return (requestSpec, responseSpec, context) -> {
+            long start = System.nanoTime();
+            Response response = context.next(requestSpec, responseSpec);
+            long nanos = System.nanoTime() - start;
+            byte[] body = response.asByteArray();
+            record(request, requestSpec.getMethod(), requestSpec.getURI(), response.getStatusCode(),
+                    nanos, body == null ? 0 : body.length);
+            return response;
+        };
+    }
+
+    /**
+     * Method to record a request sent by the {@link HttpTestClient} of a test
+     * @param request name of the request in the collection
+     * @param response
+     */
+    public void record(String request, JsonResponse response) {
+        record(request, response.getResponse().request().method(), response.getResponse().uri().toString(),
+                response.getStatusCode(), response.getNanos(), response.getBytes());
+    }
+
+    /**
+     * Method to record a request
+     * @param request
+     * @param method
+     * @param uri
+     * @param status
+     * @param nanos
+     * @param bytes
+     */
+    void record(String request, String method, String uri, int status, long nanos, long bytes) {
+        samples.add(new Sample(request, method, uri, status, nanos, bytes));
+    }
+
+    /**
+     * @return the recorded requests
+     */
+    public List<Sample> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    /**
+     * Method to write the report to the configured directory
+     * @return the report file
+     * @throws IOException
+     */
+    public Path write() throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(System.getProperty(REPORT_FORMAT_PROPERTY));
+        Path file = Path.of(System.getProperty(REPORT_DIRECTORY_PROPERTY, REPORT_DIRECTORY), name + (csv ? ".csv" : ".json"));
+        write(file);
+        return file;
+    }
+
+    /**
+     * Method to write the report as CSV if the file name ends with .csv and as JSON otherwise
+     * @param file
+     * @throws IOException
+     */
+    public void write(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        if (file.getFileName().toString().endsWith(".csv")) {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("request,method,uri,status,latency_ms,bytes\n");
+                for (Sample sample : samples) {
+                    writer.write(String.format(Locale.ROOT, "\"%s\",%s,\"%s\",%d,%.3f,%d%n",
+                            sample.request.replace("\"", "\"\""), sample.method, sample.uri.replace("\"", "\"\""),
+                            sample.status, sample.getLatencyMillis(), sample.bytes));
+                }
+            }
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode array = mapper.createArrayNode();
+        for (Sample sample : samples) {
+            ObjectNode node = array.addObject();
+            node.put("request", sample.request);
+            node.put("method", sample.method);
+            node.put("uri", sample.uri);
+            node.put("status", sample.status);
+            node.put("latency_ms", sample.getLatencyMillis());
+            node.put("bytes", sample.bytes);
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), array);
+    }
+
+    /**
+     * Class to represent a recorded request
+     */
+    public static class Sample {
+        final String request;
+        final String method;
+        final String uri;
+        final int status;
+        final long nanos;
+        final long bytes;
+
+        Sample(String request, String method, String uri, int status, long nanos, long bytes) {
+            this.request = request;
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public String getRequest() {
+            return request;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public double getLatencyMillis() {
+            return nanos / 1e6;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
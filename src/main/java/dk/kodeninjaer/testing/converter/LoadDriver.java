@@ -0,0 +1,327 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runtime of the load drivers generated from Postman collections. The requests of a collection
+ * are executed round robin by a number of virtual threads, either as fast as possible or paced
+ * to a target rate, for a fixed duration. The latency of every execution is recorded in a
+ * {@link LatencyHistogram} per request and summarized as p50, p95, p99 and max.
+ * <p>
+ * When a target rate is set the latency is measured from the time the execution was scheduled,
+ * not from the time it started, so a slow server is not hidden by the driver falling behind.
+ */
+public class LoadDriver {
+    /**
+     * A request of the load scenario, any exception or assertion error counts as a failed execution
+     */
+    @FunctionalInterface
+    public interface Request {
+        void execute() throws Exception;
+    }
+
+    /**
+     * Name of the scenario, used in the summary
+     */
+    private final String name;
+    /**
+     * Registered requests in collection order
+     */
+    private final List<Entry> requests = new ArrayList<>();
+    /**
+     * Number of virtual threads executing requests
+     */
+    private int concurrency = 16;
+    /**
+     * Target number of executions per second over all threads, 0 to run as fast as possible
+     */
+    private double rate = 0;
+    /**
+     * Time the scenario runs
+     */
+    private Duration duration = Duration.ofSeconds(10);
+    /**
+     * File the summary is written to, as CSV if the name ends with .csv and as JSON otherwise, or null
+     */
+    private Path report;
+
+    /**
+     * Constructor to initialize the name of the scenario
+     * @param name
+     */
+    public LoadDriver(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Method to apply command line options to the driver:
+     * <code>--concurrency N</code>, <code>--rate N</code> executions per second,
+     * <code>--duration N</code> in seconds or as an ISO-8601 duration, and <code>--report file</code>
+     * @param args
+     * @return the driver
+     */
+    public LoadDriver configure(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of option " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--concurrency":
+                    setConcurrency(Integer.parseInt(value));
+                    break;
+                case "--rate":
+                    setRate(Double.parseDouble(value));
+                    break;
+                case "--duration":
+                    setDuration(value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "--report":
+                    setReport(Path.of(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Method to add a request to the scenario
+     * @param requestName
+     * @param request
+     */
+    public void addRequest(String requestName, Request request) {
+        requests.add(new Entry(requestName, request));
+    }
+
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        this.concurrency = concurrency;
+    }
+
+    public void setRate(double rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        }
+        this.rate = rate;
+    }
+
+    public void setDuration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        this.duration = duration;
+    }
+
+    public void setReport(Path report) {
+        this.report = report;
+    }
+
+    /**
+     * Method to run the scenario, print the summary and write the report if one is set
+     * @param out
+     * @return the results per request in collection order
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public List<Result> run(PrintStream out) throws IOException, InterruptedException {
+        if (requests.isEmpty()) {
+            throw new IllegalStateException("No requests in load scenario " + name);
+        }
+        AtomicLong next = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name(name + "-load-", i).start(() -> work(next, start, deadline)));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        List<Result> results = new ArrayList<>();
+        for (Entry entry : requests) {
+            results.add(new Result(entry, elapsedSeconds));
+        }
+        printSummary(results, out);
+        if (report != null) {
+            writeReport(results, report);
+        }
+        return results;
+    }
+
+    /**
+     * Loop of a worker thread, taking the next execution until the deadline
+     * @param next counter of scheduled executions shared by all workers
+     * @param start
+     * @param deadline
+     */
+    private void work(AtomicLong next, long start, long deadline) {
+        while (true) {
+            long n = next.getAndIncrement();
+            long scheduled = rate > 0 ? start + (long) (n * 1e9 / rate) : System.nanoTime();
+            if (scheduled >= deadline) {
+                return;
+            }
+            long now = System.nanoTime();
+            while (now < scheduled) {
+                LockSupport.parkNanos(scheduled - now);
+                now = System.nanoTime();
+            }
+            Entry entry = requests.get((int) (n % requests.size()));
+            try {
+                entry.request.execute();
+            } catch (Exception | AssertionError e) {
+                entry.errors.incrementAndGet();
+            }
+            entry.latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+        }
+    }
+
+    /**
+     * Method to print a table of the results
+     * @param results
+     * @param out
+     */
+    private void printSummary(List<Result> results, PrintStream out) {
+        out.println("Load scenario " + name + ": " + concurrency + " virtual threads, "
+                + (rate > 0 ? rate + " requests/s" : "unpaced") + ", " + duration.toSeconds() + " s");
+        out.println(String.format(Locale.ROOT, "%-40s %10s %8s %10s %10s %10s %10s %10s",
+                "request", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Result result : results) {
+            out.println(String.format(Locale.ROOT, "%-40s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f",
+                    result.name, result.count, result.errors, result.throughput,
+                    result.p50 / 1000.0, result.p95 / 1000.0, result.p99 / 1000.0, result.max / 1000.0));
+        }
+    }
+
+    /**
+     * Method to write the results as CSV if the file name ends with .csv and as JSON otherwise
+     * @param results
+     * @param file
+     * @throws IOException
+     */
+    static void writeReport(List<Result> results, Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        if (file.getFileName().toString().endsWith(".csv")) {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("request,count,errors,throughput,p50_ms,p95_ms,p99_ms,max_ms\n");
+                for (Result result : results) {
+                    writer.write(String.format(Locale.ROOT, "\"%s\",%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                            result.name.replace("\"", "\"\""), result.count, result.errors, result.throughput,
+                            result.p50 / 1000.0, result.p95 / 1000.0, result.p99 / 1000.0, result.max / 1000.0));
+                }
+            }
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode array = mapper.createArrayNode();
+        for (Result result : results) {
+            ObjectNode node = array.addObject();
+            node.put("request", result.name);
+            node.put("count", result.count);
+            node.put("errors", result.errors);
+            node.put("throughput", result.throughput);
+            node.put("p50_ms", result.p50 / 1000.0);
+            node.put("p95_ms", result.p95 / 1000.0);
+            node.put("p99_ms", result.p99 / 1000.0);
+            node.put("max_ms", result.max / 1000.0);
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), array);
+    }
+
+    /**
+     * Class to hold a registered request and its measurements
+     */
+    private static class Entry {
+        final String name;
+        final Request request;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+
+        Entry(String name, Request request) {
+            this.name = name;
+            this.request = request;
+        }
+    }
+
+    /**
+     * Class to represent the summary of one request, latencies are in microseconds
+     */
+    public static class Result {
+        final String name;
+        final long count;
+        final long errors;
+        final double throughput;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        private Result(Entry entry, double elapsedSeconds) {
+            this.name = entry.name;
+            this.count = entry.latencies.getCount();
+            this.errors = entry.errors.get();
+            this.throughput = elapsedSeconds > 0 ? count / elapsedSeconds : 0;
+            this.p50 = entry.latencies.getPercentile(50);
+            this.p95 = entry.latencies.getPercentile(95);
+            this.p99 = entry.latencies.getPercentile(99);
+            this.max = entry.latencies.getMax();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -1,25 +1,364 @@
 package dk.kodeninjaer.testing.converter;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 3) {
-            System.out.println("Usage: java -jar postman-to-restassured.jar <postman-collection.json> <output-package> <output-class-name>");
-            System.exit(1);
+        List<String> positional = new ArrayList<>();
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--batch":
+                    options.batch = true;
+                    break;
+                case "--threads":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.threads = (int) number("--threads", args[i], Integer.MAX_VALUE);
+                    break;
+                case "--streaming":
+                    options.streaming = true;
+                    break;
+                case "--parallel":
+                    options.parallel = true;
+                    break;
+                case "--incremental":
+                    options.incremental = true;
+                    break;
+                case "--load-driver":
+                    options.loadDriver = true;
+                    break;
+                case "--concurrent":
+                    options.concurrent = true;
+                    break;
+                case "--record-latency":
+                    options.recordLatency = true;
+                    break;
+                case "--model-cache":
+                    options.modelCache = true;
+                    break;
+                case "--compile":
+                    options.compile = true;
+                    break;
+                case "--classpath":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.classpath = args[i];
+                    break;
+                case "--jar":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.jar = Path.of(args[i]);
+                    options.compile = true;
+                    break;
+                case "--body-limit":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.bodyResourceThreshold = (int) number("--body-limit", args[i], Integer.MAX_VALUE);
+                    break;
+                case "--dedup":
+                    options.deduplicate = true;
+                    break;
+                case "--split-folders":
+                    options.splitByFolder = true;
+                    break;
+                case "--split":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.splitSize = (int) number("--split", args[i], Integer.MAX_VALUE);
+                    break;
+                case "--shards":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.shards = (int) number("--shards", args[i], Integer.MAX_VALUE);
+                    break;
+                case "--timings":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.timingFile = args[i];
+                    break;
+                case "--emitter":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    try {
+                        options.emitter = Emitter.named(args[i]);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                        usage();
+                    }
+                    break;
+                case "--data":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.dataFile = args[i];
+                    break;
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "--debounce":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.debounceMillis = number("--debounce", args[i], Long.MAX_VALUE);
+                    break;
+                case "--metrics":
+                    if (++i >= args.length) {
+                        usage();
+                    }
+                    options.metrics = Path.of(args[i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        System.out.println("Unknown option " + args[i]);
+                        usage();
+                    }
+                    positional.add(args[i]);
+            }
+        }
+
+        if (options.batch) {
+            if (positional.size() != 2) {
+                usage();
+            }
+            batch(positional.get(0), positional.get(1), options);
+            return;
+        }
+        if (options.watch) {
+            if (positional.size() < 2) {
+                usage();
+            }
+            if (options.metrics != null) {
+                // a watch has no end at which the metrics of its conversions could be written
+                System.err.println("--metrics is not supported with --watch");
+                usage();
+            }
+            watch(positional.subList(0, positional.size() - 1), positional.get(positional.size() - 1), options);
+            return;
+        }
+        if (positional.size() != 3) {
+            usage();
         }
 
-        String postmanCollectionPath = args[0];
-        String outputPackage = args[1];
-        String outputClassName = args[2];
+        String postmanCollectionPath = positional.get(0);
+        String outputPackage = positional.get(1);
+        String outputClassName = positional.get(2);
+
+        if (options.compile) {
+            compile(postmanCollectionPath, outputPackage, outputClassName, options);
+            return;
+        }
 
         try {
             PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(outputPackage, outputClassName);
-            generator.generate(postmanCollectionPath);
-            System.out.println("Successfully generated RestAssured test class for " + postmanCollectionPath);
+            options.configure(generator);
+            GenerationMetrics metrics = generator.generate(postmanCollectionPath);
+            System.out.println("Successfully generated " + options.emitter.name() + " test class for " + postmanCollectionPath);
+            if (options.metrics != null) {
+                metrics.writeJson(options.metrics);
+            }
         } catch (IOException e) {
             System.err.println("Error generating test class: " + e.getMessage());
             e.printStackTrace();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Compile mode: generate and compile the test class in-process, optionally writing a jar
+     * @param postmanCollectionPath
+     * @param outputPackage
+     * @param outputClassName
+     * @param options
+     */
+    private static void compile(String postmanCollectionPath, String outputPackage, String outputClassName,
+            Options options) {
+        try {
+            PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(outputPackage, outputClassName);
+            options.configure(generator);
+            List<Path> classpath = options.classpath == null ? InMemoryCompiler.currentClasspath()
+                    : Arrays.stream(options.classpath.split(File.pathSeparator)).map(Path::of).collect(Collectors.toList());
+            InMemoryCompiler.Result result = generator.compile(postmanCollectionPath, classpath);
+            for (InMemoryCompiler.Problem problem : result.getProblems()) {
+                System.out.println(problem);
+            }
+            if (!result.isSuccess()) {
+                System.err.println("Compilation of the test class for " + postmanCollectionPath + " failed");
+                System.exit(1);
+            }
+            if (options.jar != null) {
+                result.writeJar(options.jar);
+                System.out.println("Compiled " + postmanCollectionPath + " to " + options.jar);
+            } else {
+                System.out.println("Successfully compiled " + options.emitter.name() + " test class for " + postmanCollectionPath);
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error compiling test class: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Batch mode: convert every collection of a directory, glob or manifest
+     * @param source
+     * @param outputPackage
+     * @param options
+     */
+    private static void batch(String source, String outputPackage, Options options) {
+        try {
+            BatchConverter converter = options.threads > 0
+                    ? new BatchConverter(outputPackage, options.threads)
+                    : new BatchConverter(outputPackage);
+            converter.setConfigurator(options::configure);
+            List<BatchConverter.Job> jobs = converter.resolve(source);
+            BatchConverter.Summary summary = converter.convert(jobs, System.out);
+            if (options.metrics != null) {
+                GenerationMetrics.writeJson(summary.getMetrics(), options.metrics);
+            }
+            if (summary.getFailed() > 0) {
+                System.exit(1);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error in batch conversion: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Watch mode: convert every collection of the directories and regenerate collections when they change
+     * @param directories
+     * @param outputPackage
+     * @param options
+     */
+    private static void watch(List<String> directories, String outputPackage, Options options) {
+        try (CollectionWatcher watcher = new CollectionWatcher(outputPackage,
+                directories.stream().map(Path::of).collect(Collectors.toList()))) {
+            watcher.setConfigurator(options::configure);
+            if (options.debounceMillis >= 0) {
+                watcher.setDebounceMillis(options.debounceMillis);
+            }
+            watcher.run(System.out);
+        } catch (IOException e) {
+            System.err.println("Error watching collections: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to parse the value of a numeric option, printing the usage when it is not a number
+     * from 0 to the maximum
+     * @param option
+     * @param value
+     * @param max
+     * @return
+     */
+    private static long number(String option, String value, long max) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= 0 && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Invalid value " + value + " of " + option + ", expected a number from 0 to " + max);
+        usage();
+        return 0;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java -jar postman-to-restassured.jar [options] <postman-collection.json> <output-package> <output-class-name>");
+        System.out.println("       java -jar postman-to-restassured.jar --batch [options] <directory|glob|manifest> <output-package>");
+        System.out.println("       java -jar postman-to-restassured.jar --watch [options] <directory>... <output-package>");
+        System.out.println("Converts Postman collections into JUnit test classes on the client chosen with --emitter");
+        System.out.println("Options:");
+        System.out.println("  --threads N       number of collections converted at the same time in batch mode");
+        System.out.println("  --streaming       read collections with the streaming parser");
+        System.out.println("  --parallel        parse and render test methods on all cores");
+        System.out.println("  --incremental     reuse rendered methods of unchanged items and only rewrite changed files");
+        System.out.println("  --load-driver     also generate a load driver class running the requests of the collection");
+        System.out.println("  --concurrent      generate tests that are safe to run with JUnit parallel execution");
+        System.out.println("  --record-latency  record latency, status and size of every request to a report");
+        System.out.println("  --body-limit N    write request bodies larger than N bytes to resources, 16384 by default");
+        System.out.println("  --dedup           declare assertion sequences shared by requests once");
+        System.out.println("  --data FILE       run every request once per row of a CSV or JSON data file");
+        System.out.println("  --split-folders   generate one test class per top-level folder with a shared base class");
+        System.out.println("  --split N         generate test classes of at most N requests with a shared base class");
+        System.out.println("  --shards N        generate N test classes tagged shard1..N of about the same running time");
+        System.out.println("  --timings PATH    JUnit XML report or directory of reports giving the request times for --shards");
+        System.out.println("  --emitter NAME    client of the generated tests, restassured by default or httpclient for java.net.http");
+        System.out.println("  --compile         compile the test class in-process instead of writing its source");
+        System.out.println("  --classpath CP    classpath to compile against, the classpath of the converter by default");
+        System.out.println("  --jar FILE        compile the test class in-process into a jar");
+        System.out.println("  --model-cache     cache the parsed collection next to it for conversions with other options");
+        System.out.println("  --debounce MS     quiet time after a change before a watched collection is converted");
+        System.out.println("  --metrics FILE    write phase timings and counts of the conversion as JSON");
+        System.exit(1);
+    }
+
+    /**
+     * Class to hold the command line options
+     */
+    private static class Options {
+        boolean batch;
+        int threads;
+        boolean streaming;
+        boolean parallel;
+        boolean incremental;
+        boolean loadDriver;
+        boolean concurrent;
+        boolean recordLatency;
+        boolean modelCache;
+        int bodyResourceThreshold = PostmanToRestAssuredGenerator.DEFAULT_BODY_RESOURCE_THRESHOLD;
+        String dataFile;
+        boolean deduplicate;
+        boolean splitByFolder;
+        int splitSize;
+        int shards;
+        String timingFile;
+        Emitter emitter = new RestAssuredEmitter();
+        boolean compile;
+        String classpath;
+        Path jar;
+        boolean watch;
+        long debounceMillis = -1;
+        Path metrics;
+
+        /**
+         * Method to apply the options to a generator
+         * @param generator
+         */
+        void configure(PostmanToRestAssuredGenerator generator) {
+            generator.setStreamingParse(streaming);
+            generator.setParallel(parallel);
+            generator.setIncremental(incremental);
+            generator.setLoadDriver(loadDriver);
+            generator.setConcurrent(concurrent);
+            generator.setRecordLatency(recordLatency);
+            generator.setModelCache(modelCache);
+            generator.setBodyResourceThreshold(bodyResourceThreshold);
+            generator.setDataFile(dataFile);
+            generator.setDeduplicate(deduplicate);
+            generator.setSplitByFolder(splitByFolder);
+            generator.setSplitSize(splitSize);
+            generator.setShards(shards);
+            generator.setTimingFile(timingFile);
+            generator.setEmitter(emitter);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary serialization of a {@link ParsedCollection}, cached next to the collection in
+ * <code>&lt;collection&gt;{@value #SUFFIX}</code>. A cached model lets later conversions with other
+ * output options skip reading the JSON and analysing the scripts.
+ * <p>
+ * The file starts with a header of a magic number, the format version and a hash of the collection
+ * file the model was parsed from; a model of another version or of other collection content is
+ * ignored. It is followed by a table of the distinct strings of the model, each stored once, and by
+ * the model itself, in which every string is an index into the table. Counts and indexes are
+ * written as variable length integers, so small collections take few bytes per field.
+ */
+public class ModelCache {
+    /**
+     * Logger to log messages about the cache
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ModelCache.class);
+    /**
+     * Suffix appended to the collection file name
+     */
+    public static final String SUFFIX = ".model";
+    /**
+     * Magic number at the start of a model file
+     */
+    private static final int MAGIC = 0x50324d44;
+    /**
+     * Version of the model layout, bump it when the model or the way it is parsed changes
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private ModelCache() {
+    }
+
+    /**
+     * Method to get the model file of a collection
+     * @param collection
+     * @return
+     */
+    public static Path modelPath(Path collection) {
+        return collection.resolveSibling(collection.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Method to load the cached model of a collection
+     * @param collection
+     * @param collectionHash hash of the current content of the collection file
+     * @return the model, or null when there is no model of this content and format version
+     */
+    public static ParsedCollection load(Path collection, String collectionHash) {
+        Path file = modelPath(collection);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            ParsedCollection model = read(in, collectionHash);
+            if (model == null) {
+                logger.info("Model cache {} is outdated, ignoring it", file);
+            }
+            return model;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read model cache {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Method to write the model of a collection next to it. The file is replaced atomically,
+     * so concurrent conversions of the same collection never read a partial model
+     * @param collection
+     * @param collectionHash hash of the collection file the model was parsed from
+     * @param model
+     * @throws IOException
+     */
+    public static void save(Path collection, String collectionHash, ParsedCollection model) throws IOException {
+        Path file = modelPath(collection);
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                write(model, collectionHash, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Method to hash the content of a collection file, streamed through the digest so that large
+     * collections are not read into memory
+     * @param collection
+     * @return
+     * @throws IOException
+     */
+    public static String hash(Path collection) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(collection), digest)) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // the stream updates the digest
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Method to serialize a model
+     * @param model
+     * @param collectionHash hash of the collection the model was parsed from, written to the header
+     * @param output
+     * @throws IOException
+     */
+    public static void write(ParsedCollection model, String collectionHash, OutputStream output) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+
+        strings.write(out, model.baseUrl);
+        writeCount(out, model.collectionVariables.size());
+        for (CollectionVariable variable : model.collectionVariables) {
+            strings.write(out, variable.key);
+            strings.write(out, variable.value);
+        }
+        writeCount(out, model.testCases.size());
+        for (TestCase testCase : model.testCases) {
+            strings.write(out, testCase.sourceHash);
+            strings.write(out, testCase.name);
+            strings.write(out, testCase.method);
+            strings.write(out, testCase.url);
+            strings.write(out, testCase.body);
+            writeCount(out, testCase.headers.size());
+            for (Map.Entry<String, String> header : testCase.headers.entrySet()) {
+                strings.write(out, header.getKey());
+                strings.write(out, header.getValue());
+            }
+            strings.write(out, testCase.folder);
+            strings.write(out, testCase.auth == null ? null : testCase.auth.type);
+            if (testCase.auth != null) {
+                writeCount(out, testCase.auth.parameters.size());
+                for (Map.Entry<String, String> parameter : testCase.auth.parameters.entrySet()) {
+                    strings.write(out, parameter.getKey());
+                    strings.write(out, parameter.getValue());
+                }
+            }
+            writeCount(out, testCase.preRequestScript.size());
+            for (ScriptCommand command : testCase.preRequestScript) {
+                strings.write(out, command.type);
+                strings.write(out, command.key);
+                strings.write(out, command.value);
+                strings.write(out, command.originalScript);
+            }
+            writeCount(out, testCase.testScript.size());
+            for (Assertion assertion : testCase.testScript) {
+                strings.write(out, assertion.type);
+                strings.write(out, assertion.actual);
+                strings.write(out, assertion.matcher);
+                strings.write(out, assertion.expected);
+                strings.write(out, assertion.description);
+                strings.write(out, assertion.originalScript);
+            }
+            writeStrings(out, strings, testCase.reads);
+            writeStrings(out, strings, testCase.writes);
+        }
+        out.flush();
+
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        header.writeUTF(collectionHash == null ? "" : collectionHash);
+        writeCount(header, strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeCount(header, bytes.length);
+            header.write(bytes);
+        }
+        body.writeTo(header);
+        header.flush();
+    }
+
+    /**
+     * Method to deserialize a model
+     * @param input
+     * @param collectionHash expected hash of the collection, or null to accept any
+     * @return the model, or null when the header does not match the format version or hash
+     * @throws IOException
+     */
+    public static ParsedCollection read(InputStream input, String collectionHash) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        String hash = in.readUTF();
+        if (collectionHash != null && !collectionHash.equals(hash)) {
+            return null;
+        }
+        String[] strings = new String[readCount(in)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readCount(in)];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        ParsedCollection model = new ParsedCollection();
+        model.baseUrl = readString(in, strings);
+        int variableCount = readCount(in);
+        List<CollectionVariable> variables = new ArrayList<>(variableCount);
+        for (int i = 0; i < variableCount; i++) {
+            variables.add(new CollectionVariable(readString(in, strings), readString(in, strings)));
+        }
+        model.setCollectionVariables(variables);
+
+        int testCaseCount = readCount(in);
+        model.testCases = new ArrayList<>(testCaseCount);
+        for (int i = 0; i < testCaseCount; i++) {
+            TestCase testCase = new TestCase();
+            testCase.sourceHash = readString(in, strings);
+            testCase.name = readString(in, strings);
+            testCase.method = readString(in, strings);
+            testCase.url = readString(in, strings);
+            testCase.body = readString(in, strings);
+            int headerCount = readCount(in);
+            for (int h = 0; h < headerCount; h++) {
+                testCase.headers.put(readString(in, strings), readString(in, strings));
+            }
+            testCase.folder = readString(in, strings);
+            String authType = readString(in, strings);
+            if (authType != null) {
+                testCase.auth = new Auth(authType);
+                int parameterCount = readCount(in);
+                for (int p = 0; p < parameterCount; p++) {
+                    testCase.auth.parameters.put(readString(in, strings), readString(in, strings));
+                }
+            }
+            int commandCount = readCount(in);
+            for (int c = 0; c < commandCount; c++) {
+                ScriptCommand command = new ScriptCommand();
+                command.type = readString(in, strings);
+                command.key = readString(in, strings);
+                command.value = readString(in, strings);
+                command.originalScript = readString(in, strings);
+                testCase.preRequestScript.add(command);
+            }
+            int assertionCount = readCount(in);
+            for (int a = 0; a < assertionCount; a++) {
+                Assertion assertion = new Assertion();
+                assertion.type = readString(in, strings);
+                assertion.actual = readString(in, strings);
+                assertion.matcher = readString(in, strings);
+                assertion.expected = readString(in, strings);
+                assertion.description = readString(in, strings);
+                assertion.originalScript = readString(in, strings);
+                testCase.testScript.add(assertion);
+            }
+            readStrings(in, strings, testCase.reads);
+            readStrings(in, strings, testCase.writes);
+            model.testCases.add(testCase);
+        }
+        return model;
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable strings, Collection<String> values)
+            throws IOException {
+        writeCount(out, values.size());
+        for (String value : values) {
+            strings.write(out, value);
+        }
+    }
+
+    private static void readStrings(DataInputStream in, String[] strings, Collection<String> values) throws IOException {
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in, strings));
+        }
+    }
+
+    /**
+     * Method to read a string reference, 0 is null and other values are the table index plus one
+     * @param in
+     * @param strings
+     * @return
+     * @throws IOException
+     */
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int reference = readCount(in);
+        return reference == 0 ? null : strings[reference - 1];
+    }
+
+    /**
+     * Method to write a non-negative integer in 7 bit groups, low group first
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    private static void writeCount(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed length in model cache");
+    }
+
+    /**
+     * Table of the distinct strings of a model in order of first use
+     */
+    private static class StringTable {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        void write(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                writeCount(out, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            writeCount(out, index + 1);
+        }
+    }
+}
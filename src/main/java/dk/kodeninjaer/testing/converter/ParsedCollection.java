@@ -0,0 +1,37 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.List;
+
+/**
+ * Intermediate representation of a parsed collection: the test cases in collection order and
+ * the collection variables. It holds everything the emitter needs, so a collection can be
+ * regenerated from its {@link ModelCache} without reading the collection JSON again.
+ */
+public class ParsedCollection {
+    String baseUrl;
+    List<TestCase> testCases;
+    List<CollectionVariable> collectionVariables;
+    /**
+     * Hash index of the collection variables used to resolve templates
+     */
+    SymbolTable symbols = new SymbolTable();
+
+    void setCollectionVariables(List<CollectionVariable> collectionVariables) {
+        this.collectionVariables = collectionVariables;
+        for (CollectionVariable variable : collectionVariables) {
+            symbols.declare(variable.key, variable.value);
+        }
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public List<TestCase> getTestCases() {
+        return testCases;
+    }
+
+    public List<CollectionVariable> getCollectionVariables() {
+        return collectionVariables;
+    }
+}
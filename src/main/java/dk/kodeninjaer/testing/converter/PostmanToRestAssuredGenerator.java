@@ -2,14 +2,28 @@ package dk.kodeninjaer.testing.converter;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -35,478 +49,2268 @@ public class PostmanToRestAssuredGenerator {
      */
     public static final String OUTPUT_BASEPATH = "build/generated/";
     /**
-     * List to store collection variables
-     */    
-    List<CollectionVariable> collectionVariables;
+     * Directory the package directories of the generated test class are created in
+     */
+    private String outputDirectory = OUTPUT_BASEPATH;
+    /**
+     * Mapper used to read collections, thread safe and shared between generate calls
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Flag to parse the collection with the streaming parser instead of loading the whole tree
+     */
+    private boolean streamingParse = false;
+    /**
+     * Flag to parse folders and render test methods in parallel
+     */
+    private boolean parallel = false;
+    /**
+     * Flag to reuse previously rendered test methods for unchanged collection items
+     */
+    private boolean incremental = false;
+    /**
+     * Flag to also generate a load driver running the requests of the collection
+     */
+    private boolean loadDriver = false;
+    /**
+     * Flag to generate tests that are safe to run with JUnit parallel execution
+     */
+    private boolean concurrent = false;
+    /**
+     * Flag to record the latency, status and size of every request of the generated tests
+     */
+    private boolean recordLatency = false;
+    /**
+     * Flag to cache the parsed model of the collection next to it
+     */
+    private boolean modelCache = false;
+    /**
+     * Default size in UTF-8 bytes above which request bodies are written to resources
+     */
+    public static final int DEFAULT_BODY_RESOURCE_THRESHOLD = 16 * 1024;
+    /**
+     * Size in UTF-8 bytes above which request bodies are written to resources instead of being inlined
+     */
+    private int bodyResourceThreshold = DEFAULT_BODY_RESOURCE_THRESHOLD;
+    /**
+     * Collection runner data file the generated tests iterate over, null to run every request once
+     */
+    private String dataFile = null;
+    /**
+     * Flag to declare assertion sequences shared by several requests once
+     */
+    private boolean deduplicate = false;
+    /**
+     * Flag to generate one test class per top-level folder of the collection
+     */
+    private boolean splitByFolder = false;
+    /**
+     * Maximum number of requests per generated test class, 0 for no limit
+     */
+    private int splitSize = 0;
+    /**
+     * Number of test classes of about the same running time to generate, 0 for no sharding
+     */
+    private int shards = 0;
+    /**
+     * JUnit XML report, or directory of reports, of a previous run giving the running time of the requests
+     */
+    private String timingFile = null;
+    /**
+     * Backend rendering the requests and assertions for an HTTP client library
+     */
+    private Emitter emitter = new RestAssuredEmitter();
+    /**
+     * Base path to store generated resources, such as the JUnit platform configuration
+     */
+    public static final String RESOURCE_BASEPATH = "build/generated-resources/";
+    /**
+     * Directory generated resources are written to
+     */
+    private String resourceDirectory = RESOURCE_BASEPATH;
+    /**
+     * Metrics of the running or last conversion
+     */
+    private volatile GenerationMetrics metrics = new GenerationMetrics(null);
+    /**
+     * Base path of the render cache used for incremental regeneration
+     */
+    public static final String CACHE_BASEPATH = "build/converter-cache/";
+    /**
+     * Version of the emitted code, bump it when the generated source changes so that cached methods are discarded
+     */
+    static final String GENERATOR_VERSION = "4";
+    /**
+     * Maximum number of items the streaming parser hands to the pool before it waits for the oldest,
+     * so that the read items are not all held in memory when the pool falls behind the reader
+     */
+    static final int MAX_PENDING_PARSES = 2 * ForkJoinPool.getCommonPoolParallelism();
+
+    /**
+     * Constructor to initialize the output package and class name. Generators created this way
+     * share one mapper, which is created with the first of them
+     * @param outputPackage
+     * @param outputClassName
+     */
+    public PostmanToRestAssuredGenerator(String outputPackage, String outputClassName) {
+        this(outputPackage, outputClassName, DefaultMapper.INSTANCE);
+    }
+
+    /**
+     * Holder of the shared mapper, initialized when the class is first used
+     */
+    private static final class DefaultMapper {
+        static final ObjectMapper INSTANCE = new ObjectMapper();
+    }
+
+    /**
+     * Constructor to initialize the output package and class name with a shared mapper.
+     * The generator keeps no per collection state in its fields except the metrics of the
+     * current conversion, so the mapper can be shared by generators running on different threads
+     * @param outputPackage
+     * @param outputClassName
+     * @param mapper
+     */
+    public PostmanToRestAssuredGenerator(String outputPackage, String outputClassName, ObjectMapper mapper) {
+        this.outputPackage = outputPackage;
+        this.outputClassName = outputClassName;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Constructor to copy the options of a generator for a conversion between streams. Only the
+     * fields listed here are copied, the copy has its own metrics and does not use the disk
+     * @param generator
+     */
+    private PostmanToRestAssuredGenerator(PostmanToRestAssuredGenerator generator) {
+        this(generator.outputPackage, generator.outputClassName, generator.mapper);
+        this.outputDirectory = generator.outputDirectory;
+        this.resourceDirectory = generator.resourceDirectory;
+        this.streamingParse = generator.streamingParse;
+        this.parallel = generator.parallel;
+        this.concurrent = generator.concurrent;
+        this.recordLatency = generator.recordLatency;
+        this.dataFile = generator.dataFile;
+        this.deduplicate = generator.deduplicate;
+        this.splitByFolder = generator.splitByFolder;
+        this.splitSize = generator.splitSize;
+        this.shards = generator.shards;
+        this.timingFile = generator.timingFile;
+        this.emitter = generator.emitter;
+        // bodies are inlined, and no render cache, model cache or load driver is written
+        this.bodyResourceThreshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Enable or disable the streaming parse mode. When enabled the collection is read item by item
+     * with a {@link StreamingCollectionParser}, and fields the converter never uses (such as saved
+     * response examples) are skipped instead of being loaded into memory
+     * @param streamingParse
+     */
+    public void setStreamingParse(boolean streamingParse) {
+        this.streamingParse = streamingParse;
+    }
+
+    /**
+     * Enable or disable the parallel pipeline. When enabled top-level folders are parsed as
+     * fork-join tasks and every test method is rendered into its own buffer in parallel. The
+     * buffers are joined in collection order, so the output is identical to the sequential path
+     * @param parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Enable or disable incremental regeneration. When enabled rendered test methods are cached
+     * under {@link #CACHE_BASEPATH}, keyed by a hash of the collection item and of the generator
+     * settings, and unchanged items reuse their cached source
+     * @param incremental
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Enable or disable generation of a load driver. When enabled a class named after the test
+     * class with a <code>Load</code> suffix is generated next to it. Its main method runs the
+     * requests of the collection with a {@link LoadDriver} and prints latency percentiles per request
+     * @param loadDriver
+     */
+    public void setLoadDriver(boolean loadDriver) {
+        this.loadDriver = loadDriver;
+    }
+
+    /**
+     * Enable or disable generation of concurrency safe tests. When enabled the shared state of the
+     * test class is kept in concurrent maps, the class is annotated to run its tests concurrently and
+     * a <code>junit-platform.properties</code> enabling parallel execution is written to the resource
+     * directory. Tests that write or read environment variables depend on each other and are grouped
+     * in a nested class that runs them in collection order on one thread
+     * @param concurrent
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Enable or disable latency recording. When enabled every request of the generated tests is sent
+     * through the filter of a {@link LatencyRecorder}, which writes the latency, status and payload
+     * size of the requests to a report when the test class finishes
+     * @param recordLatency
+     */
+    public void setRecordLatency(boolean recordLatency) {
+        this.recordLatency = recordLatency;
+    }
+
+    /**
+     * Enable or disable the model cache. When enabled the parsed collection is written next to the
+     * collection file by {@link ModelCache}, and later conversions of the same collection content, also
+     * with another package, class name or output options, read the model instead of parsing the JSON
+     * and the scripts
+     * @param modelCache
+     */
+    public void setModelCache(boolean modelCache) {
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * Method to set the size in UTF-8 bytes above which a request body is written to a resource file
+     * instead of being inlined as a string constant, {@link #DEFAULT_BODY_RESOURCE_THRESHOLD} by default.
+     * Externalized bodies are written to the resource directory, next to the package of the test class,
+     * and streamed by a {@link BodyResource} when the request is sent. A class file can only hold string
+     * constants of up to 65535 bytes
+     * @param bodyResourceThreshold
+     */
+    public void setBodyResourceThreshold(int bodyResourceThreshold) {
+        this.bodyResourceThreshold = bodyResourceThreshold;
+    }
+
+    /**
+     * Method to set a collection runner data file, a CSV file with a header row or a JSON array of
+     * objects. Every request is then generated as a parameterized test run once per row of the file,
+     * with the values of the row taking precedence over the collection variables. The rows are read
+     * lazily by {@link DataFile} when the tests run, so the size of the file does not affect the
+     * generated code. Requests depending on each other run in collection order for each row
+     * @param dataFile path of the data file as seen by the running tests, null to run every request once
+     */
+    public void setDataFile(String dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    /**
+     * Enable or disable deduplication. When enabled assertion sequences rendered identically for
+     * several requests are declared once as static helpers of the test class, and the test methods
+     * call the helpers, so the class grows with the number of distinct patterns instead of the number
+     * of requests. Constant header maps and auth are always declared once
+     * @param deduplicate
+     */
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Enable or disable one test class per top-level folder. Requests at the top level of the
+     * collection share a class. The classes extend a base class named after the output class with
+     * the suffix Base, which holds the variables, constants and setup, so the classes can be compiled
+     * and run in parallel. Requests depending on each other are kept in the class of the first of them
+     * @param splitByFolder
+     */
+    public void setSplitByFolder(boolean splitByFolder) {
+        this.splitByFolder = splitByFolder;
+    }
+
+    /**
+     * Method to set the maximum number of requests per test class, applied within each folder when
+     * splitting by folder. The classes share a base class as described for {@link #setSplitByFolder}.
+     * A chain of requests depending on each other is never split, so a class may hold more requests
+     * @param splitSize maximum number of requests, 0 to put every request in one class
+     */
+    public void setSplitSize(int splitSize) {
+        this.splitSize = splitSize;
+    }
+
+    /**
+     * Method to set the number of shards. Sharding replaces splitting: the requests are divided
+     * into this number of test classes of about the same running time, using the timings set by
+     * {@link #setTimingFile}. The classes share a base class as described for {@link #setSplitByFolder}
+     * and are tagged shard1, shard2, ... so every CI node can run one of them. Requests depending
+     * on each other stay in one shard
+     * @param shards number of shards, 0 to disable sharding
+     */
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Method to set the JUnit XML reports giving the running time of the requests when sharding.
+     * Requests without a time, or all requests when the reports do not exist yet, are given the
+     * mean time of the others
+     * @param timingFile a report, or a directory of reports such as build/test-results/runGeneratedTests
+     */
+    public void setTimingFile(String timingFile) {
+        this.timingFile = timingFile;
+    }
+
+    /**
+     * Method to set the backend of the generated tests, RestAssured by default. The backends share
+     * every option of the generator, so the same collection can be generated for several clients
+     * and the suites compared
+     * @param emitter
+     */
+    public void setEmitter(Emitter emitter) {
+        this.emitter = emitter;
+    }
+
+    /**
+     * Method to set a built-in backend of the generated tests by name
+     * @param emitter restassured, or httpclient for tests on the JDK java.net.http client
+     * @throws IllegalArgumentException if there is no backend of the name
+     */
+    public void setEmitter(String emitter) {
+        setEmitter(Emitter.named(emitter));
+    }
+
+    /**
+     * Method to set the directory generated resources are written to, {@link #RESOURCE_BASEPATH} by default
+     * @param resourceDirectory
+     */
+    public void setResourceDirectory(String resourceDirectory) {
+        this.resourceDirectory = resourceDirectory.endsWith("/") ? resourceDirectory : resourceDirectory + "/";
+    }
+
+    /**
+     * Method to set the directory the generated test class is written to, {@link #OUTPUT_BASEPATH} by default
+     * @param outputDirectory
+     */
+    public void setOutputDirectory(String outputDirectory) {
+        this.outputDirectory = outputDirectory.endsWith("/") ? outputDirectory : outputDirectory + "/";
+    }
+
+    /**
+     * Method to get the path of the render cache of the output class
+     * @return
+     */
+    private String cachePath() {
+        return CACHE_BASEPATH + outputPackage.replace('.', '/') + "/" + outputClassName + ".cache";
+    }
+
+    /**
+     * Method to describe the settings that affect the rendered source, used to invalidate the render cache
+     * @return
+     */
+    String settingsFingerprint() {
+        return "version=" + GENERATOR_VERSION
+                + ";package=" + outputPackage
+                + ";class=" + outputClassName
+                + ";concurrent=" + concurrent
+                + ";recordLatency=" + recordLatency
+                + ";bodyResourceThreshold=" + bodyResourceThreshold
+                + ";dataFile=" + dataFile
+                + ";deduplicate=" + deduplicate
+                + ";splitByFolder=" + splitByFolder
+                + ";splitSize=" + splitSize
+                + ";shards=" + shards
+                + ";emitter=" + emitter.name();
+    }
+
+    /**
+     * Main method to generate a test class
+     * @param postmanCollectionPath
+     * @return timings and counts of the conversion
+     * @throws IOException
+     * @throws JsonProcessingException
+     */
+    public GenerationMetrics generate(String postmanCollectionPath) throws IOException, JsonProcessingException {
+        long start = System.nanoTime();
+        GenerationMetrics runMetrics = new GenerationMetrics(postmanCollectionPath);
+        metrics = runMetrics;
+        generateTestClass(parse(postmanCollectionPath));
+        runMetrics.setTotalNanos(GenerationMetrics.since(start));
+        logger.info("Converted {} items of {} in {} ms", runMetrics.getItems(), postmanCollectionPath,
+                Math.round(runMetrics.getTotalMillis()));
+        return runMetrics;
+    }
+
+    /**
+     * Method to generate the test class, and the load driver when enabled, and compile them in-process.
+     * Nothing is written to disk, the classes are returned in memory. Compiler diagnostics are mapped
+     * to the Postman item whose test method they were reported in
+     * @param postmanCollectionPath
+     * @param classpath classpath to compile against, it must contain RestAssured, JUnit and slf4j
+     * @return the compiled classes and the diagnostics
+     * @throws IOException
+     */
+    public InMemoryCompiler.Result compile(String postmanCollectionPath, List<Path> classpath) throws IOException {
+        long start = System.nanoTime();
+        GenerationMetrics runMetrics = new GenerationMetrics(postmanCollectionPath);
+        metrics = runMetrics;
+        ParsedCollection collection = parse(postmanCollectionPath);
+
+        long emitStart = System.nanoTime();
+        String prefix = outputPackage.isEmpty() ? "" : outputPackage + ".";
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, String> source : renderTestClasses(collection, null).entrySet()) {
+            sources.put(prefix + source.getKey(), source.getValue());
+        }
+        if (loadDriver) {
+            sources.put(prefix + outputClassName + "Load", renderLoadDriver(collection));
+        }
+        runMetrics.addTime(GenerationMetrics.Phase.EMIT, GenerationMetrics.since(emitStart));
+
+        long compileStart = System.nanoTime();
+        InMemoryCompiler.Result result = new InMemoryCompiler(classpath).compile(sources);
+        runMetrics.addTime(GenerationMetrics.Phase.COMPILE, GenerationMetrics.since(compileStart));
+        if (concurrent) {
+            result.resources.put("junit-platform.properties", JUNIT_PLATFORM_PROPERTIES.getBytes(StandardCharsets.UTF_8));
+        }
+        for (TestCase test : collection.testCases) {
+            if (externalized(test.body)) {
+                result.resources.put(bodyResourceName(test), bodyResource(test.body).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        for (InMemoryCompiler.Problem problem : result.problems) {
+            if (problem.className != null) {
+                problem.item = itemAt(sources.get(problem.className), collection.testCases, problem.line);
+            }
+        }
+        runMetrics.setTotalNanos(GenerationMetrics.since(start));
+        logger.info("Compiled {} classes of {} with {} problems in {} ms", result.classes.size(), postmanCollectionPath,
+                result.problems.size(), Math.round(runMetrics.getTotalMillis()));
+        return result;
+    }
+
+    /**
+     * Method to generate the test class of a collection read from a reader, for use in services
+     * converting collections held in memory. Nothing is read from or written to disk: request bodies
+     * are inlined whatever their size, and the render and model caches are not used. Only the test
+     * class is written, so the load driver and the JUnit platform configuration of concurrent tests
+     * are not generated, and splitting into several classes is not supported. The conversion runs on
+     * a private copy of the generator, so one generator can serve concurrent conversions.
+     * The streams are not closed
+     * @param collection reader of the collection JSON
+     * @param out destination of the source, written one method at a time
+     * @return timings and counts of the conversion
+     * @throws IOException
+     * @throws IllegalStateException if the test class is split
+     */
+    public GenerationMetrics generate(Reader collection, Appendable out) throws IOException {
+        PostmanToRestAssuredGenerator generator = streamCopy();
+        try (JsonParser parser = mapper.getFactory().createParser(collection)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return generator.generate(parser, out);
+        }
+    }
+
+    /**
+     * Method to generate the test class of a collection read from a stream into a stream, as
+     * described for {@link #generate(Reader, Appendable)}. The encoding of the collection is detected
+     * and the source is written in UTF-8 through a buffer, which is flushed at the end
+     * @param collection stream of the collection JSON
+     * @param out destination of the source
+     * @return timings and counts of the conversion
+     * @throws IOException
+     * @throws IllegalStateException if the test class is split
+     */
+    public GenerationMetrics generate(InputStream collection, OutputStream out) throws IOException {
+        PostmanToRestAssuredGenerator generator = streamCopy();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (JsonParser parser = mapper.getFactory().createParser(collection)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            GenerationMetrics runMetrics = generator.generate(parser, writer);
+            writer.flush();
+            return runMetrics;
+        }
+    }
+
+    /**
+     * Method to parse a collection read from a reader, without the model cache. The reader is not closed
+     * @param collection
+     * @return
+     * @throws IOException
+     */
+    public ParsedCollection parse(Reader collection) throws IOException {
+        PostmanToRestAssuredGenerator generator = streamCopy();
+        try (JsonParser parser = mapper.getFactory().createParser(collection)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return generator.parseCollection(parser);
+        }
+    }
+
+    /**
+     * Method to generate the test class of a collection read by a parser into a destination
+     * @param parser
+     * @param out
+     * @return
+     * @throws IOException
+     */
+    private GenerationMetrics generate(JsonParser parser, Appendable out) throws IOException {
+        long start = System.nanoTime();
+        ParsedCollection collection = parseCollection(parser);
+        long emitStart = System.nanoTime();
+        renderTestClass(collection, null, out);
+        metrics.addTime(GenerationMetrics.Phase.EMIT, GenerationMetrics.since(emitStart));
+        metrics.setTotalNanos(GenerationMetrics.since(start));
+        logger.debug("Converted {} items from a stream in {} ms", metrics.getItems(), Math.round(metrics.getTotalMillis()));
+        return metrics;
+    }
+
+    /**
+     * Method to copy the generator for a conversion between streams. The copy has its own metrics
+     * and does not use the disk
+     * @return
+     */
+    private PostmanToRestAssuredGenerator streamCopy() {
+        if (split()) {
+            throw new IllegalStateException("Split test classes can not be written to one stream");
+        }
+        return new PostmanToRestAssuredGenerator(this);
+    }
+
+    /**
+     * Method to find the item whose test method contains a line of the generated source
+     * @param source
+     * @param testCases
+     * @param line line number starting at 1
+     * @return the item name, or null when the line is outside of the test methods
+     */
+    static String itemAt(String source, List<TestCase> testCases, long line) {
+        Map<String, String> items = new HashMap<>();
+        for (TestCase testCase : testCases) {
+            items.putIfAbsent(testCase.name.replaceAll("[^a-zA-Z0-9]", "_"), testCase.name);
+        }
+        String item = null;
+        String end = null;
+        String[] lines = source.split("\n", -1);
+        for (int i = 0; i < Math.min(line, lines.length); i++) {
+            Matcher declaration = METHOD_DECLARATION.matcher(lines[i]);
+            if (declaration.matches() && items.containsKey(declaration.group(2))) {
+                item = items.get(declaration.group(2));
+                end = declaration.group(1) + "}";
+            } else if (lines[i].equals(end) && i + 1 < line) {
+                item = null;
+                end = null;
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Declaration of a generated test or load driver method, with its indentation and name
+     */
+    private static final Pattern METHOD_DECLARATION = Pattern.compile("(\\s*)(?:public |static )+void (\\w+)\\([^)]*\\) \\{");
+
+    /**
+     * Method to parse a collection file into its intermediate representation, read from the model
+     * cache when it is enabled and holds a model of the current collection content
+     * @param postmanCollectionPath
+     * @return
+     * @throws IOException
+     */
+    public ParsedCollection parse(String postmanCollectionPath) throws IOException {
+        if (!modelCache) {
+            return parseCollection(postmanCollectionPath);
+        }
+        long start = System.nanoTime();
+        Path collectionPath = Path.of(postmanCollectionPath);
+        String collectionHash = ModelCache.hash(collectionPath);
+        ParsedCollection cached = ModelCache.load(collectionPath, collectionHash);
+        metrics.addTime(GenerationMetrics.Phase.LOAD, GenerationMetrics.since(start));
+        if (cached != null) {
+            for (TestCase testCase : cached.testCases) {
+                metrics.addItem();
+                metrics.addAssertions(testCase.testScript.size());
+            }
+            logger.info("Read model of {} from {}", postmanCollectionPath, ModelCache.modelPath(collectionPath));
+            return cached;
+        }
+        ParsedCollection parsed = parseCollection(postmanCollectionPath);
+        ModelCache.save(collectionPath, collectionHash, parsed);
+        return parsed;
+    }
+
+    /**
+     * Method to parse a collection file into test cases and collection variables
+     * @param postmanCollectionPath
+     * @return
+     * @throws IOException
+     */
+    private ParsedCollection parseCollection(String postmanCollectionPath) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(new File(postmanCollectionPath))) {
+            return parseCollection(parser);
+        }
+    }
+
+    /**
+     * Method to parse a collection read by a parser into test cases and collection variables
+     * @param collectionParser
+     * @return
+     * @throws IOException
+     */
+    private ParsedCollection parseCollection(JsonParser collectionParser) throws IOException {
+        ParsedCollection parsed = new ParsedCollection();
+        GenerationMetrics runMetrics = metrics;
+        long start = System.nanoTime();
+        // auth per folder position, the collection auth at the empty position
+        Map<String, Auth> folderAuth = new ConcurrentHashMap<>();
+        if (streamingParse) {
+            StreamingCollectionParser parser = new StreamingCollectionParser(mapper);
+            long parseNanos = runMetrics.getNanos(GenerationMetrics.Phase.PARSE);
+            List<TestCase> parsedTestCases = new ArrayList<>();
+            Deque<ForkJoinTask<TestCase>> tasks = new ArrayDeque<>();
+            parser.parse(collectionParser, new StreamingCollectionParser.ItemVisitor() {
+                @Override
+                public void visit(JsonNode item, String folderPath) throws IOException {
+                    visit(item, folderPath, "");
+                }
+
+                @Override
+                public void visit(JsonNode item, String folderPath, String folder) throws IOException {
+                    if (parallel) {
+                        tasks.add(ForkJoinPool.commonPool().submit(() -> parseRequestItem(item, folderPath, folder)));
+                        runMetrics.addPendingItems(tasks.size());
+                        if (tasks.size() >= MAX_PENDING_PARSES) {
+                            // tasks are joined in submission order, which keeps the collection order
+                            parsedTestCases.add(joinParseTask(tasks.poll()));
+                        }
+                    } else {
+                        parsedTestCases.add(parseRequestItem(item, folderPath, folder));
+                    }
+                }
+
+                @Override
+                public void folderAuth(String folder, JsonNode auth) {
+                    putAuth(folderAuth, folder, auth);
+                }
+            });
+            if (parallel) {
+                runMetrics.addTime(GenerationMetrics.Phase.LOAD, GenerationMetrics.since(start));
+                while (!tasks.isEmpty()) {
+                    parsedTestCases.add(joinParseTask(tasks.poll()));
+                }
+            } else {
+                // items are parsed while reading, only the time outside of the item parse is loading
+                runMetrics.addTime(GenerationMetrics.Phase.LOAD, GenerationMetrics.since(start)
+                        - (runMetrics.getNanos(GenerationMetrics.Phase.PARSE) - parseNanos));
+            }
+            parsed.baseUrl = parser.getInfo().path("url").asText("");
+            parsed.testCases = parsedTestCases;
+            parsed.setCollectionVariables(parseCollectionVariables(parser.getVariables()));
+            putAuth(folderAuth, "", parser.getAuth());
+        } else {
+            JsonNode collection = mapper.readTree(collectionParser);
+            if (collection == null) {
+                collection = mapper.missingNode();
+            }
+            runMetrics.addTime(GenerationMetrics.Phase.LOAD, GenerationMetrics.since(start));
+
+            parsed.baseUrl = collection.path("info").path("url").asText("");
+            parsed.testCases = parseItems(collection.path("item"), folderAuth);
+            parsed.setCollectionVariables(parseCollectionVariables(collection.path("variable")));
+            putAuth(folderAuth, "", collection.path("auth"));
+        }
+        resolveAuth(parsed.testCases, folderAuth);
+        return parsed;
+    }
+
+    /**
+     * Method to parse a Postman auth block. The parameters are read from the block named after the
+     * type, which is an array of key-value pairs in collection format 2.1 and an object in 2.0
+     * @param auth
+     * @return the auth, or null when the block is missing and the auth is inherited
+     */
+    static Auth parseAuth(JsonNode auth) {
+        if (!auth.isObject() || !auth.has("type")) {
+            return null;
+        }
+        Auth parsed = new Auth(auth.path("type").asText());
+        JsonNode parameters = auth.path(parsed.type);
+        if (parameters.isArray()) {
+            for (JsonNode parameter : parameters) {
+                parsed.parameters.put(parameter.path("key").asText(), parameter.path("value").asText());
+            }
+        } else {
+            parameters.properties().forEach(parameter -> parsed.parameters.put(parameter.getKey(), parameter.getValue().asText()));
+        }
+        return parsed;
+    }
+
+    /**
+     * Method to record the auth of a folder or the collection
+     * @param folderAuth
+     * @param folder
+     * @param auth
+     */
+    private static void putAuth(Map<String, Auth> folderAuth, String folder, JsonNode auth) {
+        Auth parsed = parseAuth(auth);
+        if (parsed != null) {
+            folderAuth.put(folder, parsed);
+        }
+    }
+
+    /**
+     * Method to resolve the auth of the requests that inherit it from their folders or the
+     * collection. Folder auth is only known once the whole collection is read, since Postman writes
+     * it after the items of the folder. An inherited auth is added to the source hash of the request,
+     * so cached methods are rendered again when the auth of a parent changes
+     * @param testCases
+     * @param folderAuth auth per folder position, the collection auth at the empty position
+     */
+    private static void resolveAuth(List<TestCase> testCases, Map<String, Auth> folderAuth) {
+        for (TestCase testCase : testCases) {
+            Auth auth = testCase.auth;
+            if (auth == null) {
+                String folder = testCase.folder;
+                while (auth == null) {
+                    auth = folderAuth.get(folder);
+                    if (folder.isEmpty()) {
+                        break;
+                    }
+                    int parent = folder.lastIndexOf('/');
+                    folder = parent < 0 ? "" : folder.substring(0, parent);
+                }
+                if (auth != null && testCase.sourceHash != null) {
+                    testCase.sourceHash = RenderCache.hash(testCase.sourceHash, auth.toString());
+                }
+            }
+            if (auth == null || "noauth".equals(auth.type)) {
+                testCase.auth = null;
+                continue;
+            }
+            if (!SUPPORTED_AUTH.contains(auth.type)) {
+                logger.warn("Auth type {} of {} is not supported, the request is sent without auth", auth.type, testCase.name);
+                testCase.auth = null;
+                continue;
+            }
+            testCase.auth = auth;
+            for (String value : auth.parameters.values()) {
+                testCase.reads.addAll(Template.compile(value).getVariables());
+            }
+        }
+    }
+
+    /**
+     * Auth types rendered into the generated requests
+     */
+    private static final Set<String> SUPPORTED_AUTH = Set.of("bearer", "basic", "apikey", "oauth2");
+
+    /**
+     * Method to parse collection variables into a list
+     * @param variables
+     * @return
+     */
+    List<CollectionVariable> parseCollectionVariables(JsonNode variables) {
+        List<CollectionVariable> collectionVariables = new ArrayList<>();
+        for (JsonNode variable : variables) {
+            collectionVariables.add(new CollectionVariable(variable.path("key").asText(), variable.path("value").asText()));
+        }
+        // log collection variables as key=value pairs
+        String collectionVariableList = collectionVariables.stream()
+                .map(v -> v.key + "=" + v.value)
+                .collect(Collectors.joining(", "));
+        logger.info("Collection variables: {}", collectionVariableList);
+        return collectionVariables;
+    }
+
+    /**
+     * Method to parse items recursively
+     * @param items
+     * @return
+     * @throws JsonProcessingException
+     */
+    private List<TestCase> parseItems(JsonNode items, Map<String, Auth> folderAuth) throws JsonProcessingException {
+        if (parallel) {
+            return joinParseTask(ForkJoinPool.commonPool().submit(new ParseFolderTask(items, "", "", folderAuth)));
+        }
+        List<TestCase> testCases = new ArrayList<>();
+        parseItemsRecursive(items, "", "", testCases, folderAuth);
+        return testCases;
+    }
+
+    /**
+     * Method to join a parse task and rethrow the parse error it failed with
+     * @param task
+     * @return
+     * @throws JsonProcessingException
+     */
+    private static <T> T joinParseTask(ForkJoinTask<T> task) throws JsonProcessingException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof JsonProcessingException)) {
+                cause = cause.getCause();
+            }
+            if (cause != null) {
+                throw (JsonProcessingException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fork-join task to parse the items of a folder. Sub folders are forked as their own tasks
+     * and the results are joined in collection order
+     */
+    private class ParseFolderTask extends RecursiveTask<List<TestCase>> {
+        private final JsonNode items;
+        private final String folderPath;
+        private final String folder;
+        private final Map<String, Auth> folderAuth;
+
+        ParseFolderTask(JsonNode items, String folderPath, String folder, Map<String, Auth> folderAuth) {
+            this.items = items;
+            this.folderPath = folderPath;
+            this.folder = folder;
+            this.folderAuth = folderAuth;
+        }
+
+        @Override
+        protected List<TestCase> compute() {
+            // Each entry is either a parsed request or a forked folder, kept in collection order
+            List<Object> parts = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                JsonNode item = items.get(i);
+                if (item.has("request")) {
+                    try {
+                        parts.add(parseRequestItem(item, folderPath, folder));
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else if (item.has("item")) {
+                    String newFolderPath = folderPath.isEmpty() ?
+                        item.path("name").asText() :
+                        folderPath + "_" + item.path("name").asText();
+                    String childFolder = StreamingCollectionParser.childFolder(folder, i);
+                    putAuth(folderAuth, childFolder, item.path("auth"));
+                    parts.add(new ParseFolderTask(item.path("item"), newFolderPath, childFolder, folderAuth).fork());
+                }
+            }
+
+            List<TestCase> testCases = new ArrayList<>();
+            for (Object part : parts) {
+                if (part instanceof TestCase) {
+                    testCases.add((TestCase) part);
+                } else {
+                    testCases.addAll(((ParseFolderTask) part).join());
+                }
+            }
+            return testCases;
+        }
+    }
+
+    /**
+     * Method to parse items recursively
+     * @param items
+     * @param folderPath
+     * @param testCases
+     * @throws JsonProcessingException
+     */
+    void parseItemsRecursive(JsonNode items, String folderPath, List<TestCase> testCases) throws JsonProcessingException {
+        parseItemsRecursive(items, folderPath, "", testCases, new HashMap<>());
+    }
+
+    /**
+     * Method to parse items recursively, recording the auth of the folders
+     * @param items
+     * @param folderPath
+     * @param folder position of the folder holding the items
+     * @param testCases
+     * @param folderAuth
+     * @throws JsonProcessingException
+     */
+    private void parseItemsRecursive(JsonNode items, String folderPath, String folder, List<TestCase> testCases,
+            Map<String, Auth> folderAuth) throws JsonProcessingException {
+        for (int i = 0; i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            if (item.has("request")) {
+                testCases.add(parseRequestItem(item, folderPath, folder));
+            } else if (item.has("item")) {
+                // This is a folder, recursively process its items
+                String newFolderPath = folderPath.isEmpty() ?
+                    item.path("name").asText() :
+                    folderPath + "_" + item.path("name").asText();
+                String childFolder = StreamingCollectionParser.childFolder(folder, i);
+                putAuth(folderAuth, childFolder, item.path("auth"));
+                parseItemsRecursive(item.path("item"), newFolderPath, childFolder, testCases, folderAuth);
+            }
+        }
+    }
+
+    /**
+     * Method to parse a single request item into a test case
+     * @param item
+     * @param folderPath
+     * @return
+     * @throws JsonProcessingException
+     */
+    TestCase parseRequestItem(JsonNode item, String folderPath) throws JsonProcessingException {
+        return parseRequestItem(item, folderPath, "");
+    }
+
+    /**
+     * Method to parse a single request item of a folder into a test case
+     * @param item
+     * @param folderPath
+     * @param folder position of the folder holding the item
+     * @return
+     * @throws JsonProcessingException
+     */
+    TestCase parseRequestItem(JsonNode item, String folderPath, String folder) throws JsonProcessingException {
+        long start = System.nanoTime();
+        TestCase testCase = new TestCase();
+        JsonNode request = item.path("request");
+        if (incremental || modelCache) {
+            // Only the fields the converter reads are hashed, so the key is the same for the tree and the streaming parser
+            testCase.sourceHash = RenderCache.hash(folderPath, item.path("name").toString(),
+                    request.toString(), item.path("event").toString());
+        }
+
+        // Combine folder path with request name for the test method name
+        String requestName = item.path("name").asText();
+        testCase.name = folderPath.isEmpty() ? requestName : folderPath + "_" + requestName;
+        testCase.method = request.path("method").asText();
+        testCase.url = request.path("url").path("raw").asText();
+        testCase.folder = folder;
+        testCase.auth = parseAuth(request.path("auth"));
+
+        // Parse headers
+        JsonNode headers = request.path("header");
+        for (JsonNode header : headers) {
+            testCase.headers.put(
+                header.path("key").asText(),
+                header.path("value").asText()
+            );
+        }
+
+        // Parse body if exists
+        if (request.has("body")) {
+            testCase.body = request.path("body").path("raw").asText();
+        }
+
+        // Parse pre-request scripts
+        // TODO: check if there is any pm.collectionVariables.set() in the script and
+        // add them to the collectionVariables list
+        // TODO: check if there is any pm.environment.set() in the script and add them
+        // to the collectionVariables list (we will expect Environment only variables to
+        // be set independently)
+        JsonNode events = item.path("event");
+        for (JsonNode event : events) {
+            String listen = event.path("listen").asText();
+            String script = scriptText(event.path("script").path("exec"));
+            long lexStart = System.nanoTime();
+            List<ScriptLexer.Call> calls = ScriptLexer.lex(script);
+            metrics.addTime(GenerationMetrics.Phase.LEX, GenerationMetrics.since(lexStart));
+
+            if ("prerequest".equals(listen)) {
+                testCase.preRequestScript = parseScript(calls);
+            } else if ("test".equals(listen)) {
+                testCase.testScript = parseAssertions(script, calls);
+            } else {
+                continue;
+            }
+            // Record the variables passed between requests for the dependency graph
+            for (ScriptLexer.Call call : calls) {
+                if (call.kind == ScriptLexer.Kind.SET) {
+                    testCase.writes.add(call.key);
+                } else if (call.kind == ScriptLexer.Kind.GET) {
+                    testCase.reads.add(call.key);
+                }
+            }
+        }
+        testCase.reads.addAll(Template.compile(testCase.url).getVariables());
+        testCase.reads.addAll(Template.compile(testCase.body).getVariables());
+        for (String value : testCase.headers.values()) {
+            testCase.reads.addAll(Template.compile(value).getVariables());
+        }
+        metrics.addItem();
+        metrics.addAssertions(testCase.testScript.size());
+        metrics.addTime(GenerationMetrics.Phase.PARSE, GenerationMetrics.since(start));
+        return testCase;
+    }
+
+    /**
+     * Method to join the exec lines of a script event into the raw script text
+     * @param exec
+     * @return
+     */
+    static String scriptText(JsonNode exec) {
+        if (exec.isArray()) {
+            StringBuilder sb = new StringBuilder();
+            for (JsonNode line : exec) {
+                if (sb.length() > 0) {
+                    sb.append('\n');
+                }
+                sb.append(line.asText());
+            }
+            return sb.toString();
+        }
+        return exec.asText();
+    }
+
+    /**
+     * Method to parse a script and return a list of the commands
+     * @param script
+     * @return
+     */
+    List<ScriptCommand> parseScript(String script) {
+        return parseScript(ScriptLexer.lex(script));
+    }
+
+    /**
+     * Method to parse the lexed calls of a pre-request script
+     * @param calls
+     * @return
+     */
+    private List<ScriptCommand> parseScript(List<ScriptLexer.Call> calls) {
+        List<ScriptCommand> commands = new ArrayList<>();
+        for (ScriptLexer.Call call : calls) {
+            if (call.kind == ScriptLexer.Kind.SET && "environment".equals(call.scope)) {
+                ScriptCommand cmd = new ScriptCommand();
+                cmd.type = "SET_ENV";
+                cmd.key = call.key;
+                cmd.value = call.value;
+                cmd.originalScript = call.source;
+                commands.add(cmd);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Method to parse assertions
+     * @param script
+     * @return
+     */
+    List<Assertion> parseAssertions(String script) {
+        if (script == null) {
+            logger.error("Empty test script found");
+            return new ArrayList<>();
+        }
+        return parseAssertions(script, ScriptLexer.lex(script));
+    }
+
+    /**
+     * Method to parse the lexed calls of a test script into assertions
+     * @param script
+     * @param calls
+     * @return
+     */
+    private List<Assertion> parseAssertions(String script, List<ScriptLexer.Call> calls) {
+        if (script.isEmpty()) {
+            logger.error("Empty test script found");
+            return new ArrayList<>();
+        }
+        List<Assertion> assertions = new ArrayList<>();
+
+        for (ScriptLexer.Call call : calls) {
+            Assertion assertion = new Assertion();
+            assertion.type = "expect";
+            assertion.originalScript = call.source;
+            assertion.description = call.test == null ? null : call.test.description;
+            switch (call.kind) {
+                case EXPECT:
+                    // pm.expect(jsonData.json.message).to.equal("Hello World")
+                    assertion.actual = call.actual;
+                    assertion.matcher = call.matcher;
+                    assertion.expected = call.expected;
+                    if ("pm.response.responseTime".equals(call.actual)) {
+                        // pm.expect(pm.response.responseTime).to.be.below(200)
+                        assertion.matcher = responseTimeMatcher(call.matcher);
+                    }
+                    break;
+                case STATUS:
+                    // pm.response.to.have.status(200)
+                    assertion.matcher = "have.status";
+                    assertion.expected = call.expected;
+                    break;
+                case JSON:
+                    // pm.response.to.be.json
+                    assertion.matcher = "contentType";
+                    assertion.expected = "\"application/json\"";
+                    break;
+                default:
+                    continue;
+            }
+            // TODO: check for collection gets and sets and substitute them with environment
+            // variables
+            assertions.add(assertion);
+        }
+        if (assertions.isEmpty()) {
+            logger.error("No assertions found in script: {}", script);
+        }
+
+        return assertions;
+    }
+
+    /**
+     * Method to map the matcher of a response time expectation to a response time assertion
+     * @param matcher
+     * @return responseTime.below, responseTime.atMost or the matcher itself if it is not a bound
+     */
+    private static String responseTimeMatcher(String matcher) {
+        String bound = matcher.startsWith("be.") ? matcher.substring(3) : matcher;
+        switch (bound) {
+            case "below":
+            case "lessThan":
+            case "lt":
+                return "responseTime.below";
+            case "at.most":
+            case "most":
+            case "lte":
+            case "lessThanOrEqual":
+                return "responseTime.atMost";
+            default:
+                return matcher;
+        }
+    }
+
+    /**
+     * Method to convert the bound of a response time expectation into a Java long expression
+     * @param expected a number or a variable getter
+     * @return the expression, or null if the bound is not supported
+     */
+    static String responseTimeBound(String expected) {
+        String bound = expected.trim();
+        try {
+            return Math.round(Double.parseDouble(bound)) + "L";
+        } catch (NumberFormatException e) {
+            // not a number, try a variable getter
+        }
+        List<ScriptLexer.Call> calls = ScriptLexer.lex(bound);
+        if (calls.size() == 1 && calls.get(0).kind == ScriptLexer.Kind.GET && calls.get(0).source.equals(bound)) {
+            ScriptLexer.Call get = calls.get(0);
+            return "Long.parseLong(" + ("environment".equals(get.scope) ? "environment" : "collectionVariables")
+                    + ".get(" + Template.javaString(get.key) + "))";
+        }
+        logger.warn("Unsupported response time bound {}, the assertion is skipped", bound);
+        return null;
+    }
+
+    /**
+     * Method to get the JSON path an expectation asserts, the actual value without the jsonData prefix
+     * @param assertion
+     * @return
+     */
+    static String jsonPath(Assertion assertion) {
+        return assertion.actual.replace("jsonData.", "");
+    }
+
+    /**
+     * Method to convert the expected value of an equality expectation into a Java expression,
+     * reading variable getters from the environment or the collection variables
+     * @param assertion
+     * @return
+     */
+    static String expectedValue(Assertion assertion) {
+        // Unescape quotes in the expected value
+        String unescapedExpected = assertion.expected.replace("\\\"", "\"");
+        unescapedExpected = ScriptLexer.replaceGets(unescapedExpected,
+                get -> ("environment".equals(get.scope) ? "environment" : "collectionVariables")
+                        + ".get(\"" + get.key + "\")");
+
+        //TODO: Fix conditioIf the expected value contains pm. we will just put it in a string since we have a bracket matchin issue.
+        if(unescapedExpected.contains("pm.")) {
+            //unescapedExpected = "\"/*" + assertion.expected + "*/\"";
+            unescapedExpected = unescapedExpected.replace("pm\\.(environment|globals|collectionVariables)", "x") ;
+        }
+        return unescapedExpected;
+    }
+
+    /**
+     * Method to generate the test class files in the output directory
+     * @param collection
+     * @throws IOException
+     */
+    private void generateTestClass(ParsedCollection collection) throws IOException {
+        long start = System.nanoTime();
+        RenderCache cache = incremental ? RenderCache.load(Path.of(cachePath()), settingsFingerprint()) : null;
+
+        for (Map.Entry<String, String> source : renderTestClasses(collection, cache).entrySet()) {
+            String outputPath = outputDirectory + outputPackage.replace('.', '/') + "/" + source.getKey() + ".java";
+            if (write(Path.of(outputPath), source.getValue())) {
+                logger.info("Wrote test class {}", outputPath);
+            } else {
+                logger.info("Test class {} is up to date", outputPath);
+            }
+        }
+        if (cache != null) {
+            cache.save();
+        }
+
+        for (TestCase test : collection.testCases) {
+            if (externalized(test.body)) {
+                Path resource = Path.of(resourceDirectory + bodyResourceName(test));
+                if (write(resource, bodyResource(test.body))) {
+                    logger.info("Wrote request body {}", resource);
+                }
+            }
+        }
+
+        if (concurrent) {
+            Path properties = Path.of(resourceDirectory + "junit-platform.properties");
+            if (write(properties, JUNIT_PLATFORM_PROPERTIES)) {
+                logger.info("Wrote {}", properties);
+            }
+        }
+
+        if (loadDriver) {
+            String loadPath = outputDirectory + outputPackage.replace('.', '/') + "/" + outputClassName + "Load.java";
+            if (write(Path.of(loadPath), renderLoadDriver(collection))) {
+                logger.info("Wrote load driver {}", loadPath);
+            }
+        }
+        metrics.addTime(GenerationMetrics.Phase.EMIT, GenerationMetrics.since(start));
+    }
+
+    /**
+     * Method to write a generated file if it changed, counting the written bytes
+     * @param file
+     * @param content
+     * @return true if the file was written
+     * @throws IOException
+     */
+    private boolean write(Path file, String content) throws IOException {
+        if (!writeIfChanged(file, content)) {
+            return false;
+        }
+        metrics.addFileWritten(Files.size(file));
+        return true;
+    }
+
+    /**
+     * Method to render the source of the load driver. Every request becomes a method with the
+     * request and its assertions, registered with the driver in collection order. State is kept in
+     * concurrent maps since the requests are executed by many threads
+     * @param collection
+     * @return
+     */
+    String renderLoadDriver(ParsedCollection collection) {
+        String className = outputClassName + "Load";
+        StringBuilder out = new StringBuilder();
+        out.append("package " + outputPackage + ";\n\n");
+        if (hasExternalizedBody(collection)) {
+            out.append("import dk.kodeninjaer.testing.converter.BodyResource;\n");
+        }
+        out.append("import dk.kodeninjaer.testing.converter.LoadDriver;\n");
+        for (String type : emitter.imports()) {
+            out.append("import " + type + ";\n");
+        }
+        for (String member : emitter.staticImports()) {
+            out.append("import static " + member + ";\n");
+        }
+        out.append("\n");
+        out.append("import java.util.*;\n");
+        out.append("import java.util.concurrent.ConcurrentHashMap;\n\n");
+
+        out.append("/**\n");
+        out.append(" * Load driver for the requests of " + outputClassName + ", run with the options\n");
+        out.append(" * --concurrency N --rate N --duration N --report file\n");
+        out.append(" */\n");
+        out.append("public class " + className + " {\n");
+        out.append("    private static final " + emitter.clientType() + " " + emitter.clientField() + " = "
+                + emitter.client(collection.baseUrl) + ";\n");
+        out.append("    private static final Map<String, String> environment = new ConcurrentHashMap<>();\n\n");
+        out.append("    private static final Map<String, String> collectionVariables = new ConcurrentHashMap<>();\n\n");
+        Constants constants = findConstants(collection);
+        renderConstants(constants, "private", out);
+
+        out.append("    static {\n");
+        for (CollectionVariable variable : collection.collectionVariables) {
+            out.append("        collectionVariables.put(" + Template.javaString(variable.key) + ", "
+                    + Template.javaString(variable.value) + ");\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    public static void main(String[] args) throws Exception {\n");
+        out.append("        LoadDriver driver = new LoadDriver(\"" + outputClassName + "\").configure(args);\n");
+        out.append("        register(driver);\n");
+        out.append("        driver.run(System.out);\n");
+        out.append("    }\n\n");
+
+        out.append("    public static void register(LoadDriver driver) {\n");
+        for (TestCase test : collection.testCases) {
+            out.append("        driver.addRequest(" + Template.javaString(test.name) + ", " + className + "::"
+                    + test.name.replaceAll("[^a-zA-Z0-9]", "_") + ");\n");
+        }
+        out.append("    }\n\n");
+
+        for (TestCase test : collection.testCases) {
+            out.append("    static void " + test.name.replaceAll("[^a-zA-Z0-9]", "_") + "() {\n");
+            renderRequest(test, collection, false, constants, new ArrayList<>(), out);
+            emitter.renderAssertions(test, out);
+            out.append("    }\n\n");
+        }
+
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * JUnit platform configuration running test classes and the tests of classes annotated
+     * with <code>@Execution(CONCURRENT)</code> in parallel
+     */
+    static final String JUNIT_PLATFORM_PROPERTIES = "junit.jupiter.execution.parallel.enabled = true\n"
+            + "junit.jupiter.execution.parallel.mode.default = same_thread\n"
+            + "junit.jupiter.execution.parallel.mode.classes.default = concurrent\n"
+            + "junit.jupiter.execution.parallel.config.strategy = dynamic\n";
+
+    /**
+     * Method to render the source of the test class
+     * @param collection
+     * @param cache cache of rendered methods, or null to render every method
+     * @return
+     */
+    String renderTestClass(ParsedCollection collection, RenderCache cache) {
+        StringBuilder out = new StringBuilder();
+        try {
+            renderTestClass(collection, cache, out);
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Method to render the source of the test class into a destination, the declarations first and
+     * then one test method or ordered group at a time
+     * @param collection
+     * @param cache cache of rendered methods, or null to render every method
+     * @param out
+     * @throws IOException
+     */
+    void renderTestClass(ParsedCollection collection, RenderCache cache, Appendable out) throws IOException {
+        StringBuilder header = new StringBuilder();
+        List<DependencyGraph.Chain> chains = dependencyChains(collection);
+        renderImports(collection, concurrent || !chains.isEmpty(), header);
+
+        // Write class declaration
+        if (concurrent) {
+            header.append("@Execution(ExecutionMode.CONCURRENT)\n");
+        }
+        header.append("public class " + outputClassName + " {\n");
+        Constants constants = findConstants(collection);
+        Shared shared = deduplicate ? findShared(collection) : null;
+        renderState(collection, outputClassName, "private", constants, shared, header);
+        out.append(header);
+
+        // Write test methods, each one is rendered into its own buffer and written in collection order
+        // Requests in a dependency chain are written to an ordered nested class per chain
+        List<String> methods = renderTestMethods(collection, cache, constants, shared);
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            nodes.add(i);
+        }
+        renderTests(nodes, chains, methods, out);
+
+        out.append("}\n");
+    }
+
+    /**
+     * Method to render the sources of the test classes. Without splitting this is the test class,
+     * otherwise it is the base class followed by the classes holding the tests of each part of
+     * the collection, named after the output class with the numbers 1, 2, ...
+     * @param collection
+     * @param cache cache of rendered methods, or null to render every method
+     * @return the sources by simple class name in order
+     * @throws IOException if the timings of the shards can not be read
+     */
+    Map<String, String> renderTestClasses(ParsedCollection collection, RenderCache cache) throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        if (!split()) {
+            sources.put(outputClassName, renderTestClass(collection, cache));
+            return sources;
+        }
+        List<DependencyGraph.Chain> chains = dependencyChains(collection);
+        boolean ordered = concurrent || !chains.isEmpty();
+        Constants constants = findConstants(collection);
+        Shared shared = deduplicate ? findShared(collection) : null;
+
+        String baseClassName = outputClassName + "Base";
+        StringBuilder base = new StringBuilder();
+        renderImports(collection, ordered, base);
+        base.append("/**\n");
+        base.append(" * Variables, constants and setup shared by the test classes of " + outputClassName + "\n");
+        base.append(" */\n");
+        base.append("public abstract class " + baseClassName + " {\n");
+        renderState(collection, baseClassName, "protected", constants, shared, base);
+        base.setLength(base.length() - 1);
+        base.append("}\n");
+        sources.put(baseClassName, base.toString());
+
+        List<String> methods = renderTestMethods(collection, cache, constants, shared);
+        List<List<Integer>> parts = shards > 0 ? shardParts(collection, chains) : splitParts(collection, chains);
+        for (int i = 0; i < parts.size(); i++) {
+            StringBuilder out = new StringBuilder();
+            renderImports(collection, ordered, out);
+            if (shards > 0) {
+                out.append("@Tag(\"shard" + (i + 1) + "\")\n");
+            }
+            if (concurrent) {
+                out.append("@Execution(ExecutionMode.CONCURRENT)\n");
+            }
+            out.append("public class " + outputClassName + (i + 1) + " extends " + baseClassName + " {\n\n");
+            renderTests(parts.get(i), chains, methods, out);
+            out.append("}\n");
+            sources.put(outputClassName + (i + 1), out.toString());
+        }
+        logger.debug("Split {} requests of {} into {} classes", methods.size(), outputClassName, parts.size());
+        return sources;
+    }
 
     /**
-     * Constructor to initialize the output package and class name
-     * @param outputPackage
-     * @param outputClassName
+     * Method to divide the requests into the parts of the split test classes, by top-level folder
+     * and then by the maximum number of requests. The requests of a dependency chain are kept
+     * together in the part of the first of them, so the chain runs in order in one class
+     * @param collection
+     * @param chains
+     * @return the indexes of the requests of each part in collection order
      */
-    public PostmanToRestAssuredGenerator(String outputPackage, String outputClassName) {
-        this.outputPackage = outputPackage;
-        this.outputClassName = outputClassName;
+    private List<List<Integer>> splitParts(ParsedCollection collection, List<DependencyGraph.Chain> chains) {
+        int[] chainOf = new int[collection.testCases.size()];
+        Arrays.fill(chainOf, -1);
+        for (int i = 0; i < chains.size(); i++) {
+            for (int node : chains.get(i).getNodes()) {
+                chainOf[node] = i;
+            }
+        }
+        Map<String, List<Integer>> parts = new LinkedHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        boolean[] placed = new boolean[chainOf.length];
+        for (int i = 0; i < chainOf.length; i++) {
+            if (placed[i]) {
+                continue;
+            }
+            List<Integer> nodes = chainOf[i] >= 0 ? chains.get(chainOf[i]).getNodes() : List.of(i);
+            String folder = splitByFolder ? topFolder(collection.testCases.get(i).folder) : "";
+            int count = counts.merge(folder, nodes.size(), Integer::sum) - nodes.size();
+            String key = splitSize > 0 ? folder + "#" + count / splitSize : folder;
+            List<Integer> part = parts.computeIfAbsent(key, k -> new ArrayList<>());
+            for (int node : nodes) {
+                part.add(node);
+                placed[node] = true;
+            }
+        }
+        List<List<Integer>> sorted = new ArrayList<>();
+        for (List<Integer> part : parts.values()) {
+            Collections.sort(part);
+            sorted.add(part);
+        }
+        return sorted;
     }
 
     /**
-     * Main method to generate a test class
-     * @param postmanCollectionPath
+     * Method to divide the requests into shards of about the same running time. A request's time
+     * is the time reported for its test method in the classes generated before, the requests of a
+     * dependency chain are one unit
+     * @param collection
+     * @param chains
+     * @return the indexes of the requests of each shard in collection order
      * @throws IOException
-     * @throws JsonProcessingException
      */
-    public void generate(String postmanCollectionPath) throws IOException, JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode collection = mapper.readTree(new File(postmanCollectionPath));
+    private List<List<Integer>> shardParts(ParsedCollection collection, List<DependencyGraph.Chain> chains)
+            throws IOException {
+        Map<String, Double> timings = Map.of();
+        if (timingFile != null && Files.exists(Path.of(timingFile))) {
+            timings = ShardPlanner.readTimings(Path.of(timingFile));
+        } else if (timingFile != null) {
+            logger.warn("Timing file {} does not exist, the shards are balanced by number of requests", timingFile);
+        }
 
-        String baseUrl = collection.path("info").path("url").asText("");
-        List<TestCase> testCases = parseItems(collection.path("item"));
-        parseCollectionVariables(collection.path("variable"));
+        List<String> methodNames = new ArrayList<>();
+        for (TestCase test : collection.testCases) {
+            methodNames.add(test.name.replaceAll("[^a-zA-Z0-9]", "_"));
+        }
+        List<List<Integer>> chainNodes = chains.stream().map(DependencyGraph.Chain::getNodes).collect(Collectors.toList());
+        double[] times = ShardPlanner.requestTimes(timings, outputPackage + "." + outputClassName, methodNames, chainNodes);
+        double known = 0;
+        int count = 0;
+        for (double time : times) {
+            if (time >= 0) {
+                known += time;
+                count++;
+            }
+        }
+        double mean = count > 0 ? known / count : 1;
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] < 0) {
+                times[i] = mean;
+            }
+        }
 
-        generateTestClass(baseUrl, testCases);
+        boolean[] chained = new boolean[times.length];
+        List<List<Integer>> units = new ArrayList<>();
+        for (DependencyGraph.Chain chain : chains) {
+            units.add(chain.getNodes());
+            for (int node : chain.getNodes()) {
+                chained[node] = true;
+            }
+        }
+        for (int i = 0; i < times.length; i++) {
+            if (!chained[i]) {
+                units.add(List.of(i));
+            }
+        }
+        List<List<Integer>> plan = ShardPlanner.plan(units, times, shards);
+        for (int i = 0; i < plan.size(); i++) {
+            logger.info("Shard {} of {} has {} requests taking about {} s", i + 1, outputClassName, plan.get(i).size(),
+                    String.format(Locale.ROOT, "%.1f", ShardPlanner.time(plan.get(i), times)));
+        }
+        return plan;
     }
 
     /**
-     * Method to parse collection variables and save them in the collectionVariables list
-     * @param variables
+     * Method to check if the tests are divided over several classes
+     * @return
      */
-    private void parseCollectionVariables(JsonNode variables) {
-        collectionVariables = new ArrayList<>();
-        for (JsonNode variable : variables) {
-            collectionVariables.add(new CollectionVariable(variable.path("key").asText(), variable.path("value").asText()));
-        }
-        // log collection variables as key=value pairs
-        String collectionVariableList = collectionVariables.stream()
-                .map(v -> v.key + "=" + v.value)
-                .collect(Collectors.joining(", "));
-        logger.info("Collection variables: {}", collectionVariableList);
+    private boolean split() {
+        return splitByFolder || splitSize > 0 || shards > 0;
     }
 
     /**
-     * Method to parse items recursively
-     * @param items
+     * Method to get the position of the top-level folder of a request
+     * @param folder position of the innermost folder of the request
      * @return
-     * @throws JsonProcessingException
      */
-    private List<TestCase> parseItems(JsonNode items) throws JsonProcessingException {
-        List<TestCase> testCases = new ArrayList<>();
-        parseItemsRecursive(items, "", testCases);
-        return testCases;
+    private static String topFolder(String folder) {
+        int slash = folder.indexOf('/');
+        return slash < 0 ? folder : folder.substring(0, slash);
     }
 
     /**
-     * Method to parse items recursively
-     * @param items
-     * @param folderPath
-     * @param testCases
-     * @throws JsonProcessingException
+     * Method to render the package and imports of a test class
+     * @param collection
+     * @param ordered true if the class has ordered tests
+     * @param out
      */
-    private void parseItemsRecursive(JsonNode items, String folderPath, List<TestCase> testCases) throws JsonProcessingException {
-        for (JsonNode item : items) {
-            if (item.has("request")) {
-                TestCase testCase = new TestCase();
-                JsonNode request = item.path("request");
-
-                // Combine folder path with request name for the test method name
-                String requestName = item.path("name").asText();
-                testCase.name = folderPath.isEmpty() ? requestName : folderPath + "_" + requestName;
-                testCase.method = request.path("method").asText();
-                testCase.url = request.path("url").path("raw").asText();
-
-                // Parse headers
-                JsonNode headers = request.path("header");
-                for (JsonNode header : headers) {
-                    testCase.headers.put(
-                        header.path("key").asText(),
-                        header.path("value").asText()
-                    );
-                }
+    private void renderImports(ParsedCollection collection, boolean ordered, StringBuilder out) {
+        // Write package and imports
+        out.append("package " + outputPackage + ";\n\n");
+        for (String type : emitter.imports()) {
+            out.append("import " + type + ";\n");
+        }
+        if (hasExternalizedBody(collection)) {
+            out.append("import dk.kodeninjaer.testing.converter.BodyResource;\n");
+        }
+        if (dataFile != null) {
+            out.append("import dk.kodeninjaer.testing.converter.DataFile;\n");
+        }
+        if (recordLatency) {
+            out.append("import dk.kodeninjaer.testing.converter.LatencyRecorder;\n");
+            out.append("import org.junit.jupiter.api.AfterAll;\n");
+        }
+        out.append("import org.junit.jupiter.api.BeforeAll;\n");
+        if (ordered) {
+            out.append("import org.junit.jupiter.api.MethodOrderer;\n");
+            out.append("import org.junit.jupiter.api.Nested;\n");
+            out.append("import org.junit.jupiter.api.Order;\n");
+        }
+        if (shards > 0) {
+            out.append("import org.junit.jupiter.api.Tag;\n");
+        }
+        out.append("import org.junit.jupiter.api.Test;\n");
+        if (ordered) {
+            out.append("import org.junit.jupiter.api.TestMethodOrder;\n");
+        }
+        if (concurrent) {
+            out.append("import org.junit.jupiter.api.parallel.Execution;\n");
+            out.append("import org.junit.jupiter.api.parallel.ExecutionMode;\n");
+        }
+        if (dataFile != null) {
+            out.append("import org.junit.jupiter.params.ParameterizedTest;\n");
+            out.append("import org.junit.jupiter.params.provider.MethodSource;\n");
+        }
+        for (String member : emitter.staticImports()) {
+            out.append("import static " + member + ";\n");
+        }
+        out.append("import org.slf4j.Logger;\n");
+        out.append("import org.slf4j.LoggerFactory;\n\n");
+        out.append("import java.util.*;\n");
+        if (concurrent) {
+            out.append("import java.util.concurrent.ConcurrentHashMap;\n");
+        }
+        if (dataFile != null) {
+            out.append("import java.util.stream.Stream;\n");
+        }
+        out.append("\n");
+    }
 
-                // Parse body if exists
-                if (request.has("body")) {
-                    testCase.body = request.path("body").path("raw").asText();
-                }
+    /**
+     * Method to render the variables, constants, setup and helpers of the class the tests run in.
+     * The setup of a base class runs once, for the first of the test classes extending it
+     * @param collection
+     * @param className
+     * @param access access of the fields and helpers, private for a test class and protected for a base class
+     * @param constants
+     * @param shared helpers, or null
+     * @param out
+     */
+    private void renderState(ParsedCollection collection, String className, String access, Constants constants,
+            Shared shared, StringBuilder out) {
+        String mapType = concurrent ? "ConcurrentHashMap" : "HashMap";
+        boolean base = !"private".equals(access);
+        out.append("    " + access + " static final Logger logger = LoggerFactory.getLogger(" + className + ".class);\n");
+        out.append("    " + access + " static " + emitter.clientType() + " " + emitter.clientField() + ";\n");
+        out.append("    " + access + " static Map<String, String> environment = new " + mapType + "<>();\n\n");
+        out.append("    " + access + " static Map<String, String> collectionVariables = new " + mapType + "<>();\n\n");
+        renderConstants(constants, access, out);
+        if (recordLatency) {
+            out.append("    " + access + " static final LatencyRecorder latencyRecorder = new LatencyRecorder(\""
+                    + outputClassName + "\");\n\n");
+        }
 
-                // Parse pre-request scripts
-                // TODO: check if there is any pm.collectionVariables.set() in the script and
-                // add them to the collectionVariables list
-                // TODO: check if there is any pm.environment.set() in the script and add them
-                // to the collectionVariables list (we will expect Environment only variables to
-                // be set independently)
-                JsonNode events = item.path("event");
-                for (JsonNode event : events) {
-                    String listen = event.path("listen").asText();
-                    String script = (new ObjectMapper()).writeValueAsString(event.path("script").path("exec"));
-
-                    if ("prerequest".equals(listen)) {
-                        testCase.preRequestScript = parseScript(script);
-                    } else if ("test".equals(listen)) {
-                        testCase.testScript = parseAssertions(script);
-                    }
-                }
+        // Write setup method
+        out.append("    @BeforeAll\n");
+        if (base) {
+            out.append("    public static synchronized void setup() {\n");
+            out.append("        if (" + emitter.clientField() + " != null) {\n");
+            out.append("            return;\n");
+            out.append("        }\n");
+        } else {
+            out.append("    public static void setup() {\n");
+        }
+        out.append("        " + emitter.clientField() + " = " + emitter.client(collection.baseUrl) + ";\n");
+        // Write collection variables
+        for (CollectionVariable variable : collection.collectionVariables) {
+            out.append("        collectionVariables.put(" + Template.javaString(variable.key) + ", "
+                    + Template.javaString(variable.value) + ");\n");
+        }
+        out.append("    }\n\n");
 
-                testCases.add(testCase);
-            } else if (item.has("item")) {
-                // This is a folder, recursively process its items
-                String newFolderPath = folderPath.isEmpty() ?
-                    item.path("name").asText() :
-                    folderPath + "_" + item.path("name").asText();
-                parseItemsRecursive(item.path("item"), newFolderPath, testCases);
+        if (recordLatency) {
+            out.append("    @AfterAll\n");
+            out.append("    public static void writeLatencyReport() throws java.io.IOException {\n");
+            out.append("        logger.info(\"Wrote latency report {}\", latencyRecorder.write());\n");
+            out.append("    }\n\n");
+        }
+
+        if (dataFile != null) {
+            out.append("    /**\n");
+            out.append("     * Rows of the data file, the tests take a row as their collection variables\n");
+            out.append("     */\n");
+            out.append("    static Stream<Map<String, String>> dataRows() {\n");
+            out.append("        return DataFile.rows(" + Template.javaString(dataFile) + ", collectionVariables);\n");
+            out.append("    }\n\n");
+        }
+
+        if (shared != null) {
+            renderShared(shared, access, out);
+        }
+    }
+
+    /**
+     * Method to render tests, the requests outside of dependency chains in collection order followed
+     * by an ordered nested class for each chain starting with one of the requests
+     * @param nodes indexes of the requests in collection order
+     * @param chains dependency chains of the collection
+     * @param methods the rendered test methods in collection order
+     * @param out
+     */
+    private void renderTests(List<Integer> nodes, List<DependencyGraph.Chain> chains, List<String> methods,
+            Appendable out) throws IOException {
+        boolean[] chained = new boolean[methods.size()];
+        for (DependencyGraph.Chain chain : chains) {
+            for (int node : chain.getNodes()) {
+                chained[node] = true;
+            }
+        }
+        Set<Integer> included = new HashSet<>(nodes);
+        for (int node : nodes) {
+            if (!chained[node]) {
+                if (dataFile != null) {
+                    out.append(dataTestAnnotations());
+                }
+                out.append(methods.get(node));
+            }
+        }
+        // groups are numbered by their chain, so a group keeps its name in whichever class it is
+        // and the times reported for it can be mapped back to its requests
+        for (int chain = 0; chain < chains.size(); chain++) {
+            if (included.contains(chains.get(chain).getNodes().get(0))) {
+                StringBuilder ordered = new StringBuilder();
+                renderOrderedGroup("OrderedTests" + (chain + 1), chains.get(chain), methods, ordered);
+                out.append(ordered);
             }
         }
     }
 
     /**
-     * Method to parse a script and return a list of the commands
-     * @param script
+     * Assertion sequences shared by several requests of a test class. Header maps do not need to be
+     * shared here, constant headers are always declared once by {@link Constants}
+     */
+    private static class Shared {
+        final SharedFragments assertions = new SharedFragments("assertions");
+    }
+
+    /**
+     * Method to find the assertion sequences rendered identically for several requests
+     * @param collection
      * @return
      */
-    private List<ScriptCommand> parseScript(String script) {
-        List<ScriptCommand> commands = new ArrayList<>();
-        java.util.regex.Matcher matcher = Patterns.ENVIRONMENT_SET.matcher(script);
+    private Shared findShared(ParsedCollection collection) {
+        Shared shared = new Shared();
+        for (TestCase test : collection.testCases) {
+            StringBuilder assertions = new StringBuilder();
+            emitter.renderAssertions(test, assertions);
+            if (assertions.length() > 0) {
+                shared.assertions.add(assertions.toString());
+            }
+        }
+        // assign the names before the methods are rendered, possibly in parallel
+        shared.assertions.shared();
+        return shared;
+    }
 
-        while (matcher.find()) {
-            ScriptCommand cmd = new ScriptCommand();
-            cmd.type = "SET_ENV";
-            cmd.key = matcher.group(1);
-            cmd.value = matcher.group(2);
-            cmd.originalScript = matcher.group(0);
-            commands.add(cmd);
+    /**
+     * Method to render the shared assertion sequences as static helpers. Helpers reading collection
+     * variables take them as a parameter, which is the row in data-driven tests
+     * @param shared
+     * @param out
+     */
+    private void renderShared(Shared shared, String access, StringBuilder out) {
+        for (Map.Entry<String, String> assertions : shared.assertions.shared().entrySet()) {
+            out.append("    " + access + " static void " + assertions.getValue() + "(" + emitter.responseType() + " response"
+                    + (readsVariables(assertions.getKey()) ? ", Map<String, String> collectionVariables" : "") + ") {\n");
+            out.append(assertions.getKey());
+            out.append("    }\n\n");
         }
-        return commands;
     }
 
     /**
-     * Method to parse assertions
-     * @param script
+     * Method to render the call of a shared helper
+     * @param name
+     * @param fragment
+     * @param arguments arguments before the collection variables
      * @return
      */
-    private List<Assertion> parseAssertions(String script) {
-        if (script == null || script.isEmpty()) {
-            logger.error("Empty test script found");
+    private static String sharedCall(String name, String fragment, String arguments) {
+        if (readsVariables(fragment)) {
+            arguments = arguments.isEmpty() ? "collectionVariables" : arguments + ", collectionVariables";
         }
-        List<Assertion> assertions = new ArrayList<>();
+        return name + "(" + arguments + ")";
+    }
 
-        // Parse pm.expect assertions
-        Pattern expectPattern = Pattern.compile(
-                "pm\\.expect\\((.*?)\\)\\.to\\.(.*?)\\((.*?)\\)|pm\\.response\\.to\\.have\\.status\\((\\d+)\\)");
-        java.util.regex.Matcher expectMatcher = expectPattern.matcher(script);
+    private static boolean readsVariables(String fragment) {
+        return fragment.contains("collectionVariables");
+    }
 
-        while (expectMatcher.find()) {
-            Assertion assertion = new Assertion();
-            assertion.type = "expect";
+    /**
+     * Header maps and auth specifications of a collection that do not depend on variables, declared
+     * once as constants of the generated class and shared by every request using them. Requests
+     * inheriting the auth of a folder or the collection share the constant of that auth
+     */
+    private static class Constants {
+        final SharedFragments headers = new SharedFragments("headers", 1);
+        final SharedFragments auth = new SharedFragments("auth", 1);
+    }
 
-            if (expectMatcher.group(4) != null) {
-                // pm.response.to.have.status(200)
-                assertion.matcher = "have.status";
-                assertion.expected = expectMatcher.group(4);
-            } else {
-                // pm.expect(jsonData.json.message).to.equal("Hello World")
-                assertion.actual = expectMatcher.group(1);
-                assertion.matcher = expectMatcher.group(2);
-                assertion.expected = expectMatcher.group(3);
+    /**
+     * Method to find the constant header maps and auth specifications of a collection
+     * @param collection
+     * @return
+     */
+    private Constants findConstants(ParsedCollection collection) {
+        Constants constants = new Constants();
+        for (TestCase test : collection.testCases) {
+            String headers = constantHeaders(test.headers, collection);
+            if (headers != null) {
+                constants.headers.add(headers);
+            }
+            String auth = constantAuth(test.auth, collection);
+            if (auth != null) {
+                constants.auth.add(auth);
             }
-            // TODO: check for collection gets and sets and substitute them with environment
-            // variables
-            assertions.add(assertion);
-        }
-        if (assertions.isEmpty()) {
-            logger.error("No assertions found in script: " + script);
         }
+        // assign the names before the methods are rendered, possibly in parallel
+        constants.headers.shared();
+        constants.auth.shared();
+        return constants;
+    }
 
-        // Parse pm.test assertions
-        java.util.regex.Matcher testMatcher = Patterns.TEST.matcher(script);
-
-        while (testMatcher.find()) {
-            String description = testMatcher.group(1);
-            String testScript = testMatcher.group(2);
-            String originalScript = testMatcher.group(0);
+    /**
+     * Method to render the constant header maps and auth specifications as static fields
+     * @param constants
+     * @param out
+     */
+    private void renderConstants(Constants constants, String access, StringBuilder out) {
+        for (Map.Entry<String, String> headers : constants.headers.shared().entrySet()) {
+            out.append("    " + access + " static final " + emitter.headersType() + " " + headers.getValue() + " = " + headers.getKey() + ";\n");
+        }
+        for (Map.Entry<String, String> auth : constants.auth.shared().entrySet()) {
+            out.append("    " + access + " static final " + emitter.authType() + " " + auth.getValue() + " = " + auth.getKey() + ";\n");
+        }
+        if (!constants.headers.shared().isEmpty() || !constants.auth.shared().isEmpty()) {
+            out.append("\n");
+        }
+    }
 
-            // Convert common pm.test assertions to RestAssured format
-            if (testScript.contains("pm.response.to.have.status")) {
-                Assertion assertion = new Assertion();
-                assertion.type = "expect";
-                assertion.matcher = "have.status";
-                assertion.expected = testScript.replaceAll(".*pm\\.response\\.to\\.have\\.status\\((\\d+)\\).*", "$1");
-                assertion.originalScript = originalScript;
-                assertions.add(assertion);
+    /**
+     * Method to find the chains of requests depending on each other through variables
+     * @param collection
+     * @return
+     */
+    private static List<DependencyGraph.Chain> dependencyChains(ParsedCollection collection) {
+        DependencyGraph graph = new DependencyGraph();
+        for (TestCase test : collection.testCases) {
+            graph.addNode(test.reads, test.writes);
+        }
+        if (logger.isDebugEnabled()) {
+            for (DependencyGraph.Edge edge : graph.edges()) {
+                logger.debug("{} depends on {} through variable {}", collection.testCases.get(edge.getConsumer()).name,
+                        collection.testCases.get(edge.getProducer()).name, edge.getVariable());
             }
+        }
+        return graph.chains();
+    }
 
-            if (testScript.contains("pm.response.to.be.json")) {
-                Assertion assertion = new Assertion();
-                assertion.type = "expect";
-                assertion.matcher = "contentType";
-                assertion.expected = "\"application/json\"";
-                assertion.originalScript = originalScript;
-                assertions.add(assertion);
+    /**
+     * Method to render the tests of a dependency chain into a nested class that runs them in
+     * collection order, on one thread when the tests are concurrent
+     * @param className
+     * @param chain
+     * @param methods the rendered test methods in collection order
+     * @param out
+     */
+    private void renderOrderedGroup(String className, DependencyGraph.Chain chain, List<String> methods, StringBuilder out) {
+        out.append("    /**\n");
+        out.append("     * Tests depending on each other through the variables " + String.join(", ", chain.getVariables())
+                + ", run in collection order\n");
+        out.append("     */\n");
+        out.append("    @Nested\n");
+        if (concurrent) {
+            out.append("    @Execution(ExecutionMode.SAME_THREAD)\n");
+        }
+        if (dataFile == null) {
+            out.append("    @TestMethodOrder(MethodOrderer.OrderAnnotation.class)\n");
+        }
+        out.append("    class " + className + " {\n");
+        List<Integer> nodes = chain.getNodes();
+        if (dataFile != null) {
+            // one test per row running the requests of the chain in order, each row sees the
+            // variables written by the requests before it in the same row
+            for (String line : dataTestAnnotations().split("\n")) {
+                out.append("    ").append(line).append('\n');
             }
-
-            // Add more pm.test conversions as needed
+            out.append("        public void iteration(Map<String, String> collectionVariables) {\n");
+            for (int node : nodes) {
+                out.append("            " + methodName(methods.get(node)) + "(collectionVariables);\n");
+            }
+            out.append("        }\n\n");
         }
-
-        return assertions;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (dataFile == null) {
+                out.append("        @Order(" + (i + 1) + ")\n");
+            }
+            // indent the method one level, it is rendered for the top level class
+            for (String line : methods.get(nodes.get(i)).split("\n", -1)) {
+                if (!line.isEmpty()) {
+                    out.append("    ").append(line);
+                }
+                out.append('\n');
+            }
+            out.setLength(out.length() - 1);
+        }
+        out.append("    }\n\n");
     }
 
     /**
-     * Method to generate a test class file in the output directory
-     * @param baseUrl
-     * @param testCases
+     * Method to write a file only if its content differs from what is already on disk, so that
+     * unchanged output keeps its timestamp and does not trigger recompilation
+     * @param file
+     * @param content
+     * @return true if the file was written
      * @throws IOException
      */
-    private void generateTestClass(String baseUrl, List<TestCase> testCases) throws IOException {
-        String outputPath = OUTPUT_BASEPATH + outputPackage.replace('.', '/') + "/" + outputClassName + ".java";
-        File outputFile = new File(outputPath);
-        outputFile.getParentFile().mkdirs();
-
-        try (FileWriter writer = new FileWriter(outputFile)) {
-            // Write package and imports
-            writer.write("package " + outputPackage + ";\n\n");
-            writer.write("import io.restassured.builder.RequestSpecBuilder;\n");
-            writer.write("import io.restassured.response.Response;\n");
-            writer.write("import io.restassured.specification.RequestSpecification;\n");
-            writer.write("import org.junit.jupiter.api.BeforeAll;\n");
-            writer.write("import org.junit.jupiter.api.Test;\n");
-            writer.write("import static io.restassured.RestAssured.given;\n");
-            writer.write("import static org.hamcrest.Matchers.*;\n");
-            writer.write("import org.slf4j.Logger;\n");
-            writer.write("import org.slf4j.LoggerFactory;\n\n");
-            writer.write("import java.util.*;\n\n");
+    static boolean writeIfChanged(Path file, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (Files.isRegularFile(file) && Files.size(file) == bytes.length
+                && Arrays.equals(Files.readAllBytes(file), bytes)) {
+            return false;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, bytes);
+        return true;
+    }
 
-            // Write class declaration
-            writer.write("public class " + outputClassName + " {\n");
-            writer.write("    private static final Logger logger = LoggerFactory.getLogger(" + outputClassName + ".class);\n");
-            writer.write("    private static RequestSpecification requestSpec;\n");
-            writer.write("    private static Map<String, String> environment = new HashMap<>();\n\n");
-            writer.write("    private static Map<String, String> collectionVariables = new HashMap<>();\n\n");
+    /**
+     * Method to render the test methods of a collection, in parallel when enabled
+     * @param collection
+     * @param cache cache of rendered methods, or null to render every method
+     * @param constants constants the methods use
+     * @param shared helpers the methods call, or null to render every method in full
+     * @return the rendered methods in collection order
+     */
+    private List<String> renderTestMethods(ParsedCollection collection, RenderCache cache, Constants constants,
+            Shared shared) {
+        if (parallel) {
+            return collection.testCases.parallelStream()
+                    .map(test -> renderTestMethod(test, collection, cache, constants, shared))
+                    .collect(Collectors.toList());
+        }
+        List<String> methods = new ArrayList<>();
+        for (TestCase test : collection.testCases) {
+            methods.add(renderTestMethod(test, collection, cache, constants, shared));
+        }
+        return methods;
+    }
 
-            // Write setup method
-            writer.write("    @BeforeAll\n");
-            writer.write("    public static void setup() {\n");
-            writer.write("        requestSpec = new RequestSpecBuilder()\n");
-            writer.write("            .setBaseUri(\"" + baseUrl + "\")\n");
-            writer.write("            .build();\n");
-            // Write collection variables
-            for (CollectionVariable variable : collectionVariables) {
-                writer.write("        collectionVariables.put(\"" + variable.key + "\", \"" + variable.value + "\");\n");
-            }
-            writer.write("    }\n\n");
+    /**
+     * Method to render a test method, reusing the cached source when the item is unchanged
+     * @param test
+     * @param collection
+     * @param cache
+     * @param constants
+     * @param shared
+     * @return
+     */
+    private String renderTestMethod(TestCase test, ParsedCollection collection, RenderCache cache, Constants constants,
+            Shared shared) {
+        if (cache == null) {
+            return generateTestMethod(test, collection, constants, shared, new ArrayList<>());
+        }
+        // the method depends on the names of the constants and helpers it uses, which depend on the other items
+        String key = test.sourceHash + ":" + constants.headers.name(constantHeaders(test.headers, collection))
+                + ":" + constants.auth.name(constantAuth(test.auth, collection));
+        if (shared != null) {
+            key += ":" + sharedAssertions(test, shared);
+        }
+        RenderCache.Entry entry = cache.get(key);
+        if (entry == null) {
+            List<String> variables = new ArrayList<>();
+            String source = generateTestMethod(test, collection, constants, shared, variables);
+            cache.put(key, source, variables);
+            return source;
+        }
+        // the variables are declared as if the method was rendered, so a cached method reports
+        // the same unresolved variables
+        for (String variable : entry.getVariables()) {
+            declare(variable, collection);
+        }
+        return entry.getSource();
+    }
 
-            // Write test methods
-            for (TestCase test : testCases) {
-                generateTestMethod(writer, test);
-            }
+    /**
+     * Method to render the annotations of a test run once per row of the data file
+     * @return
+     */
+    private String dataTestAnnotations() {
+        return "    @ParameterizedTest(name = \"row {index}\")\n"
+                + "    @MethodSource(\"" + outputPackage + "." + outputClassName
+                + (split() ? "Base" : "") + "#dataRows\")\n";
+    }
 
-            writer.write("}\n");
+    /**
+     * Method to get the name of a rendered test method
+     * @param method
+     * @return
+     */
+    private static String methodName(String method) {
+        Matcher declaration = METHOD_DECLARATION.matcher(method);
+        if (!declaration.find()) {
+            throw new IllegalStateException("No method declaration in " + method);
         }
+        return declaration.group(2);
     }
 
     /**
-     * Method to generate a test method
-     * @param writer
+     * Method to render a test method into its own buffer
      * @param test
-     * @throws IOException
+     * @param collection
+     * @param constants constants to use
+     * @param shared helpers to call, or null
+     * @param variables receives the names of the variables the method references
+     * @return
      */
-    private void generateTestMethod(FileWriter writer, TestCase test) throws IOException {
+    private String generateTestMethod(TestCase test, ParsedCollection collection, Constants constants, Shared shared,
+            List<String> variables) {
+        StringBuilder out = new StringBuilder();
         String methodName = test.name.replaceAll("[^a-zA-Z0-9]", "_");
-        writer.write("    @Test\n");
-        writer.write("    public void " + methodName + "() {\n");
+        if (dataFile == null) {
+            out.append("    @Test\n");
+            out.append("    public void " + methodName + "() {\n");
+        } else {
+            // the row parameter shadows the collection variables of the class
+            out.append("    public void " + methodName + "(Map<String, String> collectionVariables) {\n");
+        }
 
         // Write original scripts as comments
         if (!test.preRequestScript.isEmpty()) {
-            writer.write("        // Pre-request script:\n");
-            writer.write("        /*\n");
+            out.append("        // Pre-request script:\n");
+            out.append("        /*\n");
             for (ScriptCommand cmd : test.preRequestScript) {
-                writer.write("        " + cmd.originalScript + "\n");
+                out.append("        " + cmd.originalScript + "\n");
+            }
+            out.append("        */\n\n");
+        }
+
+        renderRequest(test, collection, recordLatency, constants, variables, out);
+
+        // Write assertions
+        if (!test.testScript.isEmpty()) {
+            out.append("\n        // Test script:\n");
+            out.append("        /*\n");
+            for (Assertion assertion : test.testScript) {
+                out.append("        " + assertion.originalScript + "\n");
             }
-            writer.write("        */\n\n");
+            out.append("        */\n\n");
         }
 
+        String sharedAssertions = shared == null ? null : sharedAssertions(test, shared);
+        if (sharedAssertions == null) {
+            emitter.renderAssertions(test, out);
+        } else {
+            out.append("        " + sharedAssertions + ";\n");
+        }
+
+        out.append("    }\n\n");
+        return out.toString();
+    }
+
+    /**
+     * Method to get the call of the shared assertion sequence of a test
+     * @param test
+     * @param shared
+     * @return the call, or null if the assertions of the test are not shared
+     */
+    private String sharedAssertions(TestCase test, Shared shared) {
+        StringBuilder assertions = new StringBuilder();
+        emitter.renderAssertions(test, assertions);
+        String name = shared.assertions.name(assertions.toString());
+        return name == null ? null : sharedCall(name, assertions.toString(), "response");
+    }
+
+    /**
+     * Method to render the pre-request script and the execution of the request into a method body
+     * @param test
+     * @param collection
+     * @param latency true to record the request with the latency recorder
+     * @param constants constant header maps and auth specifications of the class
+     * @param variables receives the names of the variables the request references
+     * @param out
+     */
+    private void renderRequest(TestCase test, ParsedCollection collection, boolean latency, Constants constants,
+            List<String> variables, StringBuilder out) {
         // Write pre-request script execution
         for (ScriptCommand cmd : test.preRequestScript) {
             if ("SET_ENV".equals(cmd.type)) {
-                writer.write("        environment.put(\"" + cmd.key + "\", " + cmd.value + ");\n");
+                out.append("        environment.put(\"" + cmd.key + "\", " + cmd.value + ");\n");
             }
         }
 
         // Write request execution
-        writer.write("        RequestSpecification spec = given(requestSpec)\n");
-        writer.write("            .headers(" + generateMap(test.headers) + ");\n\n");
+        emitter.renderRequest(test, new RenderContext(collection, constants, variables), latency, out);
+    }
 
-        if (test.body != null) {
+    /**
+     * Parts of a conversion the emitter renders against, resolving variables against the collection
+     * and naming the constants of the class
+     */
+    private class RenderContext implements Emitter.Context {
+        private final ParsedCollection collection;
+        private final Constants constants;
+        /**
+         * Receives the names of the variables the rendered request references
+         */
+        private final List<String> variables;
 
-            // Escape quotes and newlines in the JSON body
-            String escapedBody = test.body.replace("\"", "\\\"")
-                    .replace("\n", "\\n")
-                    .replace("\r", "\\r");
-            Matcher bodyVarMatcher = Patterns.VARIABLE.matcher(escapedBody);
-            while (bodyVarMatcher.find()) {
-                String variableName = bodyVarMatcher.group().substring(2, bodyVarMatcher.group().length() - 2);
-                escapedBody = escapedBody.replace(bodyVarMatcher.group(),
-                        "\" + collectionVariables.get(\"" + variableName + "\") + \"");
-            }
-            writer.write("        spec.body(\"" + escapedBody + "\");\n\n");
+        RenderContext(ParsedCollection collection, Constants constants, List<String> variables) {
+            this.collection = collection;
+            this.constants = constants;
+            this.variables = variables;
         }
-        Matcher urlVarMatcher = Patterns.VARIABLE.matcher(test.url);
-        while (urlVarMatcher.find()) {
-            String variableName = urlVarMatcher.group().substring(2, urlVarMatcher.group().length() - 2);
-            test.url = test.url.replace(urlVarMatcher.group(),
-                    "\" + collectionVariables.get(\"" + variableName + "\") + \"");
+
+        @Override
+        public String resolve(String template) {
+            Template compiled = Template.compile(template);
+            variables.addAll(compiled.getVariables());
+            return resolveTemplate(compiled, collection);
         }
-        writer.write(
-                "        Response response = spec.when()." + test.method.toLowerCase() + "(\"" + test.url + "\");\n\n");
 
-        // Write assertions
-        if (!test.testScript.isEmpty()) {
-            writer.write("\n        // Test script:\n");
-            writer.write("        /*\n");
-            for (Assertion assertion : test.testScript) {
-                writer.write("        " + assertion.originalScript + "\n");
-            }
-            writer.write("        */\n\n");
-        }
-
-        for (Assertion assertion : test.testScript) {
-            switch (assertion.matcher) {
-                case "equal":
-                    // Extract JSON path from the actual value (remove jsonData prefix)
-                    String jsonPath = assertion.actual.replace("jsonData.", "");
-                    // Unescape quotes in the expected value
-                    String unescapedExpected = assertion.expected.replace("\\\"", "\"");
-                    Matcher envVarGetMatcher = Patterns.GET_PART.matcher(unescapedExpected);
-                    //TODO if there is anything besides a string in here we won't replace it nicely
-                    while (envVarGetMatcher.find()) {
-                        Matcher varNameMatcher = Patterns.QUOTE.matcher(unescapedExpected);
-
-                        String variableName = "";
-                        if(varNameMatcher.find()){
-                            variableName = varNameMatcher.group(1);
-                        }
-                        unescapedExpected = unescapedExpected.replace(envVarGetMatcher.group(),
-                                "collectionVariables.get(\"" + variableName + "\")");
-                    }                    
-                    
-                    //TODO: Fix conditioIf the expected value contains pm. we will just put it in a string since we have a bracket matchin issue.
-                    if(unescapedExpected.contains("pm.")) {
-                        //unescapedExpected = "\"/*" + assertion.expected + "*/\"";
-                        unescapedExpected = unescapedExpected.replace("pm\\.(environment|globals|collectionVariables)", "x") ;
-                    }
-                    writer.write("        response.then().body(\"" + jsonPath + "\", equalTo(" + unescapedExpected
-                            + "));\n");
-                    break;
-                case "contain":
-                    String containPath = assertion.actual.replace("jsonData.", "");
-                    String unescapedContainExpected = assertion.expected.replace("\\\"", "\"");
-                    writer.write("        response.then().body(\"" + containPath + "\", containsString("
-                            + unescapedContainExpected + "));\n");
-                    break;
-                case "have.status":
-                    writer.write("        response.then().statusCode(" + assertion.expected + ");\n");
-                    break;
-                case "contentType":
-                    writer.write("        response.then().contentType(" + assertion.expected + ");\n");
-                    break;
+        @Override
+        public String bodyResource(TestCase test) {
+            if (!externalized(test.body)) {
+                return null;
             }
+            variables.addAll(Template.compile(test.body).getVariables());
+            return resolveBodyResource(test, collection);
+        }
+
+        @Override
+        public String constantHeaders(TestCase test) {
+            String headers = PostmanToRestAssuredGenerator.this.constantHeaders(test.headers, collection);
+            return headers == null ? null : constants.headers.name(headers);
         }
 
-        writer.write("    }\n\n");
+        @Override
+        public String constantAuth(TestCase test) {
+            String auth = PostmanToRestAssuredGenerator.this.constantAuth(test.auth, collection);
+            return auth == null ? null : constants.auth.name(auth);
+        }
     }
 
     /**
-     * Method to generate a map of headers
+     * Method to generate the constant of the headers that do not depend on variables, sorted by name
+     * so equal header sets give the same expression
      * @param map
-     * @return
+     * @param collection
+     * @return the expression, or null when no header is constant
      */
-    private String generateMap(Map<String, String> map) {
-        StringBuilder sb = new StringBuilder("new HashMap<String, String>() {{\n");
+    String constantHeaders(Map<String, String> map, ParsedCollection collection) {
+        SortedMap<String, String> headers = new TreeMap<>();
         for (Map.Entry<String, String> entry : map.entrySet()) {
-            String headerValue = "\"" + entry.getValue() + "\"";
-            Matcher matcher = Patterns.VARIABLE.matcher(entry.getValue());
-            while (matcher.find()) {
-                // log find
-                logger.info("Variable found in header: " + entry.getValue());
-                // resolve variable
-                String variableName = matcher.group().substring(2, matcher.group().length() - 2);
-                // logger.info("Variable name: " + variableName);
-                if (!collectionVariables.stream().anyMatch(v -> v.key.equals(variableName))) {
-                    //TODO: add comment to the generated code to indicate that the variable is not found in the collection variables list
-                    logger.warn(
-                            "Variable {} not found in collection variables. Adding it to the collection variables list with an empty value",
-                            variableName);
-                    collectionVariables.add(new CollectionVariable(variableName, ""));
-                }
-                if (entry.getValue() == matcher.group()) {
-                    headerValue = entry.getValue().replace(matcher.group(),
-                            "collectionVariables.get(\"" + variableName + "\")");
-                    logger.info("Resolved variable: " + headerValue);
-                } else {
-                    headerValue = "\"" + entry.getValue().replace(matcher.group(),
-                            "\" + collectionVariables.get(\"" + variableName + "\") + \"") + "\"";
-                    logger.info("Variable {} is a part of an aggregate string: {}", variableName, entry.getValue());
-                }
-
+            Template value = Template.compile(entry.getValue());
+            if (value.isConstant()) {
+                headers.put(entry.getKey(), resolveTemplate(value, collection));
             }
-            sb.append("            put(\"").append(entry.getKey()).append("\", ").append(headerValue).append(");\n");
         }
-        sb.append("        }}");
-        return sb.toString();
+        return headers.isEmpty() ? null : emitter.headers(headers);
+    }
+
+    /**
+     * Method to generate the constant of an auth that does not depend on variables
+     * @param auth
+     * @param collection
+     * @return the expression, or null when there is no auth or it depends on variables
+     */
+    private String constantAuth(Auth auth, ParsedCollection collection) {
+        if (auth == null || !auth.parameters.values().stream().allMatch(value -> Template.compile(value).isConstant())) {
+            return null;
+        }
+        return emitter.auth(auth, new RenderContext(collection, null, new ArrayList<>()));
     }
 
     /**
-     * Class to represent a test case
+     * Method to declare a variable referenced by a request, adding it with an empty value and
+     * counting it as unresolved when the collection does not declare it
+     * @param variableName
+     * @param collection
      */
-    private static class TestCase {
-        String name;
-        String method;
-        String url;
-        String body;
-        Map<String, String> headers = new HashMap<>();
-        List<ScriptCommand> preRequestScript = new ArrayList<>();
-        List<Assertion> testScript = new ArrayList<>();
+    private void declare(String variableName, ParsedCollection collection) {
+        if (collection.symbols.declareIfAbsent(variableName)) {
+            metrics.addUnresolvedVariable();
+            //TODO: add comment to the generated code to indicate that the variable is not found in the collection variables list
+            logger.warn(
+                    "Variable {} not found in collection variables. Adding it to the collection variables list with an empty value",
+                    variableName);
+        }
     }
 
     /**
-     * Class to represent a test case
+     * Method to resolve the variables of a template against the collection variables and emit the
+     * Java expression evaluating it. Variables that are not declared are added with an empty value
+     * @param template
+     * @param collection
+     * @return
      */
-    private static class ScriptCommand {
-        String type;
-        String key;
-        String value;
-        String originalScript;
+    private String resolveTemplate(Template template, ParsedCollection collection) {
+        long start = System.nanoTime();
+        for (String variableName : template.getVariables()) {
+            declare(variableName, collection);
+        }
+        String expression = template.toJavaExpression(PostmanToRestAssuredGenerator::variableLookup);
+        if (logger.isDebugEnabled() && !template.isConstant()) {
+            logger.debug("Resolved {} to {}", template.getVariables(), expression);
+        }
+        metrics.addTime(GenerationMetrics.Phase.RESOLVE, GenerationMetrics.since(start));
+        return expression;
     }
 
     /**
-     * Class to represent a script command
+     * Method to check if a request body is written to a resource instead of being inlined
+     * @param body
+     * @return
      */
-    private static class Assertion {
-        String type; // "expect" or "test"
-        String actual;
-        String matcher;
-        String expected;
-        String description; // for pm.test assertions
-        String originalScript; // original Postman script
+    private boolean externalized(String body) {
+        if (body == null || body.length() <= bodyResourceThreshold / 3) {
+            // a char takes at most three bytes in UTF-8
+            return false;
+        }
+        long bytes = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        return bytes > bodyResourceThreshold;
+    }
+
+    private boolean hasExternalizedBody(ParsedCollection collection) {
+        for (TestCase test : collection.testCases) {
+            if (externalized(test.body)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Class to represent a variable
+     * Method to get the resource name of an externalized request body
+     * @param test
+     * @return
      */
-    private static class Variable {
-        String key;
-        String value;
-        String type;
+    private String bodyResourceName(TestCase test) {
+        String packagePath = outputPackage.isEmpty() ? "" : outputPackage.replace('.', '/') + "/";
+        return packagePath + outputClassName + "/" + test.name.replaceAll("[^a-zA-Z0-9]", "_") + ".body";
+    }
 
-        Variable(String key, String value, String type) {
-            this.key = key;
-            this.value = value;
-            this.type = type;
+    /**
+     * Method to get the content of the resource of an externalized body, the literal text without the variables
+     * @param body
+     * @return
+     */
+    private static String bodyResource(String body) {
+        Template template = Template.compile(body);
+        if (template.isConstant()) {
+            return body;
         }
+        StringBuilder literal = new StringBuilder(body.length());
+        for (Template.Segment segment : template.getSegments()) {
+            if (!segment.isVariable()) {
+                literal.append(segment.getText());
+            }
+        }
+        return literal.toString();
     }
 
     /**
-     * Class to represent a collection variable
+     * Method to emit the expression opening an externalized body. The variables are passed with their
+     * byte offsets into the resource and substituted when the body is streamed
+     * @param test
+     * @param collection
+     * @return
      */
-    private static class CollectionVariable extends Variable {
-        CollectionVariable(String key, String value) {
-            super(key, value, "Collection");
+    private String resolveBodyResource(TestCase test, ParsedCollection collection) {
+        long start = System.nanoTime();
+        Template template = Template.compile(test.body);
+        // split classes and the load driver load the resource through the base class, which always exists
+        String owner = outputClassName + (split() ? "Base" : "");
+        String expression = "BodyResource.open(" + owner + ".class, " + Template.javaString(bodyResourceName(test));
+        if (!template.isConstant()) {
+            StringBuilder offsets = new StringBuilder();
+            StringBuilder names = new StringBuilder();
+            long offset = 0;
+            for (Template.Segment segment : template.getSegments()) {
+                if (segment.isVariable()) {
+                    declare(segment.getText(), collection);
+                    offsets.append(offsets.length() == 0 ? "" : ", ").append(offset).append('L');
+                    names.append(names.length() == 0 ? "" : ", ").append(Template.javaString(segment.getText()));
+                } else {
+                    offset += segment.getText().getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+            expression += ", collectionVariables, new long[] {" + offsets + "}, new String[] {" + names + "}";
         }
+        metrics.addTime(GenerationMetrics.Phase.RESOLVE, GenerationMetrics.since(start));
+        return expression + ")";
+    }
+
+    /**
+     * Method to emit the lookup of a collection variable in the generated code
+     * @param variableName
+     * @return
+     */
+    private static String variableLookup(String variableName) {
+        return "collectionVariables.get(" + Template.javaString(variableName) + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of rendered test method source, keyed by a hash of the collection item the
+ * method was rendered from. The variables the method references are stored next to its source,
+ * so that a cached method declares its unresolved variables like a rendered one. The cache is
+ * tied to a fingerprint of the generator settings, a cache written with different settings is
+ * discarded as a whole.
+ */
+public class RenderCache {
+    /**
+     * Logger to log messages about the cache
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RenderCache.class);
+    /**
+     * Magic number at the start of a cache file
+     */
+    private static final int MAGIC = 0x50325243;
+    /**
+     * Version of the cache file layout
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Rendered source of a test method and the variables it references
+     */
+    public static class Entry {
+        final String source;
+        /**
+         * Names of the variables the method references, in order of appearance
+         */
+        final List<String> variables;
+
+        public Entry(String source, List<String> variables) {
+            this.source = source;
+            this.variables = variables;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public List<String> getVariables() {
+            return variables;
+        }
+    }
+
+    /**
+     * File the cache is stored in
+     */
+    private final Path file;
+    /**
+     * Fingerprint of the settings the cached source was rendered with
+     */
+    private final String settingsHash;
+    /**
+     * Entries read from disk
+     */
+    private final Map<String, Entry> previous;
+    /**
+     * Entries used by the current generation, only these are written back
+     */
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    /**
+     * Flag set when a lookup was not found in the cache
+     */
+    private volatile boolean missed = false;
+
+    private RenderCache(Path file, String settingsHash, Map<String, Entry> previous) {
+        this.file = file;
+        this.settingsHash = settingsHash;
+        this.previous = previous;
+    }
+
+    /**
+     * Method to load a cache, a missing, unreadable or outdated cache file gives an empty cache
+     * @param file
+     * @param settings
+     * @return
+     */
+    public static RenderCache load(Path file, String settings) {
+        String settingsHash = hash(settings);
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && settingsHash.equals(in.readUTF())) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String key = in.readUTF();
+                        byte[] source = new byte[in.readInt()];
+                        in.readFully(source);
+                        List<String> variables = new ArrayList<>();
+                        for (int variable = in.readInt(); variable > 0; variable--) {
+                            variables.add(in.readUTF());
+                        }
+                        entries.put(key, new Entry(new String(source, StandardCharsets.UTF_8), variables));
+                    }
+                } else {
+                    logger.info("Render cache {} was written with other settings, ignoring it", file);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read render cache {}: {}", file, e.getMessage());
+                entries.clear();
+            }
+        }
+        return new RenderCache(file, settingsHash, entries);
+    }
+
+    /**
+     * Method to get the cached entry for a key
+     * @param key
+     * @return the cached entry or null
+     */
+    public Entry get(String key) {
+        Entry entry = previous.get(key);
+        if (entry == null) {
+            missed = true;
+        } else {
+            current.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Method to store rendered source and the variables it references for a key
+     * @param key
+     * @param source
+     * @param variables
+     */
+    public void put(String key, String source, List<String> variables) {
+        current.put(key, new Entry(source, variables));
+    }
+
+    /**
+     * Method to write the entries used by this generation back to disk. Entries of items that no
+     * longer exist are dropped, and nothing is written when every lookup was a hit
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if (!missed && current.size() == previous.size()) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(settingsHash);
+            out.writeInt(current.size());
+            for (Map.Entry<String, Entry> entry : current.entrySet()) {
+                byte[] source = entry.getValue().source.getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(entry.getKey());
+                out.writeInt(source.length);
+                out.write(source);
+                out.writeInt(entry.getValue().variables.size());
+                for (String variable : entry.getValue().variables) {
+                    out.writeUTF(variable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to hash a sequence of strings with SHA-256
+     * @param parts
+     * @return the hash as a hex string
+     */
+    public static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                // length prefix so that ("ab", "c") and ("a", "bc") hash differently
+                digest.update(lengthPrefix(bytes.length));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Method to encode a length as four big-endian bytes
+     * @param length
+     * @return
+     */
+    private static byte[] lengthPrefix(int length) {
+        return new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length };
+    }
+}
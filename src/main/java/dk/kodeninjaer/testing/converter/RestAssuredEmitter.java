@@ -0,0 +1,201 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Emitter of RestAssured tests with Hamcrest assertions, the default backend. Every request is
+ * given the request specification of the class holding the base URI
+ */
+public class RestAssuredEmitter implements Emitter {
+    public static final String NAME = "restassured";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<String> imports() {
+        return List.of("io.restassured.builder.RequestSpecBuilder", "io.restassured.response.Response",
+                "io.restassured.specification.RequestSpecification");
+    }
+
+    @Override
+    public List<String> staticImports() {
+        return List.of("io.restassured.RestAssured.given", "org.hamcrest.Matchers.*");
+    }
+
+    @Override
+    public String clientType() {
+        return "RequestSpecification";
+    }
+
+    @Override
+    public String clientField() {
+        return "requestSpec";
+    }
+
+    @Override
+    public String client(String baseUrl) {
+        return "new RequestSpecBuilder()\n"
+                + "            .setBaseUri(" + Template.javaString(baseUrl) + ")\n"
+                + "            .build()";
+    }
+
+    @Override
+    public String responseType() {
+        return "Response";
+    }
+
+    @Override
+    public String headersType() {
+        return "Map<String, String>";
+    }
+
+    @Override
+    public String headers(SortedMap<String, String> headers) {
+        List<String> entries = new ArrayList<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            entries.add(Template.javaString(header.getKey()) + ", " + header.getValue());
+        }
+        if (entries.isEmpty()) {
+            return null;
+        }
+        if (entries.size() <= 10) {
+            return "Map.of(" + String.join(", ", entries) + ")";
+        }
+        // Map.of takes at most ten entries
+        return entries.stream().map(entry -> "Map.entry(" + entry + ")")
+                .collect(Collectors.joining(",\n            ", "Map.ofEntries(\n            ", ")"));
+    }
+
+    @Override
+    public String authType() {
+        return "RequestSpecification";
+    }
+
+    @Override
+    public String auth(Auth auth, Context context) {
+        StringBuilder spec = new StringBuilder("new RequestSpecBuilder()");
+        for (String call : authCalls(auth, context, true)) {
+            spec.append("\n            ").append(call);
+        }
+        return spec.append("\n            .build()").toString();
+    }
+
+    @Override
+    public void renderRequest(TestCase test, Context context, boolean latency, StringBuilder out) {
+        // Constant headers and auth come from the constants of the class, only the parts
+        // depending on variables are evaluated per request
+        out.append("        RequestSpecification spec = given(requestSpec)");
+        if (latency) {
+            out.append("\n            .filter(latencyRecorder.filter(" + Template.javaString(test.name) + "))");
+        }
+        String auth = context.constantAuth(test);
+        if (auth != null) {
+            out.append("\n            .spec(" + auth + ")");
+        } else if (test.auth != null) {
+            for (String call : authCalls(test.auth, context, false)) {
+                out.append("\n            ").append(call);
+            }
+        }
+        String headers = context.constantHeaders(test);
+        if (headers != null) {
+            out.append("\n            .headers(" + headers + ")");
+        }
+        for (Map.Entry<String, String> header : new TreeMap<>(test.headers).entrySet()) {
+            if (!Template.compile(header.getValue()).isConstant()) {
+                out.append("\n            .header(" + Template.javaString(header.getKey()) + ", "
+                        + context.resolve(header.getValue()) + ")");
+            }
+        }
+        out.append(";\n\n");
+
+        String bodyResource = context.bodyResource(test);
+        if (bodyResource != null) {
+            out.append("        spec.body(" + bodyResource + ");\n\n");
+        } else if (test.body != null) {
+            out.append("        spec.body(" + context.resolve(test.body) + ");\n\n");
+        }
+        String url = context.resolve(test.url);
+        out.append(
+                "        Response response = spec.when()." + test.method.toLowerCase() + "(" + url + ");\n\n");
+    }
+
+    @Override
+    public void renderAssertions(TestCase test, StringBuilder out) {
+        for (Assertion assertion : test.testScript) {
+            switch (assertion.matcher) {
+                case "equal":
+                    out.append("        response.then().body(\"" + PostmanToRestAssuredGenerator.jsonPath(assertion)
+                            + "\", equalTo(" + PostmanToRestAssuredGenerator.expectedValue(assertion) + "));\n");
+                    break;
+                case "contain":
+                    String unescapedContainExpected = assertion.expected.replace("\\\"", "\"");
+                    out.append("        response.then().body(\"" + PostmanToRestAssuredGenerator.jsonPath(assertion)
+                            + "\", containsString(" + unescapedContainExpected + "));\n");
+                    break;
+                case "have.status":
+                    out.append("        response.then().statusCode(" + assertion.expected + ");\n");
+                    break;
+                case "contentType":
+                    out.append("        response.then().contentType(" + assertion.expected + ");\n");
+                    break;
+                case "responseTime.below":
+                case "responseTime.atMost":
+                    String bound = PostmanToRestAssuredGenerator.responseTimeBound(assertion.expected);
+                    if (bound != null) {
+                        String matcher = "responseTime.below".equals(assertion.matcher) ? "lessThan" : "lessThanOrEqualTo";
+                        out.append("        response.then().time(" + matcher + "(" + bound + "));\n");
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Method to render the calls adding an auth to a request. Basic credentials are encoded when
+     * the class is generated if they are constant, and by RestAssured otherwise
+     * @param auth
+     * @param context
+     * @param builder true for the calls of a RequestSpecBuilder, false for the calls of a RequestSpecification
+     * @return
+     */
+    private static List<String> authCalls(Auth auth, Context context, boolean builder) {
+        String header = builder ? ".addHeader(" : ".header(";
+        String query = builder ? ".addQueryParam(" : ".queryParam(";
+        switch (auth.type) {
+            case "bearer":
+                return List.of(header + "\"Authorization\", " + context.resolve("Bearer " + auth.get("token", "")) + ")");
+            case "oauth2":
+                String token = auth.get("accessToken", "");
+                if ("queryParams".equals(auth.get("addTokenTo", "header"))) {
+                    return List.of(query + "\"access_token\", " + context.resolve(token) + ")");
+                }
+                return List.of(header + "\"Authorization\", "
+                        + context.resolve(auth.get("headerPrefix", "Bearer") + " " + token) + ")");
+            case "apikey":
+                return List.of(("query".equals(auth.get("in", "header")) ? query : header)
+                        + context.resolve(auth.get("key", "")) + ", " + context.resolve(auth.get("value", "")) + ")");
+            case "basic":
+                String username = auth.get("username", "");
+                String password = auth.get("password", "");
+                if (builder) {
+                    String credentials = Base64.getEncoder().encodeToString(
+                            (username + ":" + password).getBytes(StandardCharsets.UTF_8));
+                    return List.of(header + "\"Authorization\", " + Template.javaString("Basic " + credentials) + ")");
+                }
+                return List.of(".auth().preemptive().basic(" + context.resolve(username) + ", "
+                        + context.resolve(password) + ")");
+            default:
+                return List.of();
+        }
+    }
+}
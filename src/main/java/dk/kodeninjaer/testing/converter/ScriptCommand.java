@@ -0,0 +1,27 @@
+package dk.kodeninjaer.testing.converter;
+
+/**
+ * Class to represent a command of a pre-request script
+ */
+public class ScriptCommand {
+    String type;
+    String key;
+    String value;
+    String originalScript;
+
+    public String getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getOriginalScript() {
+        return originalScript;
+    }
+}
@@ -0,0 +1,438 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Single-pass lexer for the <code>pm.*</code> subset of Postman scripts. The script is scanned
+ * once from left to right, string literals and comments are skipped and brackets are tracked on a
+ * stack, so the time taken is linear in the length of the script. Nested calls, such as a getter
+ * inside an expectation inside a <code>pm.test</code> block, are all recognised in the same pass.
+ * It is a utility class and should not be instantiated.
+ */
+public final class ScriptLexer {
+    private ScriptLexer() {
+    }
+
+    /**
+     * Kind of a recognised call
+     */
+    public enum Kind {
+        /** pm.&lt;scope&gt;.set("key", value) */
+        SET,
+        /** pm.&lt;scope&gt;.get("key") */
+        GET,
+        /** pm.expect(actual).to.&lt;matcher&gt;(expected) */
+        EXPECT,
+        /** pm.test("description", function () { ... }) */
+        TEST,
+        /** pm.response.to.have.status(code) */
+        STATUS,
+        /** pm.response.to.be.json */
+        JSON
+    }
+
+    /**
+     * Class to represent a recognised call. Only the fields relevant for the kind are set
+     */
+    public static class Call {
+        Kind kind;
+        /** variable scope of SET and GET, e.g. environment */
+        String scope;
+        /** variable name of SET and GET */
+        String key;
+        /** value expression of SET */
+        String value;
+        /** actual expression of EXPECT */
+        String actual;
+        /** matcher of EXPECT without the leading "to.", e.g. equal or be.below */
+        String matcher;
+        /** expected expression of EXPECT, or the status code of STATUS */
+        String expected;
+        /** description of TEST */
+        String description;
+        /** the enclosing pm.test call, or null */
+        Call test;
+        /** offset of the first character of the call in the script */
+        int start;
+        /** offset after the last character of the call in the script */
+        int end;
+        /** the source text of the call */
+        String source;
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getActual() {
+            return actual;
+        }
+
+        public String getMatcher() {
+            return matcher;
+        }
+
+        public String getExpected() {
+            return expected;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Call getTest() {
+            return test;
+        }
+
+        public String getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * Method to lex a script into the recognised calls, in the order they start in the script
+     * @param script
+     * @return
+     */
+    public static List<Call> lex(String script) {
+        return new Scanner(script).scan();
+    }
+
+    /**
+     * Method to replace every variable getter in an expression
+     * @param expression
+     * @param replacement function giving the replacement text of a GET call
+     * @return
+     */
+    public static String replaceGets(String expression, Function<Call, String> replacement) {
+        StringBuilder sb = new StringBuilder();
+        int last = 0;
+        for (Call call : lex(expression)) {
+            // nested getters are part of the replaced outer getter
+            if (call.kind == Kind.GET && call.start >= last) {
+                sb.append(expression, last, call.start).append(replacement.apply(call));
+                last = call.end;
+            }
+        }
+        return sb.append(expression, last, expression.length()).toString();
+    }
+
+    /**
+     * Method to get the content of a string literal
+     * @param text
+     * @return the unescaped content, or null if the text is not a single string literal
+     */
+    static String stringLiteral(String text) {
+        String trimmed = text.trim();
+        if (trimmed.length() < 2) {
+            return null;
+        }
+        char quote = trimmed.charAt(0);
+        if ((quote != '"' && quote != '\'' && quote != '`') || trimmed.charAt(trimmed.length() - 1) != quote) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < trimmed.length() - 1; i++) {
+            char c = trimmed.charAt(i);
+            if (c == quote) {
+                return null;
+            }
+            if (c == '\\' && i + 1 < trimmed.length() - 1) {
+                c = trimmed.charAt(++i);
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    default: break;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Open bracket on the scanner stack
+     */
+    private static class Frame {
+        /** the bracket that opened the frame */
+        final char open;
+        /** the call being collected, null for plain brackets */
+        final Call call;
+        /** member chain of the call, e.g. pm.environment.set */
+        final String chain;
+        /** true when the frame holds the matcher arguments of an expectation */
+        final boolean matcherArguments;
+        /** offset of the first argument character */
+        final int argStart;
+        /** offset of the first top level comma, or -1 */
+        int firstComma = -1;
+
+        Frame(char open, Call call, String chain, boolean matcherArguments, int argStart) {
+            this.open = open;
+            this.call = call;
+            this.chain = chain;
+            this.matcherArguments = matcherArguments;
+            this.argStart = argStart;
+        }
+    }
+
+    /**
+     * The single pass scanner
+     */
+    private static class Scanner {
+        private final String src;
+        private final int length;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        /** number of open frames per bracket, indexed by {@link #bracket(char)} */
+        private final int[] open = new int[3];
+        /** enclosing pm.test calls, innermost first */
+        private final Deque<Call> tests = new ArrayDeque<>();
+        /** calls in order of their start, placeholders are completed when their bracket closes */
+        private final List<Call> calls = new ArrayList<>();
+
+        Scanner(String src) {
+            this.src = src;
+            this.length = src.length();
+        }
+
+        List<Call> scan() {
+            int i = 0;
+            while (i < length) {
+                char c = src.charAt(i);
+                if (c == '"' || c == '\'' || c == '`') {
+                    i = skipString(i);
+                } else if (c == '/' && i + 1 < length && src.charAt(i + 1) == '/') {
+                    int newline = src.indexOf('\n', i);
+                    i = newline < 0 ? length : newline + 1;
+                } else if (c == '/' && i + 1 < length && src.charAt(i + 1) == '*') {
+                    int close = src.indexOf("*/", i + 2);
+                    i = close < 0 ? length : close + 2;
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    i = identifier(i);
+                } else if (c == '(' || c == '{' || c == '[') {
+                    push(new Frame(c, null, null, false, i + 1));
+                    i++;
+                } else if (c == ')' || c == '}' || c == ']') {
+                    i = close(c, i);
+                } else {
+                    if (c == ',' && !stack.isEmpty() && stack.peek().firstComma < 0) {
+                        stack.peek().firstComma = i;
+                    }
+                    i++;
+                }
+            }
+            List<Call> complete = new ArrayList<>(calls.size());
+            for (Call call : calls) {
+                if (call.kind != null) {
+                    complete.add(call);
+                }
+            }
+            return complete;
+        }
+
+        /**
+         * Read an identifier chain such as pm.environment.set and open a call frame if it is a pm call
+         */
+        private int identifier(int start) {
+            int i = readChain(start);
+            boolean standalone = start == 0
+                    || (src.charAt(start - 1) != '.' && !Character.isJavaIdentifierPart(src.charAt(start - 1)));
+            if (!standalone || !src.startsWith("pm.", start)) {
+                return i;
+            }
+            String chain = src.substring(start, i);
+            int paren = skipWhitespace(i);
+            if (paren < length && src.charAt(paren) == '(') {
+                Call call = new Call();
+                call.start = start;
+                call.test = tests.peek();
+                calls.add(call);
+                if ("pm.test".equals(chain)) {
+                    tests.push(call);
+                }
+                push(new Frame('(', call, chain, false, paren + 1));
+                return paren + 1;
+            }
+            if ("pm.response.to.be.json".equals(chain)) {
+                Call call = new Call();
+                call.kind = Kind.JSON;
+                call.start = start;
+                call.end = i;
+                call.source = chain;
+                call.test = tests.peek();
+                calls.add(call);
+            }
+            return i;
+        }
+
+        /**
+         * Close the innermost frame opened with the bracket matching the closer
+         */
+        private int close(char closer, int i) {
+            char opener = closer == ')' ? '(' : closer == '}' ? '{' : '[';
+            if (open[bracket(opener)] == 0) {
+                // unbalanced closer, ignore it
+                return i + 1;
+            }
+            Frame frame;
+            do {
+                frame = stack.pop();
+                open[bracket(frame.open)]--;
+                if (frame.call != null && tests.peek() == frame.call) {
+                    tests.pop();
+                }
+            } while (frame.open != opener);
+            if (frame.call == null) {
+                return i + 1;
+            }
+            return complete(frame, i + 1);
+        }
+
+        /**
+         * Complete the call of a closed frame
+         * @return the offset to continue scanning from
+         */
+        private int complete(Frame frame, int end) {
+            Call call = frame.call;
+            String args = src.substring(frame.argStart, end - 1);
+            String first = frame.firstComma < 0 ? args : src.substring(frame.argStart, frame.firstComma);
+            String rest = frame.firstComma < 0 ? null : src.substring(frame.firstComma + 1, end - 1).trim();
+
+            if (frame.matcherArguments) {
+                call.kind = Kind.EXPECT;
+                call.expected = args.trim();
+                return finish(call, end);
+            }
+            String chain = frame.chain;
+            if ("pm.expect".equals(chain)) {
+                // look for the .to.<matcher> continuation of the expectation
+                if (end < length && src.charAt(end) == '.') {
+                    int chainEnd = readChain(end + 1);
+                    String continuation = src.substring(end + 1, chainEnd);
+                    if (continuation.startsWith("to.")) {
+                        call.actual = args.trim();
+                        call.matcher = continuation.substring(3);
+                        int paren = skipWhitespace(chainEnd);
+                        if (paren < length && src.charAt(paren) == '(') {
+                            push(new Frame('(', call, chain, true, paren + 1));
+                            return paren + 1;
+                        }
+                        call.kind = Kind.EXPECT;
+                        return finish(call, chainEnd);
+                    }
+                }
+                return end;
+            }
+            if ("pm.test".equals(chain)) {
+                call.kind = Kind.TEST;
+                call.description = stringLiteral(first);
+                call.value = rest;
+                return finish(call, end);
+            }
+            if ("pm.response.to.have.status".equals(chain)) {
+                call.kind = Kind.STATUS;
+                call.expected = args.trim();
+                return finish(call, end);
+            }
+            int dot = chain.lastIndexOf('.');
+            String scope = chain.substring(3, Math.max(3, dot));
+            String method = chain.substring(dot + 1);
+            if (isScope(scope) && ("set".equals(method) || "get".equals(method))) {
+                String key = stringLiteral(first);
+                if (key != null && ("get".equals(method) || rest != null)) {
+                    call.kind = "set".equals(method) ? Kind.SET : Kind.GET;
+                    call.scope = scope;
+                    call.key = key;
+                    call.value = rest;
+                    return finish(call, end);
+                }
+            }
+            return end;
+        }
+
+        private void push(Frame frame) {
+            stack.push(frame);
+            open[bracket(frame.open)]++;
+        }
+
+        private static int bracket(char opener) {
+            return opener == '(' ? 0 : opener == '{' ? 1 : 2;
+        }
+
+        private int finish(Call call, int end) {
+            call.end = end;
+            call.source = src.substring(call.start, end);
+            return end;
+        }
+
+        private static boolean isScope(String scope) {
+            return "environment".equals(scope) || "globals".equals(scope) || "collectionVariables".equals(scope)
+                    || "variables".equals(scope) || "iterationData".equals(scope);
+        }
+
+        /**
+         * Read identifiers separated by dots, without whitespace
+         */
+        private int readChain(int i) {
+            while (i < length) {
+                if (!Character.isJavaIdentifierStart(src.charAt(i))) {
+                    return i;
+                }
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(src.charAt(i))) {
+                    i++;
+                }
+                if (i + 1 < length && src.charAt(i) == '.' && Character.isJavaIdentifierStart(src.charAt(i + 1))) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+            return i;
+        }
+
+        private int skipWhitespace(int i) {
+            while (i < length && Character.isWhitespace(src.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Skip a string literal, returning the offset after the closing quote
+         */
+        private int skipString(int i) {
+            char quote = src.charAt(i++);
+            while (i < length) {
+                char c = src.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                } else if (c == quote) {
+                    return i + 1;
+                } else if (c == '\n' && quote != '`') {
+                    // unterminated literal, resume on the next line
+                    return i;
+                } else {
+                    i++;
+                }
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dk.kodeninjaer.testing.converter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Planner dividing the requests of a collection into shards of about the same running time, so
+ * the shards of a suite run on several CI nodes finish together. The running time of a request is
+ * taken from the JUnit XML reports of a previous run. Requests depending on each other form one
+ * unit that is never divided, and the units are packed with the greedy longest processing time
+ * rule: the longest unit first, each to the shard with the least time so far.
+ */
+public class ShardPlanner {
+    private static final XMLInputFactory factory = XMLInputFactory.newFactory();
+
+    private ShardPlanner() {
+    }
+
+    /**
+     * Method to read the running time of every test method from JUnit XML reports, such as the
+     * <code>TEST-*.xml</code> files Gradle and Maven write. The time of a method reported more than
+     * once, e.g. by parameterized tests, is the sum of its reports
+     * @param path a report file, or a directory whose .xml files are read
+     * @return the seconds per test class and method name without the parameter list, keyed as
+     * <code>classname#method</code>
+     * @throws IOException
+     */
+    public static Map<String, Double> readTimings(Path path) throws IOException {
+        List<Path> reports;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                reports = files.filter(file -> file.getFileName().toString().endsWith(".xml"))
+                        .sorted().collect(Collectors.toList());
+            }
+        } else {
+            reports = List.of(path);
+        }
+        Map<String, Double> timings = new HashMap<>();
+        for (Path report : reports) {
+            try (InputStream in = Files.newInputStream(report)) {
+                XMLStreamReader reader = factory.createXMLStreamReader(in);
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("testcase")) {
+                        String className = reader.getAttributeValue(null, "classname");
+                        String name = reader.getAttributeValue(null, "name");
+                        String time = reader.getAttributeValue(null, "time");
+                        if (name != null && time != null) {
+                            int parameters = name.indexOf('(');
+                            timings.merge((className == null ? "" : className) + "#"
+                                    + (parameters < 0 ? name : name.substring(0, parameters)),
+                                    Double.parseDouble(time.replace(",", "")), Double::sum);
+                        }
+                    }
+                }
+                reader.close();
+            } catch (XMLStreamException | NumberFormatException e) {
+                throw new IOException("Could not read JUnit report " + report, e);
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Method to get the running time of the requests of a generated test class from the timings of
+     * a previous run. Only the tests of the class, of its split or sharded classes and of their
+     * ordered groups are matched, so requests of the same name in other classes are not mistaken
+     * for them. The groups are numbered by their chain, and with a data file they report one
+     * <code>iteration</code> test running the whole chain, whose time is spread over its requests
+     * @param timings seconds per <code>classname#method</code> as read by {@link #readTimings(Path)}
+     * @param className fully qualified name of the generated class
+     * @param methodNames test method name per request index
+     * @param chains request indexes of each dependency chain, in the order the groups are numbered
+     * @return seconds per request index, -1 for requests without a reported time
+     */
+    public static double[] requestTimes(Map<String, Double> timings, String className, List<String> methodNames,
+            List<List<Integer>> chains) {
+        Pattern generated = Pattern.compile(Pattern.quote(className) + "\\d*(?:\\$OrderedTests(\\d+))?");
+        Map<String, Integer> requests = new HashMap<>();
+        for (int i = 0; i < methodNames.size(); i++) {
+            requests.putIfAbsent(methodNames.get(i), i);
+        }
+        double[] times = new double[methodNames.size()];
+        Arrays.fill(times, -1);
+        double[] chainTimes = new double[chains.size()];
+        for (Map.Entry<String, Double> timing : timings.entrySet()) {
+            int separator = timing.getKey().lastIndexOf('#');
+            Matcher matcher = generated.matcher(timing.getKey().substring(0, separator));
+            if (!matcher.matches()) {
+                continue;
+            }
+            String method = timing.getKey().substring(separator + 1);
+            int group = matcher.group(1) == null ? 0 : Integer.parseInt(matcher.group(1));
+            if (method.equals("iteration") && group >= 1 && group <= chains.size()) {
+                chainTimes[group - 1] += timing.getValue();
+            } else if (requests.containsKey(method)) {
+                int request = requests.get(method);
+                times[request] = Math.max(times[request], 0) + timing.getValue();
+            }
+        }
+        for (int chain = 0; chain < chains.size(); chain++) {
+            if (chainTimes[chain] > 0) {
+                for (int request : chains.get(chain)) {
+                    times[request] = Math.max(times[request], 0) + chainTimes[chain] / chains.get(chain).size();
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Method to pack units of requests into shards with the longest processing time rule. The
+     * largest shard is at most 4/3 of the optimum, and much closer when the units are small compared
+     * to the shards
+     * @param units indexes of the requests of each unit in collection order, a unit is never divided
+     * @param times running time per request index
+     * @param shards number of shards
+     * @return the request indexes of each shard in collection order, a shard may be empty
+     */
+    public static List<List<Integer>> plan(List<List<Integer>> units, double[] times, int shards) {
+        double[] unitTimes = new double[units.size()];
+        List<Integer> order = new ArrayList<>();
+        for (int unit = 0; unit < units.size(); unit++) {
+            unitTimes[unit] = time(units.get(unit), times);
+            order.add(unit);
+        }
+        // longest first, ties in collection order so the plan is the same for the same timings
+        order.sort((a, b) -> {
+            int compare = Double.compare(unitTimes[b], unitTimes[a]);
+            return compare != 0 ? compare : Integer.compare(units.get(a).get(0), units.get(b).get(0));
+        });
+
+        List<List<Integer>> plan = new ArrayList<>();
+        double[] loads = new double[shards];
+        PriorityQueue<Integer> least = new PriorityQueue<>((a, b) -> {
+            int compare = Double.compare(loads[a], loads[b]);
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+        for (int shard = 0; shard < shards; shard++) {
+            plan.add(new ArrayList<>());
+            least.add(shard);
+        }
+        for (int unit : order) {
+            int shard = least.poll();
+            plan.get(shard).addAll(units.get(unit));
+            loads[shard] += unitTimes[unit];
+            least.add(shard);
+        }
+        for (List<Integer> shard : plan) {
+            Collections.sort(shard);
+        }
+        return plan;
+    }
+
+    /**
+     * Method to sum the running time of requests
+     * @param nodes
+     * @param times
+     * @return
+     */
+    public static double time(List<Integer> nodes, double[] times) {
+        double time = 0;
+        for (int node : nodes) {
+            time += times[node];
+        }
+        return time;
+    }
+}
@@ -0,0 +1,82 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rendered source fragments of one kind, such as header maps or assertion sequences, repeated
+ * across the requests of a collection. A fragment rendered by at least a minimum number of
+ * requests, two by default, is given a name, numbered in order of first use, so the test class
+ * declares it once and the test methods refer to it. Less used fragments stay inline.
+ */
+public class SharedFragments {
+    /**
+     * Prefix of the helper names, e.g. headers gives headers1, headers2, ...
+     */
+    private final String prefix;
+    /**
+     * Number of uses a fragment needs to be named
+     */
+    private final int minUses;
+    /**
+     * Number of uses per fragment in order of first use
+     */
+    private final Map<String, Integer> uses = new LinkedHashMap<>();
+    private Map<String, String> names;
+
+    /**
+     * Constructor to initialize the prefix of the helper names
+     * @param prefix
+     */
+    public SharedFragments(String prefix) {
+        this(prefix, 2);
+    }
+
+    /**
+     * Constructor to initialize the prefix of the names and the number of uses a fragment needs to be named
+     * @param prefix
+     * @param minUses 1 to name every fragment
+     */
+    public SharedFragments(String prefix, int minUses) {
+        this.prefix = prefix;
+        this.minUses = minUses;
+    }
+
+    /**
+     * Method to count a use of a fragment, all uses must be added before names are looked up
+     * @param fragment
+     */
+    public void add(String fragment) {
+        if (names != null) {
+            throw new IllegalStateException("Fragments can not be added after names are assigned");
+        }
+        uses.merge(fragment, 1, Integer::sum);
+    }
+
+    /**
+     * Method to get the helper name of a fragment
+     * @param fragment
+     * @return the name, or null if the fragment is not used often enough
+     */
+    public String name(String fragment) {
+        return shared().get(fragment);
+    }
+
+    /**
+     * Method to assign the helper names, called before the fragments are looked up by several threads
+     * @return the helper name per shared fragment in order of first use
+     */
+    public synchronized Map<String, String> shared() {
+        if (names == null) {
+            Map<String, String> assigned = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : uses.entrySet()) {
+                if (entry.getValue() >= minUses) {
+                    assigned.put(entry.getKey(), prefix + (assigned.size() + 1));
+                }
+            }
+            names = Collections.unmodifiableMap(assigned);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,285 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to read a Postman collection with a Jackson {@link JsonParser} instead of loading the
+ * whole document as a tree. Request items are handed to an {@link ItemVisitor} one at a time and
+ * only the fields the converter uses are materialised, so peak memory is bounded by the largest
+ * single item rather than by the size of the collection file.
+ */
+public class StreamingCollectionParser {
+    /**
+     * Fields of a request item that are kept, everything else (such as saved responses) is skipped
+     */
+    private static final List<String> ITEM_FIELDS = List.of("name", "request", "event");
+    /**
+     * Placeholder folder path for children read before the name of their folder
+     */
+    private static final String PENDING_FOLDER = "\u0000";
+
+    /**
+     * Mapper used to create parsers and to read the retained sub trees
+     */
+    private final ObjectMapper mapper;
+    /**
+     * The collection info block, available after parsing
+     */
+    private JsonNode info = MissingNode.getInstance();
+    /**
+     * The collection variables, available after parsing
+     */
+    private JsonNode variables = MissingNode.getInstance();
+    /**
+     * The collection auth, available after parsing
+     */
+    private JsonNode auth = MissingNode.getInstance();
+
+    /**
+     * Callback receiving request items in collection order
+     */
+    @FunctionalInterface
+    public interface ItemVisitor {
+        /**
+         * Method called for every request item in the collection
+         * @param item the request item with only name, request and event retained
+         * @param folderPath the underscore separated path of the folders containing the item
+         * @throws IOException
+         */
+        void visit(JsonNode item, String folderPath) throws IOException;
+
+        /**
+         * Method called for every request item in the collection, with the position of its folder
+         * @param item the request item with only name, request and event retained
+         * @param folderPath the underscore separated path of the folders containing the item
+         * @param folder position of the innermost folder containing the item, e.g. 2/0, empty at the top level
+         * @throws IOException
+         */
+        default void visit(JsonNode item, String folderPath, String folder) throws IOException {
+            visit(item, folderPath);
+        }
+
+        /**
+         * Method called for every folder with an auth block, which Postman writes after the items
+         * of the folder
+         * @param folder position of the folder
+         * @param auth
+         */
+        default void folderAuth(String folder, JsonNode auth) {
+        }
+    }
+
+    /**
+     * Constructor to initialize the mapper
+     * @param mapper
+     */
+    public StreamingCollectionParser(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Method to parse a collection file and pass every request item to the visitor
+     * @param collectionFile
+     * @param visitor
+     * @throws IOException
+     */
+    public void parse(File collectionFile, ItemVisitor visitor) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(collectionFile)) {
+            parse(parser, visitor);
+        }
+    }
+
+    /**
+     * Method to parse a collection from an already created parser
+     * @param parser
+     * @param visitor
+     * @throws IOException
+     */
+    public void parse(JsonParser parser, ItemVisitor visitor) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Postman collection must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "info":
+                    info = mapper.readTree(parser);
+                    break;
+                case "variable":
+                    variables = mapper.readTree(parser);
+                    break;
+                case "item":
+                    parseItems(parser, "", "", visitor);
+                    break;
+                case "auth":
+                    auth = mapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Method to get the collection info block
+     * @return
+     */
+    public JsonNode getInfo() {
+        return info;
+    }
+
+    /**
+     * Method to get the collection variables
+     * @return
+     */
+    public JsonNode getVariables() {
+        return variables;
+    }
+
+    /**
+     * Method to get the collection auth
+     * @return
+     */
+    public JsonNode getAuth() {
+        return auth;
+    }
+
+    /**
+     * Method to parse an item array, the parser must be positioned on the start of the array
+     * @param parser
+     * @param folderPath
+     * @param folder position of the folder holding the array
+     * @param visitor
+     * @throws IOException
+     */
+    private void parseItems(JsonParser parser, String folderPath, String folder, ItemVisitor visitor) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                parseItem(parser, folderPath, folder, childFolder(folder, index), visitor);
+            } else {
+                parser.skipChildren();
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Method to parse a single item, which is either a request or a folder
+     * @param parser
+     * @param folderPath
+     * @param folder position of the folder holding the item
+     * @param position position of the item, which is the folder position of its children
+     * @param visitor
+     * @throws IOException
+     */
+    private void parseItem(JsonParser parser, String folderPath, String folder, String position, ItemVisitor visitor)
+            throws IOException {
+        ObjectNode item = mapper.createObjectNode();
+        // Children of a folder whose name has not been read yet, kept with a placeholder folder path
+        List<BufferedItem> pending = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("item".equals(field) && !item.has("request")) {
+                if (item.has("name")) {
+                    parseItems(parser, childPath(folderPath, item.path("name").asText()), position, visitor);
+                } else {
+                    List<BufferedItem> buffer = new ArrayList<>();
+                    parseItems(parser, PENDING_FOLDER, position, new ItemVisitor() {
+                        @Override
+                        public void visit(JsonNode child, String childFolderPath) {
+                            visit(child, childFolderPath, "");
+                        }
+
+                        @Override
+                        public void visit(JsonNode child, String childFolderPath, String childFolder) {
+                            buffer.add(new BufferedItem(child, childFolderPath, childFolder));
+                        }
+
+                        @Override
+                        public void folderAuth(String childFolder, JsonNode auth) {
+                            visitor.folderAuth(childFolder, auth);
+                        }
+                    });
+                    pending = buffer;
+                }
+            } else if ("auth".equals(field) && !item.has("request")) {
+                // the auth of a folder, a request item keeps its auth in the request
+                item.set(field, mapper.readTree(parser));
+            } else if (ITEM_FIELDS.contains(field)) {
+                item.set(field, mapper.readTree(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (item.has("request")) {
+            item.remove("auth");
+            visitor.visit(item, folderPath, folder);
+            return;
+        }
+        if (item.has("auth")) {
+            visitor.folderAuth(position, item.get("auth"));
+        }
+        if (pending != null) {
+            String newFolderPath = childPath(folderPath, item.path("name").asText());
+            for (BufferedItem child : pending) {
+                String rest = child.folderPath.substring(PENDING_FOLDER.length());
+                visitor.visit(child.item, newFolderPath.isEmpty() && !rest.isEmpty() ? rest.substring(1) : newFolderPath + rest,
+                        child.folder);
+            }
+        }
+    }
+
+    /**
+     * Method to get the position of an item of a folder
+     * @param folder position of the folder, empty for the top level
+     * @param index index of the item in the folder
+     * @return
+     */
+    static String childFolder(String folder, int index) {
+        return folder.isEmpty() ? String.valueOf(index) : folder + "/" + index;
+    }
+
+    /**
+     * Method to join a folder path with a child folder name
+     * @param folderPath
+     * @param name
+     * @return
+     */
+    private static String childPath(String folderPath, String name) {
+        return folderPath.isEmpty() ? name : folderPath + "_" + name;
+    }
+
+    /**
+     * Class to hold an item read before the name of its folder was known
+     */
+    private static class BufferedItem {
+        JsonNode item;
+        String folderPath;
+        String folder;
+
+        BufferedItem(JsonNode item, String folderPath, String folder) {
+            this.item = item;
+            this.folderPath = folderPath;
+            this.folder = folder;
+        }
+    }
+}
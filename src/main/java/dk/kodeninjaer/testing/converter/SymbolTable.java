@@ -0,0 +1,60 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hash indexed table of the variables known to a collection, used to resolve the variables of
+ * compiled templates in constant time. The table is safe to use from several threads, since test
+ * methods may be rendered in parallel.
+ */
+public class SymbolTable {
+    /**
+     * Variables by name, in order of declaration
+     */
+    private final Map<String, String> symbols = new LinkedHashMap<>();
+
+    /**
+     * Method to declare a variable, replacing the value of an existing one
+     * @param name
+     * @param value
+     */
+    public synchronized void declare(String name, String value) {
+        symbols.put(name, value);
+    }
+
+    /**
+     * Method to declare a variable with an empty value if it is not declared yet
+     * @param name
+     * @return true if the variable was missing
+     */
+    public synchronized boolean declareIfAbsent(String name) {
+        return symbols.putIfAbsent(name, "") == null;
+    }
+
+    /**
+     * Method to check if a variable is declared
+     * @param name
+     * @return
+     */
+    public synchronized boolean contains(String name) {
+        return symbols.containsKey(name);
+    }
+
+    /**
+     * Method to get the value of a variable
+     * @param name
+     * @return the value or null if the variable is not declared
+     */
+    public synchronized String get(String name) {
+        return symbols.get(name);
+    }
+
+    /**
+     * @return a snapshot of the declared variables in order of declaration
+     */
+    public synchronized Map<String, String> entries() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(symbols));
+    }
+}
@@ -0,0 +1,202 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compiled form of a text containing double-moustache <code>{{variable}}</code> references, such
+ * as a URL, a header value or a request body. The text is parsed once into literal and variable
+ * segments, from which a Java expression concatenating the literals and the variable lookups is
+ * emitted in time linear in the length of the text.
+ * <p>
+ * Variable names may contain any character except braces, so <code>{{api-key}}</code> and
+ * <code>{{user.id}}</code> are supported. Surrounding whitespace inside the braces is ignored.
+ */
+public final class Template {
+    /**
+     * Class to represent a segment of a template
+     */
+    public static final class Segment {
+        private final boolean variable;
+        private final String text;
+
+        private Segment(boolean variable, String text) {
+            this.variable = variable;
+            this.text = text;
+        }
+
+        /**
+         * @return true if the segment is a variable reference
+         */
+        public boolean isVariable() {
+            return variable;
+        }
+
+        /**
+         * @return the literal text, or the variable name for variable segments
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * The segments of the template, adjacent literals are merged and empty literals are dropped
+     */
+    private final List<Segment> segments;
+
+    private Template(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Method to compile a text into a template
+     * @param text
+     * @return
+     */
+    public static Template compile(String text) {
+        List<Segment> segments = new ArrayList<>();
+        if (text == null) {
+            return new Template(segments);
+        }
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int open = text.indexOf("{{", i);
+            if (open < 0) {
+                literal.append(text, i, length);
+                break;
+            }
+            // a run of braces such as {{{name}}} keeps the outer braces as literal text
+            while (open + 2 < length && text.charAt(open + 2) == '{') {
+                open++;
+            }
+            int close = findClose(text, open + 2);
+            if (close < 0) {
+                literal.append(text, i, open + 2);
+                i = open + 2;
+                continue;
+            }
+            String name = text.substring(open + 2, close).trim();
+            if (name.isEmpty()) {
+                literal.append(text, i, close + 2);
+                i = close + 2;
+                continue;
+            }
+            literal.append(text, i, open);
+            if (literal.length() > 0) {
+                segments.add(new Segment(false, literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(new Segment(true, name));
+            i = close + 2;
+        }
+        if (literal.length() > 0) {
+            segments.add(new Segment(false, literal.toString()));
+        }
+        return new Template(segments);
+    }
+
+    /**
+     * Method to find the closing braces of a variable, stopping at any brace that may not be part of a name
+     * @param text
+     * @param from
+     * @return the offset of the closing braces or -1
+     */
+    private static int findClose(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '}') {
+                return i + 1 < text.length() && text.charAt(i + 1) == '}' ? i : -1;
+            }
+            if (c == '{') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the segments of the template
+     */
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * @return the names of the referenced variables in order of appearance
+     */
+    public List<String> getVariables() {
+        List<String> variables = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.variable) {
+                variables.add(segment.text);
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * @return true if the template contains no variable references
+     */
+    public boolean isConstant() {
+        for (Segment segment : segments) {
+            if (segment.variable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to emit a Java expression evaluating the template
+     * @param lookup function giving the Java expression that looks up a variable by name
+     * @return
+     */
+    public String toJavaExpression(Function<String, String> lookup) {
+        if (segments.isEmpty()) {
+            return "\"\"";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Segment segment : segments) {
+            if (sb.length() > 0) {
+                sb.append(" + ");
+            }
+            if (segment.variable) {
+                sb.append(lookup.apply(segment.text));
+            } else {
+                sb.append(javaString(segment.text));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Method to quote and escape a text as a Java string literal
+     * @param text
+     * @return
+     */
+    public static String javaString(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
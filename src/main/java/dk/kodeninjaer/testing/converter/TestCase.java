@@ -0,0 +1,83 @@
+package dk.kodeninjaer.testing.converter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class to represent a test case, one request of the collection with its scripts
+ */
+public class TestCase {
+    /** hash of the collection item, set when the render or model cache is used */
+    String sourceHash;
+    /** name of the request prefixed with the names of its folders */
+    String name;
+    String method;
+    String url;
+    String body;
+    Map<String, String> headers = new HashMap<>();
+    /**
+     * position of the innermost folder of the request, e.g. 2/0 for the first sub folder of the
+     * third item, empty for requests at the top level
+     */
+    String folder = "";
+    /** auth of the request, inherited from its folders or the collection, null for none */
+    Auth auth;
+    List<ScriptCommand> preRequestScript = new ArrayList<>();
+    List<Assertion> testScript = new ArrayList<>();
+    /** variables read by the scripts, URL, headers and body */
+    Set<String> reads = new LinkedHashSet<>();
+    /** variables set by the scripts */
+    Set<String> writes = new LinkedHashSet<>();
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public Auth getAuth() {
+        return auth;
+    }
+
+    public List<ScriptCommand> getPreRequestScript() {
+        return preRequestScript;
+    }
+
+    public List<Assertion> getTestScript() {
+        return testScript;
+    }
+
+    public Set<String> getReads() {
+        return reads;
+    }
+
+    public Set<String> getWrites() {
+        return writes;
+    }
+}
@@ -0,0 +1,28 @@
+package dk.kodeninjaer.testing.converter;
+
+/**
+ * Class to represent a variable
+ */
+public class Variable {
+    String key;
+    String value;
+    String type;
+
+    Variable(String key, String value, String type) {
+        this.key = key;
+        this.value = value;
+        this.type = type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
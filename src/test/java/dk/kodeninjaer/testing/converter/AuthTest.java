@@ -0,0 +1,142 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests of collection, folder and request auth inherited along the folder tree
+ */
+public class AuthTest {
+
+        @RegisterExtension
+        final StubServer server = new StubServer();
+
+        /**
+         * Method to get the Authorization header, or query when there is none, per request path
+         * @return
+         */
+        private Map<String, String> received() {
+                Map<String, String> received = new HashMap<>();
+                for (StubServer.Request request : server.requests()) {
+                        String authorization = request.header("Authorization");
+                        received.put(request.path, authorization != null ? authorization : request.query != null ? request.query : "none");
+                }
+                return received;
+        }
+
+        private String request(String name, String auth) {
+                return "{\"name\":\"" + name + "\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"" + server.baseUri() + "/"
+                                + name + "\"}" + (auth == null ? "" : ",\"auth\":" + auth) + "}}";
+        }
+
+        /**
+         * Collection with the auth blocks after the items, as Postman writes them
+         */
+        private Path collection(Path tempDir) throws IOException {
+                Path collection = tempDir.resolve("Auth.postman_collection.json");
+                Files.writeString(collection, "{\"info\":{\"name\":\"Auth\"},\"item\":["
+                                + request("top", null) + ","
+                                + "{\"name\":\"Basic\",\"item\":[" + request("basic", null) + ","
+                                + "{\"name\":\"Nested\",\"item\":[" + request("nested", null) + "]},"
+                                + request("open", "{\"type\":\"noauth\"}") + "],"
+                                + "\"auth\":{\"type\":\"basic\",\"basic\":[{\"key\":\"username\",\"value\":\"{{user}}\"},"
+                                + "{\"key\":\"password\",\"value\":\"secret\"}]}},"
+                                + "{\"name\":\"Keys\",\"item\":[" + request("key", "{\"type\":\"apikey\",\"apikey\":["
+                                + "{\"key\":\"key\",\"value\":\"api_key\"},{\"key\":\"value\",\"value\":\"k1\"},"
+                                + "{\"key\":\"in\",\"value\":\"query\"}]}") + "],"
+                                + "\"auth\":{\"type\":\"bearer\",\"bearer\":{\"token\":\"folder-token\"}}}],"
+                                + "\"auth\":{\"type\":\"bearer\",\"bearer\":[{\"key\":\"token\",\"value\":\"collection-token\"}]},"
+                                + "\"variable\":[{\"key\":\"user\",\"value\":\"alice\"}]}");
+                return collection;
+        }
+
+        @DisplayName("Auth is inherited from the closest folder or the collection")
+        @Test
+        public void testInheritance(@TempDir Path tempDir) throws IOException {
+                Path collection = collection(tempDir);
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.testing.converter.auth", "AuthTest");
+                ParsedCollection parsed = generator.parse(collection.toString());
+                Map<String, TestCase> testCases = new HashMap<>();
+                parsed.getTestCases().forEach(testCase -> testCases.put(testCase.getName(), testCase));
+
+                assertEquals("bearer", testCases.get("top").getAuth().getType());
+                assertEquals("collection-token", testCases.get("top").getAuth().get("token", null));
+                assertEquals("basic", testCases.get("Basic_basic").getAuth().getType());
+                assertEquals("basic", testCases.get("Basic_Nested_nested").getAuth().getType(), "Sub folders inherit the auth");
+                assertNull(testCases.get("Basic_open").getAuth(), "noauth stops the inheritance");
+                assertEquals("apikey", testCases.get("Keys_key").getAuth().getType(), "The request auth comes first");
+                assertTrue(testCases.get("Basic_basic").getReads().contains("user"));
+
+                generator.setStreamingParse(true);
+                ParsedCollection streamed = generator.parse(collection.toString());
+                for (int i = 0; i < parsed.getTestCases().size(); i++) {
+                        assertEquals(String.valueOf(parsed.getTestCases().get(i).getAuth()),
+                                        String.valueOf(streamed.getTestCases().get(i).getAuth()),
+                                        "The streaming parser should read folder auth written after the items");
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ModelCache.write(parsed, "hash", bytes);
+                ParsedCollection read = ModelCache.read(new ByteArrayInputStream(bytes.toByteArray()), "hash");
+                for (int i = 0; i < parsed.getTestCases().size(); i++) {
+                        assertEquals(String.valueOf(parsed.getTestCases().get(i).getAuth()),
+                                        String.valueOf(read.getTestCases().get(i).getAuth()), "The model cache should keep the auth");
+                        assertEquals(parsed.getTestCases().get(i).getFolder(), read.getTestCases().get(i).getFolder());
+                }
+        }
+
+        @DisplayName("Constant auth is a shared request specification and variable auth is evaluated per request")
+        @Test
+        public void testRequests(@TempDir Path tempDir) throws Exception {
+                Path collection = collection(tempDir);
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.testing.converter.auth", "AuthTest");
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.generate(collection.toString());
+                String source = Files.readString(tempDir.resolve("src/dk/kodeninjaer/testing/converter/auth/AuthTest.java"));
+                assertTrue(source.contains("    private static final RequestSpecification auth1 = new RequestSpecBuilder()\n"
+                                + "            .addHeader(\"Authorization\", \"Bearer collection-token\")\n"
+                                + "            .build();\n"), source);
+                assertTrue(source.contains(".auth().preemptive().basic(collectionVariables.get(\"user\"), \"secret\")"));
+                assertTrue(source.contains(".addQueryParam(\"api_key\", \"k1\")"));
+
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                Class<?> testClass = result.classLoader(getClass().getClassLoader())
+                                .loadClass("dk.kodeninjaer.testing.converter.auth.AuthTest");
+                testClass.getMethod("setup").invoke(null);
+                Object test = testClass.getConstructor().newInstance();
+                for (String method : new String[] {"top", "Basic_basic", "Basic_Nested_nested", "Basic_open", "Keys_key"}) {
+                        testClass.getMethod(method).invoke(test);
+                }
+
+                String basic = "Basic " + Base64.getEncoder().encodeToString("alice:secret".getBytes());
+                assertEquals(Map.of("/top", "Bearer collection-token", "/basic", basic, "/nested", basic,
+                                "/open", "none", "/key", "api_key=k1"), received());
+        }
+
+        @DisplayName("Auth blocks are read in the 2.1 and 2.0 collection formats")
+        @Test
+        public void testParseAuth() throws IOException {
+                ObjectMapper mapper = new ObjectMapper();
+                Auth list = PostmanToRestAssuredGenerator.parseAuth(mapper.readTree(
+                                "{\"type\":\"basic\",\"basic\":[{\"key\":\"username\",\"value\":\"u\"},{\"key\":\"password\",\"value\":\"p\"}]}"));
+                Auth object = PostmanToRestAssuredGenerator.parseAuth(mapper.readTree(
+                                "{\"type\":\"basic\",\"basic\":{\"username\":\"u\",\"password\":\"p\"}}"));
+                assertEquals(list.toString(), object.toString());
+                assertEquals("p", object.get("password", null));
+                assertNull(PostmanToRestAssuredGenerator.parseAuth(mapper.readTree("{}").path("auth")));
+        }
+}
@@ -0,0 +1,105 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BatchConverterTest {
+
+        @DisplayName("A directory resolves to every collection below it")
+        @Test
+        public void testResolveDirectory() throws IOException {
+                BatchConverter converter = new BatchConverter("dk.kodeninjaer.testing.converter.batch");
+                List<BatchConverter.Job> jobs = converter.resolve("src/test/resources");
+
+                assertEquals(5, jobs.size(), "All test collections should be found");
+                assertEquals("TestCollectionTest", jobs.get(0).outputClassName);
+        }
+
+        @DisplayName("A glob resolves to the matching collections")
+        @Test
+        public void testResolveGlob() throws IOException {
+                BatchConverter converter = new BatchConverter("dk.kodeninjaer.testing.converter.batch");
+                List<BatchConverter.Job> jobs = converter.resolve("src/test/resources/TestCollectionV*.json");
+
+                assertEquals(1, jobs.size());
+                assertEquals("TestCollectionVariablesTest", jobs.get(0).outputClassName);
+        }
+
+        @DisplayName("A manifest resolves relative paths and optional package and class")
+        @Test
+        public void testResolveManifest(@TempDir Path tempDir) throws IOException {
+                Path manifest = tempDir.resolve("collections.txt");
+                Files.writeString(manifest, "# comment\n"
+                                + Path.of("src/test/resources/TestCollection.postman_collection.json").toAbsolutePath() + "\n"
+                                + "\n"
+                                + "other.postman_collection.json my.pkg MyTests\n");
+
+                BatchConverter converter = new BatchConverter("default.pkg");
+                List<BatchConverter.Job> jobs = converter.resolve(manifest.toString());
+
+                assertEquals(2, jobs.size());
+                assertEquals("default.pkg", jobs.get(0).outputPackage);
+                assertEquals(tempDir.resolve("other.postman_collection.json"), jobs.get(1).collection);
+                assertEquals("my.pkg", jobs.get(1).outputPackage);
+                assertEquals("MyTests", jobs.get(1).outputClassName);
+        }
+
+        @DisplayName("Collections are converted concurrently and failures are reported per file")
+        @Test
+        public void testConvert() throws IOException {
+                BatchConverter converter = new BatchConverter("dk.kodeninjaer.testing.converter.batch", 4);
+                List<BatchConverter.Job> jobs = new java.util.ArrayList<>(
+                                converter.resolve("src/test/resources/TestCollection*.postman_collection.json"));
+                jobs.add(new BatchConverter.Job(Path.of("does/not/exist.postman_collection.json"),
+                                "dk.kodeninjaer.testing.converter.batch", "MissingTest"));
+
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                BatchConverter.Summary summary = converter.convert(jobs, new PrintStream(output, true));
+
+                assertEquals(5, summary.getSucceeded());
+                assertEquals(1, summary.getFailed());
+                assertEquals(5, summary.getMetrics().size(), "Every successful conversion should report metrics");
+                String printed = output.toString();
+                assertTrue(printed.contains("FAILED does/not/exist.postman_collection.json"), printed);
+                assertTrue(printed.contains("Converted 5 of 6 collections (1 failed)"), printed);
+                assertTrue(Files.exists(Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/batch/TestCollectionFoldersTest.java")));
+        }
+
+        @DisplayName("Failures without a message are reported with the exception type")
+        @Test
+        public void testConvertFailureWithoutMessage() {
+                BatchConverter converter = new BatchConverter("dk.kodeninjaer.testing.converter.batch", 1);
+                converter.setConfigurator(generator -> {
+                        throw new IllegalStateException();
+                });
+                List<BatchConverter.Job> jobs = List.of(new BatchConverter.Job(
+                                Path.of("src/test/resources/TestCollection.postman_collection.json"),
+                                "dk.kodeninjaer.testing.converter.batch", "FailingTest"));
+
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                BatchConverter.Summary summary = converter.convert(jobs, new PrintStream(output, true));
+
+                assertEquals(1, summary.getFailed());
+                String printed = output.toString();
+                assertTrue(printed.contains("FAILED src/test/resources/TestCollection.postman_collection.json: "
+                                + "java.lang.IllegalStateException"), printed);
+                assertFalse(printed.contains(": null"), printed);
+        }
+
+        @DisplayName("Class names are derived from the collection file name")
+        @Test
+        public void testClassName() {
+                assertEquals("My_ServiceTest", BatchConverter.className(Path.of("x/My Service.postman_collection.json")));
+                assertEquals("_1apiTest", BatchConverter.className(Path.of("1api.json")));
+        }
+}
@@ -0,0 +1,79 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests of request bodies written to resources and streamed by the generated tests
+ */
+public class BodyResourceTest {
+
+        @RegisterExtension
+        final StubServer server = new StubServer();
+
+        private Path collection(Path tempDir, String largeBody) throws IOException {
+                Path collection = tempDir.resolve("Bodies.postman_collection.json");
+                Files.writeString(collection, "{\"info\":{\"name\":\"Bodies\",\"url\":\"" + server.baseUri() + "\"},\"item\":["
+                                + "{\"name\":\"Large body\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"" + server.baseUri() + "/large\"},"
+                                + "\"body\":{\"mode\":\"raw\",\"raw\":" + Template.javaString(largeBody) + "}}},"
+                                + "{\"name\":\"Small body\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"" + server.baseUri() + "/small\"},"
+                                + "\"body\":{\"mode\":\"raw\",\"raw\":\"{{id}}\"}}}],"
+                                + "\"variable\":[{\"key\":\"id\",\"value\":\"42\"}]}");
+                return collection;
+        }
+
+        @DisplayName("Bodies above the threshold are written to resources without their variables")
+        @Test
+        public void testExternalized(@TempDir Path tempDir) throws IOException {
+                String largeBody = "{\"id\":\"{{id}}\",\"text\":\"ÆØÅ {{id}}{{ missing }}\",\"padding\":\"" + "x".repeat(100) + "\"}";
+                Path collection = collection(tempDir, largeBody);
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.bodies", "BodiesTest");
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.setResourceDirectory(tempDir.resolve("resources").toString());
+                generator.setBodyResourceThreshold(64);
+                generator.generate(collection.toString());
+
+                Path resource = tempDir.resolve("resources/dk/kodeninjaer/testing/converter/bodies/BodiesTest/Large_body.body");
+                assertEquals("{\"id\":\"\",\"text\":\"ÆØÅ \",\"padding\":\"" + "x".repeat(100) + "\"}",
+                                Files.readString(resource), "The resource holds the literal text of the body");
+                String source = Files.readString(tempDir.resolve("src/dk/kodeninjaer/testing/converter/bodies/BodiesTest.java"));
+                assertTrue(source.contains("import dk.kodeninjaer.testing.converter.BodyResource;"));
+                assertTrue(source.contains("spec.body(BodyResource.open(BodiesTest.class, "
+                                + "\"dk/kodeninjaer/testing/converter/bodies/BodiesTest/Large_body.body\", collectionVariables, "
+                                + "new long[] {7L, 24L, 24L}, new String[] {\"id\", \"id\", \"missing\"}));"), source);
+                assertTrue(source.contains("spec.body(collectionVariables.get(\"id\"));"), "Small bodies stay inline");
+                assertFalse(source.contains("x".repeat(100)), "The body should not be in the class");
+        }
+
+        @DisplayName("Externalized bodies are streamed with their variables substituted")
+        @Test
+        public void testStreamedBody(@TempDir Path tempDir) throws Exception {
+                String largeBody = "{\"id\":\"{{id}}\",\"text\":\"ÆØÅ {{id}}{{ id }}\",\"padding\":\""
+                                + "x".repeat(100_000) + "\"}{{id}}";
+                Path collection = collection(tempDir, largeBody);
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.bodies", "StreamedBodiesTest");
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                assertEquals(1, result.getResources().size());
+
+                Class<?> testClass = result.classLoader(getClass().getClassLoader())
+                                .loadClass("dk.kodeninjaer.testing.converter.bodies.StreamedBodiesTest");
+                testClass.getMethod("setup").invoke(null);
+                Object test = testClass.getConstructor().newInstance();
+                testClass.getMethod("Large_body").invoke(test);
+                testClass.getMethod("Small_body").invoke(test);
+
+                assertEquals(largeBody.replace("{{id}}", "42").replace("{{ id }}", "42"), server.requests().get(0).body);
+                assertEquals("42", server.requests().get(1).body);
+        }
+}
@@ -0,0 +1,129 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tests of watch mode against a temporary collection directory
+ */
+public class CollectionWatcherTest {
+
+        private static final String PACKAGE = "dk.kodeninjaer.testing.converter.watch";
+
+        private static String collection(String path) {
+                return "{\"info\":{\"name\":\"Watched\"},\"item\":["
+                                + "{\"name\":\"Get\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"http://localhost/" + path + "\"}}}]}";
+        }
+
+        private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!condition.getAsBoolean()) {
+                        if (System.currentTimeMillis() > deadline) {
+                                fail(message);
+                        }
+                        Thread.sleep(20);
+                }
+        }
+
+        private static String read(Path file) {
+                try {
+                        return Files.exists(file) ? Files.readString(file) : "";
+                } catch (IOException e) {
+                        return "";
+                }
+        }
+
+        @DisplayName("Collections are converted at start and regenerated when they change")
+        @Test
+        public void testWatch(@TempDir Path tempDir) throws Exception {
+                Path collections = Files.createDirectories(tempDir.resolve("collections"));
+                Path output = tempDir.resolve("out");
+                Files.writeString(collections.resolve("First.postman_collection.json"), collection("first"));
+                Path first = output.resolve("dk/kodeninjaer/testing/converter/watch/FirstTest.java");
+                Path second = output.resolve("dk/kodeninjaer/testing/converter/watch/SecondTest.java");
+
+                ByteArrayOutputStream log = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(log, true);
+                try (CollectionWatcher watcher = new CollectionWatcher(PACKAGE, List.of(collections))) {
+                        watcher.setConfigurator(generator -> generator.setOutputDirectory(output.toString()));
+                        watcher.setDebounceMillis(50);
+                        Thread thread = new Thread(() -> {
+                                try {
+                                        watcher.run(out);
+                                } catch (Exception e) {
+                                        out.println("ERROR " + e);
+                                }
+                        });
+                        thread.start();
+
+                        await(() -> log.toString().contains("Watching"), "The watcher should start");
+                        assertTrue(read(first).contains("/first"), "Existing collections are converted at start");
+
+                        // Several writes in a burst are converted once
+                        Files.writeString(collections.resolve("First.postman_collection.json"), collection("changed"));
+                        Files.writeString(collections.resolve("First.postman_collection.json"), collection("changed-again"));
+                        await(() -> read(first).contains("/changed-again"), "A changed collection should be regenerated");
+
+                        // New collections in new sub-directories are picked up
+                        Path nested = Files.createDirectories(collections.resolve("nested"));
+                        Files.writeString(nested.resolve("Second.postman_collection.json"), collection("second"));
+                        await(() -> read(second).contains("/second"), "A new collection should be converted");
+
+                        watcher.close();
+                        thread.join(5_000);
+                        assertFalse(thread.isAlive(), "Closing the watcher should stop it");
+                }
+                assertFalse(log.toString().contains("FAILED"), log.toString());
+                assertFalse(log.toString().contains("ERROR"), log.toString());
+        }
+
+        @DisplayName("Collections generating the same class are not converted over each other")
+        @Test
+        public void testDuplicateClassNames(@TempDir Path tempDir) throws Exception {
+                Path collections = Files.createDirectories(tempDir.resolve("collections"));
+                Path output = tempDir.resolve("out");
+                Files.writeString(collections.resolve("Same.postman_collection.json"), collection("first"));
+                Path nested = Files.createDirectories(collections.resolve("nested"));
+                Files.writeString(nested.resolve("Same.postman_collection.json"), collection("second"));
+                Path generated = output.resolve("dk/kodeninjaer/testing/converter/watch/SameTest.java");
+
+                ByteArrayOutputStream log = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(log, true);
+                try (CollectionWatcher watcher = new CollectionWatcher(PACKAGE, List.of(collections))) {
+                        watcher.setConfigurator(generator -> generator.setOutputDirectory(output.toString()));
+                        watcher.setDebounceMillis(50);
+                        Thread thread = new Thread(() -> {
+                                try {
+                                        watcher.run(out);
+                                } catch (Exception e) {
+                                        out.println("ERROR " + e);
+                                }
+                        });
+                        thread.start();
+
+                        await(() -> log.toString().contains("Watching"), "The watcher should start");
+                        assertTrue(log.toString().contains("FAILED " + nested.resolve("Same.postman_collection.json")
+                                        + ": duplicate output class " + PACKAGE + ".SameTest"), log.toString());
+                        assertTrue(read(generated).contains("/first"), "The first collection keeps its class");
+
+                        // a change of the duplicate is still not converted
+                        Files.writeString(nested.resolve("Same.postman_collection.json"), collection("changed"));
+                        await(() -> log.toString().split("duplicate output class").length > 2,
+                                        "The changed duplicate should be rejected again");
+                        assertTrue(read(generated).contains("/first"), "The first collection keeps its class");
+
+                        watcher.close();
+                        thread.join(5_000);
+                }
+        }
+}
@@ -0,0 +1,157 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests of the data file rows and of the tests generated to iterate over them
+ */
+public class DataFileTest {
+
+        @RegisterExtension
+        final StubServer server = new StubServer();
+
+        private static List<Map<String, String>> rows(Path file, Map<String, String> variables) {
+                try (Stream<Map<String, String>> rows = DataFile.rows(file.toString(), variables)) {
+                        return rows.map(HashMap::new).collect(Collectors.toList());
+                }
+        }
+
+        @DisplayName("CSV rows are read with quoted fields and line breaks")
+        @Test
+        public void testCsv(@TempDir Path tempDir) throws IOException {
+                Path file = tempDir.resolve("users.csv");
+                Files.writeString(file, "user,note\r\nalice,\"says \"\"hi\"\", twice\"\r\n\r\n"
+                                + "bob,\"two\nlines\"\ncarol\n");
+                List<Map<String, String>> rows = rows(file, Map.of());
+                assertEquals(3, rows.size());
+                assertEquals(Map.of("user", "alice", "note", "says \"hi\", twice"), rows.get(0));
+                assertEquals(Map.of("user", "bob", "note", "two\nlines"), rows.get(1));
+                assertEquals(Map.of("user", "carol"), rows.get(2), "Missing fields are left out of the row");
+        }
+
+        @DisplayName("JSON rows are read from an array of objects")
+        @Test
+        public void testJson(@TempDir Path tempDir) throws IOException {
+                Path file = tempDir.resolve("users.json");
+                Files.writeString(file, "[{\"user\":\"alice\",\"age\":30,\"tags\":[\"a\"]},{\"user\":\"bob\"}]");
+                List<Map<String, String>> rows = rows(file, Map.of());
+                assertEquals(List.of(Map.of("user", "alice", "age", "30", "tags", "[\"a\"]"), Map.of("user", "bob")), rows);
+
+                Path invalid = tempDir.resolve("invalid.json");
+                Files.writeString(invalid, "{\"user\":\"alice\"}");
+                assertThrows(UncheckedIOException.class, () -> DataFile.rows(invalid.toString(), Map.of()));
+        }
+
+        @DisplayName("Rows are read when they are needed")
+        @Test
+        public void testLazy(@TempDir Path tempDir) throws IOException {
+                Path file = tempDir.resolve("lazy.json");
+                Files.writeString(file, "[{\"user\":\"alice\"},{\"user\":\"bob\"}, this is not read");
+                try (Stream<Map<String, String>> rows = DataFile.rows(file.toString(), Map.of())) {
+                        assertEquals("alice", rows.findFirst().orElseThrow().get("user"));
+                }
+
+                Path large = tempDir.resolve("large.csv");
+                try (BufferedWriter writer = Files.newBufferedWriter(large)) {
+                        writer.write("id,name\n");
+                        for (int i = 0; i < 1_000_000; i++) {
+                                writer.write(i + ",name " + i + "\n");
+                        }
+                }
+                try (Stream<Map<String, String>> rows = DataFile.rows(large.toString(), Map.of())) {
+                        assertEquals(1_000_000, rows.count());
+                }
+        }
+
+        @DisplayName("Rows take precedence over the variables they are read over")
+        @Test
+        public void testRowOverVariables(@TempDir Path tempDir) throws IOException {
+                Path file = tempDir.resolve("users.csv");
+                Files.writeString(file, "user\nalice\n");
+                Map<String, String> variables = new HashMap<>(Map.of("user", "default", "greeting", "hello"));
+                try (Stream<Map<String, String>> rows = DataFile.rows(file.toString(), variables)) {
+                        Map<String, String> row = rows.findFirst().orElseThrow();
+                        assertEquals("alice", row.get("user"));
+                        assertEquals("hello", row.get("greeting"));
+                        row.put("token", "abc");
+                        assertEquals("abc", row.get("token"));
+                        assertEquals("abc", variables.get("token"), "Values are written to the variables");
+                }
+
+                System.setProperty(DataFile.PATH_PROPERTY, file.toString());
+                try (Stream<Map<String, String>> rows = DataFile.rows("missing.csv", variables)) {
+                        assertEquals(1, rows.count(), "The system property replaces the generated path");
+                } finally {
+                        System.clearProperty(DataFile.PATH_PROPERTY);
+                }
+        }
+
+        @DisplayName("Requests are generated as parameterized tests run per row of the data file")
+        @Test
+        public void testGeneratedIterations(@TempDir Path tempDir) throws Exception {
+                Path file = tempDir.resolve("users.csv");
+                Files.writeString(file, "user\nalice\nbob\n");
+                Path collection = tempDir.resolve("Users.postman_collection.json");
+                Files.writeString(collection, "{\"info\":{\"name\":\"Users\",\"url\":\"" + server.baseUri() + "\"},\"item\":["
+                                + "{\"name\":\"Get user\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"" + server.baseUri()
+                                + "/users/{{user}}\"},\"body\":{\"mode\":\"raw\",\"raw\":\"{{greeting}} {{user}}\"}}},"
+                                + "{\"name\":\"Login\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"" + server.baseUri() + "/login\"}},"
+                                + "\"event\":[{\"listen\":\"prerequest\",\"script\":{\"exec\":[\"pm.environment.set(\\\"token\\\", \\\"abc\\\");\"]}}]},"
+                                + "{\"name\":\"Profile\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"" + server.baseUri() + "/profile/{{token}}\"}},"
+                                + "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[\"pm.response.to.have.status(200);\"]}}]}],"
+                                + "\"variable\":[{\"key\":\"greeting\",\"value\":\"hello\"},{\"key\":\"user\",\"value\":\"nobody\"}]}");
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.data", "UsersTest");
+                generator.setDataFile(file.toString());
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.generate(collection.toString());
+                String source = Files.readString(tempDir.resolve("src/dk/kodeninjaer/testing/converter/data/UsersTest.java"));
+                assertTrue(source.contains("    @ParameterizedTest(name = \"row {index}\")\n"
+                                + "    @MethodSource(\"dk.kodeninjaer.testing.converter.data.UsersTest#dataRows\")\n"
+                                + "    public void Get_user(Map<String, String> collectionVariables) {"), source);
+                assertTrue(source.contains("        public void iteration(Map<String, String> collectionVariables) {\n"
+                                + "            Login(collectionVariables);\n"
+                                + "            Profile(collectionVariables);\n"), "Chained requests run in order per row");
+                assertFalse(source.contains("@Test\n"), "Every request runs per row");
+
+                Class<?> testClass = result.classLoader(getClass().getClassLoader())
+                                .loadClass("dk.kodeninjaer.testing.converter.data.UsersTest");
+                testClass.getMethod("setup").invoke(null);
+                Method dataRows = testClass.getDeclaredMethod("dataRows");
+                dataRows.setAccessible(true);
+                Object test = testClass.getConstructor().newInstance();
+                Method getUser = testClass.getMethod("Get_user", Map.class);
+                try (Stream<?> rows = (Stream<?>) dataRows.invoke(null)) {
+                        rows.forEach(row -> {
+                                try {
+                                        getUser.invoke(test, row);
+                                } catch (ReflectiveOperationException e) {
+                                        throw new IllegalStateException(e);
+                                }
+                        });
+                }
+                assertEquals(List.of("/users/alice hello alice", "/users/bob hello bob"), server.requests().stream()
+                                .map(request -> request.path + " " + request.body).collect(Collectors.toList()));
+        }
+}
@@ -0,0 +1,60 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+public class DependencyGraphTest {
+
+        @DisplayName("Requests without shared written variables are independent")
+        @Test
+        public void testIndependent() {
+                DependencyGraph graph = new DependencyGraph();
+                graph.addNode(Set.of("url"), Set.of());
+                graph.addNode(Set.of("url", "header"), Set.of());
+                graph.addNode(Set.of(), Set.of("unused"));
+
+                assertTrue(graph.chains().isEmpty(), "Variables nobody writes should not link requests");
+                assertTrue(graph.edges().isEmpty());
+        }
+
+        @DisplayName("Readers are linked to the last writer before them")
+        @Test
+        public void testEdges() {
+                DependencyGraph graph = new DependencyGraph();
+                graph.addNode(Set.of(), Set.of("token"));
+                graph.addNode(Set.of("token"), Set.of());
+                graph.addNode(Set.of(), Set.of("token"));
+                graph.addNode(Set.of("token"), Set.of());
+
+                List<DependencyGraph.Edge> edges = graph.edges();
+                assertEquals(2, edges.size());
+                assertEquals(0, edges.get(0).getProducer());
+                assertEquals(1, edges.get(0).getConsumer());
+                assertEquals(2, edges.get(1).getProducer());
+                assertEquals(3, edges.get(1).getConsumer());
+                assertEquals("token", edges.get(1).getVariable());
+        }
+
+        @DisplayName("Separate variables give separate chains in collection order")
+        @Test
+        public void testChains() {
+                DependencyGraph graph = new DependencyGraph();
+                graph.addNode(Set.of(), Set.of("token"));        // 0 login
+                graph.addNode(Set.of("url"), Set.of());          // 1 independent
+                graph.addNode(Set.of("id"), Set.of());           // 2 reads id before it is written
+                graph.addNode(Set.of("token"), Set.of("id"));    // 3 create, joins both chains
+                graph.addNode(Set.of(), Set.of("other"));        // 4 writer
+                graph.addNode(Set.of("other"), Set.of());        // 5 reader
+
+                List<DependencyGraph.Chain> chains = graph.chains();
+                assertEquals(2, chains.size());
+                assertEquals(List.of(0, 2, 3), chains.get(0).getNodes());
+                assertEquals(Set.of("token", "id"), chains.get(0).getVariables());
+                assertEquals(List.of(4, 5), chains.get(1).getNodes());
+                assertEquals(Set.of("other"), chains.get(1).getVariables());
+        }
+}
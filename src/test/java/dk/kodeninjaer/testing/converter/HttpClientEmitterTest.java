@@ -0,0 +1,150 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests of the java.net.http backend, generated tests are compiled and run against a stub server
+ */
+public class HttpClientEmitterTest {
+
+        private static final String BODY = "{\"data\":{\"items\":[{\"id\":1,\"price\":2.50}],\"message\":\"Hello World\","
+                        + "\"active\":true,\"a.b\":\"dotted\"}}";
+
+        @RegisterExtension
+        final StubServer server = new StubServer().respond(200, "application/json; charset=utf-8", BODY);
+
+        /**
+         * Method to get the method, auth or query, variable header and body per request path
+         * @return
+         */
+        private Map<String, String> received() {
+                Map<String, String> received = new HashMap<>();
+                for (StubServer.Request request : server.requests()) {
+                        String authorization = request.header("Authorization");
+                        received.put(request.path, request.method + " "
+                                        + (authorization != null ? authorization : request.query != null ? request.query : "none") + " "
+                                        + request.header("X-Trace") + " " + request.body);
+                }
+                return received;
+        }
+
+        private String request(String name, String method, String body, String auth, String... tests) throws IOException {
+                StringBuilder exec = new StringBuilder();
+                for (String test : tests) {
+                        exec.append(exec.length() == 0 ? "" : ",").append(new ObjectMapper().writeValueAsString(test));
+                }
+                return "{\"name\":\"" + name + "\",\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[" + exec + "]}}],"
+                                + "\"request\":{\"method\":\"" + method + "\",\"header\":["
+                                + "{\"key\":\"Accept\",\"value\":\"application/json\"},{\"key\":\"X-Trace\",\"value\":\"{{trace}}\"},"
+                                + "{\"key\":\"Host\",\"value\":\"example.com\"}],"
+                                + (body == null ? "" : "\"body\":{\"mode\":\"raw\",\"raw\":\"" + body + "\"},")
+                                + "\"url\":{\"raw\":\"{{baseUrl}}/" + name + "\"}" + (auth == null ? "" : ",\"auth\":" + auth) + "}}";
+        }
+
+        private Path collection(Path tempDir, String expected) throws IOException {
+                Path collection = tempDir.resolve("Http.postman_collection.json");
+                Files.writeString(collection, "{\"info\":{\"name\":\"Http\"},\"item\":["
+                                + request("get", "GET", null, null,
+                                                "pm.test(\"ok\", function () {",
+                                                "    var jsonData = pm.response.json();",
+                                                "    pm.response.to.have.status(200);",
+                                                "    pm.response.to.be.json;",
+                                                "    pm.expect(jsonData.data.message).to.equal(" + expected + ");",
+                                                "    pm.expect(jsonData.data.items[0].id).to.equal(1);",
+                                                "    pm.expect(jsonData.data.items[0].price).to.equal(2.5);",
+                                                "    pm.expect(jsonData.data.active).to.equal(true);",
+                                                "    pm.expect(jsonData.data.message).to.contain(\"World\");",
+                                                "    pm.expect(pm.response.responseTime).to.be.below(60000);",
+                                                "});") + ","
+                                + request("post", "POST", "{\\\"user\\\":\\\"{{user}}\\\"}",
+                                                "{\"type\":\"basic\",\"basic\":[{\"key\":\"username\",\"value\":\"{{user}}\"},"
+                                                                + "{\"key\":\"password\",\"value\":\"secret\"}]}",
+                                                "pm.response.to.have.status(200);") + ","
+                                + request("key", "DELETE", null, "{\"type\":\"apikey\",\"apikey\":["
+                                                + "{\"key\":\"key\",\"value\":\"api_key\"},{\"key\":\"value\",\"value\":\"k 1\"},"
+                                                + "{\"key\":\"in\",\"value\":\"query\"}]}",
+                                                "pm.response.to.have.status(200);")
+                                + "],\"auth\":{\"type\":\"bearer\",\"bearer\":[{\"key\":\"token\",\"value\":\"collection-token\"}]},"
+                                + "\"variable\":[{\"key\":\"baseUrl\",\"value\":\"" + server.baseUri() + "\"},{\"key\":\"user\",\"value\":\"alice\"},"
+                                + "{\"key\":\"trace\",\"value\":\"t1\"},{\"key\":\"message\",\"value\":\"Hello World\"}]}");
+                return collection;
+        }
+
+        private Class<?> compile(PostmanToRestAssuredGenerator generator, Path collection) throws Exception {
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                Class<?> testClass = result.classLoader(getClass().getClassLoader())
+                                .loadClass("dk.kodeninjaer.testing.converter.http.HttpTest");
+                testClass.getMethod("setup").invoke(null);
+                return testClass;
+        }
+
+        @DisplayName("Generated tests send the requests with the JDK client and assert the responses with Jackson")
+        @Test
+        public void testGeneratedTests(@TempDir Path tempDir) throws Exception {
+                Path collection = collection(tempDir, "pm.collectionVariables.get(\"message\")");
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.testing.converter.http", "HttpTest");
+                generator.setEmitter(HttpClientEmitter.NAME);
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.generate(collection.toString());
+                String source = Files.readString(tempDir.resolve("src/dk/kodeninjaer/testing/converter/http/HttpTest.java"));
+                assertFalse(source.contains("restassured") || source.contains("hamcrest"), source);
+                assertTrue(source.contains("    private static final String[] auth1 = new String[] {\"Authorization\", \"Bearer collection-token\"};\n"), source);
+                assertFalse(source.contains("\"Host\""), "Headers set by the JDK client are left out");
+                assertTrue(source.contains("JsonResponse response = client.send(request, \"POST\", "), source);
+
+                Class<?> testClass = compile(generator, collection);
+                Object test = testClass.getConstructor().newInstance();
+                for (String method : new String[] {"get", "post", "key"}) {
+                        testClass.getMethod(method).invoke(test);
+                }
+                String basic = "Basic " + Base64.getEncoder().encodeToString("alice:secret".getBytes());
+                assertEquals(Map.of("/get", "GET Bearer collection-token t1 ", "/post", "POST " + basic + " t1 {\"user\":\"alice\"}",
+                                "/key", "DELETE api_key=k+1 t1 "), received());
+        }
+
+        @DisplayName("Failed assertions of generated tests throw assertion errors")
+        @Test
+        public void testFailedAssertion(@TempDir Path tempDir) throws Exception {
+                Path collection = collection(tempDir, "\"Goodbye\"");
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator("dk.kodeninjaer.testing.converter.http", "HttpTest");
+                generator.setEmitter(HttpClientEmitter.NAME);
+                generator.setDeduplicate(true);
+                generator.setRecordLatency(true);
+                generator.setLoadDriver(true);
+                Class<?> testClass = compile(generator, collection);
+                InvocationTargetException failure = assertThrows(InvocationTargetException.class,
+                                () -> testClass.getMethod("get").invoke(testClass.getConstructor().newInstance()));
+                assertInstanceOf(AssertionError.class, failure.getCause());
+                assertTrue(failure.getCause().getMessage().contains("data.message"), failure.getCause().getMessage());
+        }
+
+        @DisplayName("RestAssured paths are converted into JSON pointers and values are compared by type")
+        @Test
+        public void testJsonPaths() throws Exception {
+                assertEquals("/data/items/0/id", JsonResponse.pointer("data.items[0].id").toString());
+                assertEquals("/data/a.b", JsonResponse.pointer("data['a.b']").toString());
+                assertEquals("", JsonResponse.pointer("").toString());
+
+                ObjectMapper mapper = new ObjectMapper();
+                assertTrue(JsonResponse.matches(mapper.readTree("2.50"), 2.5));
+                assertTrue(JsonResponse.matches(mapper.readTree("1"), 1L));
+                assertFalse(JsonResponse.matches(mapper.readTree("\"1\""), 1));
+                assertFalse(JsonResponse.matches(mapper.readTree("1"), "1"));
+                assertTrue(JsonResponse.matches(mapper.readTree("{}").path("missing"), null));
+                assertTrue(JsonResponse.matches(mapper.readTree("[1,2]"), java.util.List.of(1, 2)));
+        }
+}
@@ -0,0 +1,108 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+public class InMemoryCompilerTest {
+
+        @DisplayName("Generated classes are compiled in memory, loaded and packaged")
+        @Test
+        public void testCompile(@TempDir Path tempDir) throws Exception {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.compiled", "LoopsTest");
+                generator.setConcurrent(true);
+                generator.setLoadDriver(true);
+                generator.setOutputDirectory(tempDir.resolve("unused").toString());
+                InMemoryCompiler.Result result = generator.compile(
+                                "src/test/resources/TestCollectionLoops.postman_collection.json",
+                                InMemoryCompiler.currentClasspath());
+
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                assertFalse(Files.exists(tempDir.resolve("unused")), "Nothing should be written to disk");
+                assertTrue(result.getClasses().containsKey("dk.kodeninjaer.testing.converter.compiled.LoopsTest"));
+                assertTrue(result.getClasses().containsKey("dk.kodeninjaer.testing.converter.compiled.LoopsTestLoad"));
+                assertTrue(result.getClasses().containsKey("dk.kodeninjaer.testing.converter.compiled.LoopsTest$OrderedTests1"),
+                                "Nested classes should be compiled");
+
+                Class<?> testClass = result.classLoader(getClass().getClassLoader())
+                                .loadClass("dk.kodeninjaer.testing.converter.compiled.LoopsTest");
+                assertTrue(testClass.getDeclaredClasses().length > 0);
+
+                Path jar = tempDir.resolve("tests.jar");
+                result.writeJar(jar);
+                try (JarFile file = new JarFile(jar.toFile())) {
+                        assertNotNull(file.getEntry("dk/kodeninjaer/testing/converter/compiled/LoopsTest.class"));
+                        assertNotNull(file.getEntry("dk/kodeninjaer/testing/converter/compiled/LoopsTest$OrderedTests1.class"));
+                        assertNotNull(file.getEntry("junit-platform.properties"));
+                }
+        }
+
+        @DisplayName("Compiler errors are reported with the Postman item they come from")
+        @Test
+        public void testDiagnosticsMappedToItems(@TempDir Path tempDir) throws IOException {
+                Path collection = tempDir.resolve("Broken.postman_collection.json");
+                Files.writeString(collection, "{\"info\":{\"name\":\"Broken\"},\"item\":["
+                                + "{\"name\":\"Fine\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"http://localhost/fine\"}}},"
+                                + "{\"name\":\"Folder\",\"item\":[{\"name\":\"Broken request\",\"request\":{\"method\":\"GET\","
+                                + "\"url\":{\"raw\":\"http://localhost/broken\"}},\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":["
+                                + "\"var jsonData = pm.response.json();\","
+                                + "\"pm.expect(jsonData.id).to.equal(pm.response.json().other);\"]}}]}]}]}");
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.compiled", "BrokenTest");
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+
+                assertFalse(result.isSuccess());
+                InMemoryCompiler.Problem problem = result.getProblems().stream()
+                                .filter(InMemoryCompiler.Problem::isError).findFirst().orElseThrow();
+                assertEquals("Folder_Broken request", problem.getItem());
+                assertEquals("dk.kodeninjaer.testing.converter.compiled.BrokenTest", problem.getClassName());
+                assertTrue(problem.toString().contains("Folder_Broken request"));
+        }
+
+        @DisplayName("Lines are mapped to the method they are in")
+        @Test
+        public void testItemAt() {
+                TestCase first = new TestCase();
+                first.name = "First request";
+                TestCase second = new TestCase();
+                second.name = "Second";
+                String source = "class A {\n"                        // 1
+                                + "    @Test\n"                      // 2
+                                + "    public void First_request() {\n" // 3
+                                + "        broken();\n"              // 4
+                                + "    }\n"                          // 5
+                                + "\n"                               // 6
+                                + "    @Nested\n"                    // 7
+                                + "    class OrderedTests1 {\n"      // 8
+                                + "        public void Second() {\n" // 9
+                                + "        }\n"                      // 10
+                                + "    }\n"                          // 11
+                                + "}\n";
+                List<TestCase> testCases = List.of(first, second);
+                assertNull(PostmanToRestAssuredGenerator.itemAt(source, testCases, 1));
+                assertEquals("First request", PostmanToRestAssuredGenerator.itemAt(source, testCases, 4));
+                assertEquals("First request", PostmanToRestAssuredGenerator.itemAt(source, testCases, 5));
+                assertNull(PostmanToRestAssuredGenerator.itemAt(source, testCases, 6));
+                assertEquals("Second", PostmanToRestAssuredGenerator.itemAt(source, testCases, 10));
+                assertNull(PostmanToRestAssuredGenerator.itemAt(source, testCases, 11));
+        }
+
+        @DisplayName("Sources without a package compile to classes of the default package")
+        @Test
+        public void testDefaultPackage() {
+                InMemoryCompiler.Result result = new InMemoryCompiler(List.of())
+                                .compile(Map.of("Plain", "public class Plain { class Inner {} }"));
+                assertTrue(result.isSuccess());
+                assertEquals(2, result.getClasses().size());
+        }
+}
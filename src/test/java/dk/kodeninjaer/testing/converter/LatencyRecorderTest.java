@@ -0,0 +1,68 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests of the latency recorder filter against a local stub server
+ */
+public class LatencyRecorderTest {
+
+        @RegisterExtension
+        final StubServer server = new StubServer().respond(request -> new StubServer.Response(
+                        request.path.equals("/missing") ? 404 : 200, null, "{\"message\":\"hello\"}"));
+
+        @DisplayName("The filter records latency, status and size of every request")
+        @Test
+        public void testFilter(@TempDir Path tempDir) throws IOException {
+                LatencyRecorder recorder = new LatencyRecorder("StubTest");
+                given().baseUri(server.baseUri()).filter(recorder.filter("Found")).when().get("/found").then().statusCode(200);
+                given().baseUri(server.baseUri()).filter(recorder.filter("Missing")).when().get("/missing").then().statusCode(404);
+
+                List<LatencyRecorder.Sample> samples = recorder.getSamples();
+                assertEquals(2, samples.size());
+                assertEquals("Found", samples.get(0).getRequest());
+                assertEquals(200, samples.get(0).getStatus());
+                assertEquals(19, samples.get(0).getBytes());
+                assertTrue(samples.get(0).getLatencyMillis() > 0);
+                assertEquals(404, samples.get(1).getStatus());
+
+                Path json = tempDir.resolve("report.json");
+                recorder.write(json);
+                JsonNode report = new ObjectMapper().readTree(json.toFile());
+                assertEquals(2, report.size());
+                assertEquals("GET", report.get(0).get("method").asText());
+                assertEquals(server.baseUri() + "/found", report.get(0).get("uri").asText());
+
+                Path csv = tempDir.resolve("report.csv");
+                recorder.write(csv);
+                List<String> lines = Files.readAllLines(csv);
+                assertEquals("request,method,uri,status,latency_ms,bytes", lines.get(0));
+                assertTrue(lines.get(2).startsWith("\"Missing\",GET,\"" + server.baseUri() + "/missing\",404,"));
+        }
+
+        @DisplayName("The report is written to the configured directory")
+        @Test
+        public void testReportDirectory(@TempDir Path tempDir) throws IOException {
+                System.setProperty(LatencyRecorder.REPORT_DIRECTORY_PROPERTY, tempDir.toString());
+                try {
+                        LatencyRecorder recorder = new LatencyRecorder("StubTest");
+                        recorder.record("Request", "GET", "/", 200, 1_000_000, 10);
+                        assertEquals(tempDir.resolve("StubTest.json"), recorder.write());
+                        assertTrue(Files.exists(tempDir.resolve("StubTest.json")));
+                } finally {
+                        System.clearProperty(LatencyRecorder.REPORT_DIRECTORY_PROPERTY);
+                }
+        }
+}
@@ -0,0 +1,151 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests of the load driver runtime against a local stub server
+ */
+public class LoadDriverTest {
+
+        private HttpServer server;
+        private HttpClient client;
+
+        @BeforeEach
+        public void startServer() throws IOException {
+                server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+                server.createContext("/ok", exchange -> {
+                        byte[] body = "{\"ok\":true}".getBytes();
+                        exchange.sendResponseHeaders(200, body.length);
+                        exchange.getResponseBody().write(body);
+                        exchange.close();
+                });
+                server.createContext("/fail", exchange -> {
+                        exchange.sendResponseHeaders(500, -1);
+                        exchange.close();
+                });
+                server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+                server.start();
+                client = HttpClient.newHttpClient();
+        }
+
+        @AfterEach
+        public void stopServer() {
+                server.stop(0);
+                client.close();
+        }
+
+        private LoadDriver.Request get(String path) {
+                URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+                return () -> {
+                        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(),
+                                        HttpResponse.BodyHandlers.ofString());
+                        assertEquals(200, response.statusCode());
+                };
+        }
+
+        @DisplayName("Requests are executed round robin and failed assertions are counted as errors")
+        @Test
+        public void testRunUnpaced() throws Exception {
+                LoadDriver driver = new LoadDriver("Stub").configure(new String[] { "--concurrency", "4", "--duration", "1" });
+                driver.addRequest("ok", get("/ok"));
+                driver.addRequest("fail", get("/fail"));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                List<LoadDriver.Result> results = driver.run(new PrintStream(out));
+
+                assertEquals(2, results.size());
+                LoadDriver.Result ok = results.get(0);
+                LoadDriver.Result fail = results.get(1);
+                assertEquals("ok", ok.getName());
+                assertTrue(ok.getCount() > 0, "Requests should be executed");
+                assertEquals(0, ok.getErrors());
+                assertEquals(fail.getCount(), fail.getErrors(), "Every failed assertion should be an error");
+                assertTrue(Math.abs(ok.getCount() - fail.getCount()) <= 4, "Requests should be executed round robin");
+                assertTrue(ok.getP50() <= ok.getP95() && ok.getP95() <= ok.getP99() && ok.getP99() <= ok.getMax());
+                assertTrue(out.toString().contains("p99 ms"), "Summary should be printed");
+        }
+
+        @DisplayName("A target rate paces the executions")
+        @Test
+        public void testRunPaced() throws Exception {
+                LoadDriver driver = new LoadDriver("Stub");
+                driver.setConcurrency(8);
+                driver.setRate(50);
+                driver.setDuration(Duration.ofSeconds(1));
+                driver.addRequest("ok", get("/ok"));
+
+                List<LoadDriver.Result> results = driver.run(new PrintStream(new ByteArrayOutputStream()));
+
+                assertEquals(50, results.get(0).getCount(), "One second at 50 requests/s should execute 50 requests");
+        }
+
+        @DisplayName("The summary is written as JSON or CSV")
+        @Test
+        public void testReport(@TempDir Path tempDir) throws Exception {
+                Path json = tempDir.resolve("report.json");
+                Path csv = tempDir.resolve("report.csv");
+                for (Path report : new Path[] { json, csv }) {
+                        LoadDriver driver = new LoadDriver("Stub").configure(
+                                        new String[] { "--duration", "PT0.2S", "--report", report.toString() });
+                        driver.addRequest("ok", get("/ok"));
+                        driver.run(new PrintStream(new ByteArrayOutputStream()));
+                }
+
+                JsonNode node = new ObjectMapper().readTree(json.toFile()).get(0);
+                assertEquals("ok", node.get("request").asText());
+                for (String field : new String[] { "count", "errors", "throughput", "p50_ms", "p95_ms", "p99_ms", "max_ms" }) {
+                        assertTrue(node.has(field), "JSON report should contain " + field);
+                }
+                List<String> lines = Files.readAllLines(csv);
+                assertEquals("request,count,errors,throughput,p50_ms,p95_ms,p99_ms,max_ms", lines.get(0));
+                assertTrue(lines.get(1).startsWith("\"ok\","));
+        }
+
+        @DisplayName("Invalid options are rejected")
+        @Test
+        public void testInvalidOptions() {
+                LoadDriver driver = new LoadDriver("Stub");
+                assertThrows(IllegalArgumentException.class, () -> driver.configure(new String[] { "--unknown", "1" }));
+                assertThrows(IllegalArgumentException.class, () -> driver.configure(new String[] { "--rate" }));
+                assertThrows(IllegalArgumentException.class, () -> driver.configure(new String[] { "--concurrency", "0" }));
+                assertThrows(IllegalStateException.class, () -> driver.run(System.out));
+        }
+
+        @DisplayName("Histogram percentiles are within the bucket precision")
+        @Test
+        public void testHistogram() {
+                LatencyHistogram histogram = new LatencyHistogram();
+                for (long micros = 1; micros <= 100_000; micros++) {
+                        histogram.record(micros);
+                }
+                assertEquals(100_000, histogram.getCount());
+                assertEquals(100_000, histogram.getMax());
+                assertEquals(50_000, histogram.getPercentile(50), 50_000 / 64.0);
+                assertEquals(95_000, histogram.getPercentile(95), 95_000 / 64.0);
+                assertEquals(99_000, histogram.getPercentile(99), 99_000 / 64.0);
+                assertEquals(100_000, histogram.getPercentile(100));
+                assertEquals(0, new LatencyHistogram().getPercentile(99));
+        }
+}
@@ -0,0 +1,122 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+public class ModelCacheTest {
+
+        @ParameterizedTest(name = "Round trip of {arguments}")
+        @ValueSource(strings = { "TestCollection", "TestCollectionFolders", "TestCollectionLoops",
+                        "TestCollectionScripts", "TestCollectionVariables" })
+        public void testRoundTrip(String collection) throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.model", collection + "Test");
+                ParsedCollection parsed = generator.parse("src/test/resources/" + collection + ".postman_collection.json");
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ModelCache.write(parsed, "hash", bytes);
+                ParsedCollection read = ModelCache.read(new ByteArrayInputStream(bytes.toByteArray()), "hash");
+
+                assertNotNull(read);
+                assertEquals(parsed.getTestCases().size(), read.getTestCases().size());
+                assertEquals(parsed.getCollectionVariables().size(), read.getCollectionVariables().size());
+                for (int i = 0; i < parsed.getTestCases().size(); i++) {
+                        assertEquals(parsed.getTestCases().get(i).getReads(), read.getTestCases().get(i).getReads());
+                        assertEquals(parsed.getTestCases().get(i).getWrites(), read.getTestCases().get(i).getWrites());
+                }
+                assertEquals(generator.renderTestClass(parsed, null), generator.renderTestClass(read, null),
+                                "The model read back should render the same test class");
+        }
+
+        @DisplayName("Strings are stored once and the header is checked")
+        @Test
+        public void testHeader() throws IOException {
+                ParsedCollection model = new ParsedCollection();
+                model.baseUrl = "http://localhost";
+                model.testCases = new ArrayList<>();
+                model.setCollectionVariables(List.of());
+                for (int i = 0; i < 100; i++) {
+                        TestCase testCase = new TestCase();
+                        testCase.name = "Request" + i;
+                        testCase.method = "GET";
+                        testCase.url = "{{baseUrl}}/a/rather/long/path/that/is/the/same/for/every/request";
+                        testCase.headers.put("Content-Type", "application/json");
+                        model.testCases.add(testCase);
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ModelCache.write(model, "hash", bytes);
+                assertTrue(bytes.size() < 100 * 50, "Repeated strings should be stored once, size " + bytes.size());
+
+                assertNull(ModelCache.read(new ByteArrayInputStream(bytes.toByteArray()), "other"),
+                                "A model of other collection content should be ignored");
+                byte[] otherVersion = bytes.toByteArray();
+                otherVersion[7]++;
+                assertNull(ModelCache.read(new ByteArrayInputStream(otherVersion), "hash"),
+                                "A model of another format version should be ignored");
+        }
+
+        @DisplayName("Collections larger than the read buffer are hashed by their whole content")
+        @Test
+        public void testHash(@TempDir Path tempDir) throws Exception {
+                byte[] content = new byte[100_000];
+                for (int i = 0; i < content.length; i++) {
+                        content[i] = (byte) i;
+                }
+                Path collection = tempDir.resolve("Large.postman_collection.json");
+                Files.write(collection, content);
+                String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+                assertEquals(expected, ModelCache.hash(collection));
+        }
+
+        @DisplayName("Conversions with other options read the cached model until the collection changes")
+        @Test
+        public void testGenerateFromCache(@TempDir Path tempDir) throws IOException {
+                Path collection = tempDir.resolve("Scripts.postman_collection.json");
+                Files.copy(Path.of("src/test/resources/TestCollectionScripts.postman_collection.json"), collection);
+
+                PostmanToRestAssuredGenerator first = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.model", "ScriptsTest");
+                first.setOutputDirectory(tempDir.resolve("first").toString());
+                first.setModelCache(true);
+                GenerationMetrics parsed = first.generate(collection.toString());
+                assertTrue(Files.exists(ModelCache.modelPath(collection)), "The model should be cached next to the collection");
+                assertTrue(parsed.getMillis(GenerationMetrics.Phase.LEX) > 0);
+
+                PostmanToRestAssuredGenerator second = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.model", "ScriptsTest");
+                second.setOutputDirectory(tempDir.resolve("second").toString());
+                second.setModelCache(true);
+                second.setConcurrent(true);
+                GenerationMetrics cached = second.generate(collection.toString());
+                assertEquals(0, cached.getMillis(GenerationMetrics.Phase.LEX), "A cached model needs no script analysis");
+                assertEquals(parsed.getItems(), cached.getItems());
+                assertEquals(parsed.getAssertions(), cached.getAssertions());
+
+                PostmanToRestAssuredGenerator uncached = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.model", "ScriptsTest");
+                uncached.setOutputDirectory(tempDir.resolve("uncached").toString());
+                uncached.setConcurrent(true);
+                uncached.generate(collection.toString());
+                String path = "dk/kodeninjaer/testing/converter/model/ScriptsTest.java";
+                assertEquals(Files.readString(tempDir.resolve("uncached").resolve(path)),
+                                Files.readString(tempDir.resolve("second").resolve(path)));
+
+                Files.writeString(collection, Files.readString(collection).replace("\"GET\"", "\"POST\""));
+                assertTrue(second.generate(collection.toString()).getMillis(GenerationMetrics.Phase.LEX) > 0,
+                                "A changed collection should be parsed again");
+        }
+}
@@ -8,9 +8,20 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -165,4 +176,497 @@ public class PostmanToRestAssuredGeneratorTest {
                 }
         }
 
-}
\ No newline at end of file
+        @ParameterizedTest(name = "Parallel pipeline {index} matches sequential output for collection: {arguments}")
+        @ValueSource(strings = { "src/test/resources/TestCollection.postman_collection.json",
+                        "src/test/resources/TestCollectionFolders.postman_collection.json",
+                        "src/test/resources/TestCollectionScripts.postman_collection.json",
+                        "src/test/resources/TestCollectionVariables.postman_collection.json" })
+        void parallelOutputMatchesSequential(Path collectionPath) throws IOException {
+                assertParallelMatchesSequential(collectionPath);
+        }
+
+        @DisplayName("Parallel pipeline keeps collection order on a large synthetic collection")
+        @Test
+        public void parallelOutputMatchesSequentialOnLargeCollection(@TempDir Path tempDir) throws IOException {
+                StringBuilder collection = new StringBuilder("{\"info\":{\"url\":\"http://localhost\"},\"item\":[");
+                for (int folder = 0; folder < 20; folder++) {
+                        collection.append(folder == 0 ? "" : ",").append("{\"name\":\"Folder ").append(folder)
+                                        .append("\",\"item\":[{\"name\":\"Sub\",\"item\":[");
+                        for (int request = 0; request < 100; request++) {
+                                collection.append(request == 0 ? "" : ",").append("{\"name\":\"Request ").append(request)
+                                                .append("\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"{{url}}/get/")
+                                                .append(request).append("\"}},\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[")
+                                                .append("\"pm.response.to.have.status(200);\"]}}]}");
+                        }
+                        collection.append("]}]}");
+                }
+                collection.append("],\"variable\":[{\"key\":\"url\",\"value\":\"http://localhost\"}]}");
+                Path collectionPath = tempDir.resolve("Large.postman_collection.json");
+                Files.writeString(collectionPath, collection.toString());
+
+                assertParallelMatchesSequential(collectionPath);
+        }
+
+        @DisplayName("Parallel streaming parse holds a bounded number of pending items")
+        @Test
+        public void parallelStreamingParseBoundsPendingItems(@TempDir Path tempDir) throws IOException {
+                int requests = PostmanToRestAssuredGenerator.MAX_PENDING_PARSES * 20;
+                StringBuilder collection = new StringBuilder("{\"info\":{\"url\":\"http://localhost\"},\"item\":[");
+                for (int request = 0; request < requests; request++) {
+                        collection.append(request == 0 ? "" : ",").append("{\"name\":\"Request ").append(request)
+                                        .append("\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"http://localhost/get/")
+                                        .append(request).append("\"}}}");
+                }
+                collection.append("]}");
+                Path collectionPath = tempDir.resolve("Pending.postman_collection.json");
+                Files.writeString(collectionPath, collection.toString());
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.parallel", "PendingTest");
+                generator.setParallel(true);
+                generator.setStreamingParse(true);
+                generator.setOutputDirectory(tempDir.resolve("out").toString());
+                GenerationMetrics metrics = generator.generate(collectionPath.toString());
+
+                assertEquals(requests, metrics.getItems());
+                String source = Files.readString(tempDir.resolve("out/dk/kodeninjaer/testing/converter/parallel/PendingTest.java"));
+                int previous = -1;
+                for (int request = 0; request < requests; request++) {
+                        int index = source.indexOf("public void Request_" + request + "()");
+                        assertTrue(index > previous, "Request " + request + " should keep its collection order");
+                        previous = index;
+                }
+                assertTrue(metrics.getPeakPendingItems() > 0);
+                assertTrue(metrics.getPeakPendingItems() <= PostmanToRestAssuredGenerator.MAX_PENDING_PARSES,
+                                "At most " + PostmanToRestAssuredGenerator.MAX_PENDING_PARSES + " items should be pending, was "
+                                                + metrics.getPeakPendingItems());
+        }
+
+        /**
+         * Method to generate a collection with the sequential and the parallel pipeline and compare the output
+         * @param collectionPath
+         * @throws IOException
+         */
+        private static void assertParallelMatchesSequential(Path collectionPath) throws IOException {
+                Path outputDir = Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "/dk/kodeninjaer/testing/converter/parallel");
+
+                PostmanToRestAssuredGenerator sequential = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.parallel", "SequentialTest");
+                sequential.generate(collectionPath.toString());
+
+                for (boolean streaming : new boolean[] { false, true }) {
+                        PostmanToRestAssuredGenerator parallel = new PostmanToRestAssuredGenerator(
+                                        "dk.kodeninjaer.testing.converter.parallel", "ParallelTest");
+                        parallel.setParallel(true);
+                        parallel.setStreamingParse(streaming);
+                        parallel.generate(collectionPath.toString());
+
+                        String expected = Files.readString(outputDir.resolve("SequentialTest.java"));
+                        String actual = Files.readString(outputDir.resolve("ParallelTest.java"));
+                        assertEquals(expected.replace("SequentialTest", "ParallelTest"), actual,
+                                        "Parallel pipeline should generate the same test class as the sequential path");
+                }
+        }
+
+        @DisplayName("Incremental regeneration leaves unchanged output and cache untouched")
+        @Test
+        public void incrementalRegenerationSkipsUnchangedFiles(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Incremental.postman_collection.json");
+                Files.copy(Path.of("src/test/resources/TestCollectionVariables.postman_collection.json"), collectionPath);
+                Path outputPath = Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/incremental/IncrementalTest.java");
+                Path cachePath = Path.of(PostmanToRestAssuredGenerator.CACHE_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/incremental/IncrementalTest.cache");
+                Files.deleteIfExists(cachePath);
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.incremental", "IncrementalTest");
+                generator.setIncremental(true);
+                generator.generate(collectionPath.toString());
+                String firstRun = Files.readString(outputPath);
+                assertTrue(Files.exists(cachePath), "Render cache should be written");
+
+                // A no-op regeneration must not touch the output or the cache
+                FileTime old = FileTime.fromMillis(0);
+                Files.setLastModifiedTime(outputPath, old);
+                Files.setLastModifiedTime(cachePath, old);
+                generator.generate(collectionPath.toString());
+                assertEquals(old, Files.getLastModifiedTime(outputPath), "Unchanged output should not be rewritten");
+                assertEquals(old, Files.getLastModifiedTime(cachePath), "Unchanged cache should not be rewritten");
+
+                // A changed item is rendered again and the file is rewritten
+                Files.writeString(collectionPath, Files.readString(collectionPath).replace("/delete", "/remove"));
+                generator.generate(collectionPath.toString());
+                String secondRun = Files.readString(outputPath);
+                assertNotEquals(old, Files.getLastModifiedTime(outputPath), "Changed output should be rewritten");
+                assertEquals(firstRun.replace("/delete", "/remove"), secondRun);
+
+                // The cached output equals a full regeneration
+                PostmanToRestAssuredGenerator full = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.incremental", "IncrementalTest");
+                full.generate(collectionPath.toString());
+                assertEquals(secondRun, Files.readString(outputPath));
+        }
+
+        @DisplayName("Incremental regeneration reports the unresolved variables of cached methods")
+        @Test
+        public void incrementalRegenerationCountsUnresolvedVariables(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Unresolved.postman_collection.json");
+                Files.writeString(collectionPath, "{\"info\":{\"url\":\"http://localhost\"},\"item\":["
+                                + "{\"name\":\"A\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"{{url}}/{{missing}}\"},"
+                                + "\"header\":[{\"key\":\"X-Trace\",\"value\":\"{{trace}}\"}],"
+                                + "\"body\":{\"mode\":\"raw\",\"raw\":\"{{payload}}\"}}},"
+                                + "{\"name\":\"B\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"{{url}}/{{missing}}\"}}}],"
+                                + "\"variable\":[{\"key\":\"url\",\"value\":\"http://localhost\"}]}");
+                Path outputPath = tempDir.resolve("out/dk/kodeninjaer/testing/converter/unresolved/UnresolvedTest.java");
+                Files.deleteIfExists(Path.of(PostmanToRestAssuredGenerator.CACHE_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/unresolved/UnresolvedTest.cache"));
+
+                List<Long> unresolved = new ArrayList<>();
+                List<String> sources = new ArrayList<>();
+                for (int run = 0; run < 2; run++) {
+                        PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                        "dk.kodeninjaer.testing.converter.unresolved", "UnresolvedTest");
+                        generator.setIncremental(true);
+                        generator.setOutputDirectory(tempDir.resolve("out").toString());
+                        unresolved.add(generator.generate(collectionPath.toString()).getUnresolvedVariables());
+                        sources.add(Files.readString(outputPath));
+                }
+                assertEquals(List.of(3L, 3L), unresolved, "The cold and the warm run should count the same variables");
+                assertEquals(sources.get(0), sources.get(1));
+        }
+
+        @DisplayName("Load driver registers every request of the collection")
+        @Test
+        public void loadDriverIsGeneratedNextToTestClass() throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.load", "TestCollectionVariablesTest");
+                generator.setLoadDriver(true);
+                generator.generate("src/test/resources/TestCollectionVariables.postman_collection.json");
+
+                Path outputDir = Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/load");
+                assertTrue(Files.exists(outputDir.resolve("TestCollectionVariablesTest.java")),
+                                "Test class should still be generated");
+                String content = Files.readString(outputDir.resolve("TestCollectionVariablesTestLoad.java"));
+                assertTrue(content.contains("public class TestCollectionVariablesTestLoad {"));
+                assertTrue(content.contains("new ConcurrentHashMap<>()"), "Load driver state should be thread safe");
+                assertTrue(content.contains("new LoadDriver(\"TestCollectionVariablesTest\").configure(args)"));
+                long tests = Pattern.compile("@Test").matcher(
+                                Files.readString(outputDir.resolve("TestCollectionVariablesTest.java"))).results().count();
+                long requests = Pattern.compile("driver\\.addRequest\\(").matcher(content).results().count();
+                assertEquals(tests, requests, "Every request should be registered with the driver");
+                assertFalse(content.contains("@Test"), "Load driver should not contain tests");
+        }
+
+        @DisplayName("Concurrent tests keep tests sharing environment variables in an ordered group")
+        @Test
+        public void concurrentTestsGroupOrderDependentTests(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Concurrent.postman_collection.json");
+                Files.writeString(collectionPath, "{\"info\":{\"url\":\"http://localhost\"},\"item\":["
+                                + "{\"name\":\"Independent\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/get\"}},"
+                                + "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[\"pm.response.to.have.status(200);\"]}}]},"
+                                + "{\"name\":\"Login\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"/post\"}},"
+                                + "\"event\":[{\"listen\":\"prerequest\",\"script\":{\"exec\":[\"pm.environment.set(\\\"token\\\", \\\"abc\\\");\"]}}]},"
+                                + "{\"name\":\"Profile\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/get\"}},"
+                                + "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":["
+                                + "\"pm.expect(jsonData.token).to.equal(pm.environment.get(\\\"token\\\"));\"]}}]}]}");
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.concurrent", "ConcurrentTest");
+                generator.setConcurrent(true);
+                generator.setResourceDirectory(tempDir.toString());
+                generator.generate(collectionPath.toString());
+
+                String content = Files.readString(Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/concurrent/ConcurrentTest.java"));
+                assertTrue(content.contains("@Execution(ExecutionMode.CONCURRENT)\npublic class ConcurrentTest {"));
+                assertTrue(content.contains("environment = new ConcurrentHashMap<>()"));
+                assertFalse(content.contains("new HashMap<>()"), "Shared state should use concurrent maps");
+
+                int group = content.indexOf("class OrderedTests1 {");
+                assertTrue(group > 0, "Tests sharing environment variables should be grouped");
+                assertTrue(content.indexOf("public void Independent()") < group, "Independent tests should run concurrently");
+                int login = content.indexOf("        @Order(1)\n        @Test\n        public void Login()");
+                int profile = content.indexOf("        @Order(2)\n        @Test\n        public void Profile()");
+                assertTrue(group < login && login < profile, "Grouped tests should keep collection order");
+
+                String properties = Files.readString(tempDir.resolve("junit-platform.properties"));
+                assertTrue(properties.contains("junit.jupiter.execution.parallel.enabled = true"));
+        }
+
+        @DisplayName("Only requests linked through variables are ordered")
+        @Test
+        public void dependentRequestsAreOrdered() throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.dependencies", "TestCollectionLoopsTest");
+                generator.generate("src/test/resources/TestCollectionLoops.postman_collection.json");
+
+                String content = Files.readString(Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/dependencies/TestCollectionLoopsTest.java"));
+                int group = content.indexOf("    @TestMethodOrder(MethodOrderer.OrderAnnotation.class)\n    class OrderedTests1 {");
+                assertTrue(group > 0, "Requests sharing the counter variable should be grouped");
+                assertFalse(content.contains("OrderedTests2"));
+                assertTrue(content.indexOf("public void PostLoop()") < group, "Independent requests should not be ordered");
+                int start = content.indexOf("@Order(1)\n        @Test\n        public void LoopStart()");
+                int middle = content.indexOf("@Order(2)\n        @Test\n        public void LoopMiddle()");
+                int end = content.indexOf("@Order(3)\n        @Test\n        public void LoopEnd()");
+                assertTrue(group < start && start < middle && middle < end, "Dependent requests should keep collection order");
+                assertFalse(content.contains("@Execution"), "Tests are only made concurrent on request");
+        }
+
+        @DisplayName("Generate returns phase timings and counts of the conversion")
+        @Test
+        public void generateReturnsMetrics(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Metrics.postman_collection.json");
+                Files.writeString(collectionPath, "{\"info\":{\"url\":\"http://localhost\"},\"item\":["
+                                + "{\"name\":\"A\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"{{url}}/{{missing}}\"}},"
+                                + "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[\"pm.response.to.have.status(200);\","
+                                + "\"pm.response.to.be.json;\"]}}]},"
+                                + "{\"name\":\"B\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"{{url}}\"}}}],"
+                                + "\"variable\":[{\"key\":\"url\",\"value\":\"http://localhost\"}]}");
+
+                for (boolean streaming : new boolean[] { false, true }) {
+                        PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                        "dk.kodeninjaer.testing.converter.metrics", "MetricsTest");
+                        generator.setOutputDirectory(tempDir.resolve("out" + streaming).toString());
+                        generator.setStreamingParse(streaming);
+                        GenerationMetrics metrics = generator.generate(collectionPath.toString());
+
+                        assertEquals(collectionPath.toString(), metrics.getCollection());
+                        assertEquals(2, metrics.getItems());
+                        assertEquals(2, metrics.getAssertions());
+                        assertEquals(1, metrics.getUnresolvedVariables(), "Only the undeclared variable is unresolved");
+                        assertEquals(1, metrics.getFilesWritten());
+                        assertEquals(Files.size(tempDir.resolve("out" + streaming
+                                        + "/dk/kodeninjaer/testing/converter/metrics/MetricsTest.java")), metrics.getBytesWritten());
+                        for (GenerationMetrics.Phase phase : GenerationMetrics.Phase.values()) {
+                                assertTrue(metrics.getMillis(phase) >= 0);
+                                assertTrue(metrics.toJson().path("phasesMs").has(phase.name().toLowerCase()));
+                        }
+                        assertTrue(metrics.getTotalMillis() > 0);
+                        assertTrue(metrics.getMillis(GenerationMetrics.Phase.EMIT) <= metrics.getTotalMillis());
+
+                        // An unchanged regeneration writes nothing
+                        assertEquals(0, generator.generate(collectionPath.toString()).getBytesWritten());
+                }
+        }
+
+        @DisplayName("Response time expectations become time assertions and requests are recorded")
+        @Test
+        public void responseTimeAssertionsAndLatencyRecording(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Latency.postman_collection.json");
+                Files.writeString(collectionPath, "{\"info\":{\"url\":\"http://localhost\"},\"item\":["
+                                + "{\"name\":\"Fast\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/get\"}},"
+                                + "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":["
+                                + "\"pm.test(\\\"Response time is less than 200ms\\\", function () {\","
+                                + "\"    pm.expect(pm.response.responseTime).to.be.below(200);\","
+                                + "\"    pm.expect(pm.response.responseTime).to.be.lessThan(250.4);\","
+                                + "\"    pm.expect(pm.response.responseTime).to.be.at.most(pm.environment.get(\\\"sla\\\"));\","
+                                + "\"    pm.expect(pm.response.responseTime).to.be.below(limit * 2);\","
+                                + "\"});\"]}}]}]}");
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.latency", "LatencyTest");
+                generator.setRecordLatency(true);
+                generator.generate(collectionPath.toString());
+
+                String content = Files.readString(Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "dk/kodeninjaer/testing/converter/latency/LatencyTest.java"));
+                assertTrue(content.contains("response.then().time(lessThan(200L));"));
+                assertTrue(content.contains("response.then().time(lessThan(250L));"));
+                assertTrue(content.contains("response.then().time(lessThanOrEqualTo(Long.parseLong(environment.get(\"sla\"))));"));
+                assertEquals(3, Pattern.compile("\\.time\\(").matcher(content).results().count(),
+                                "Unsupported bounds should be skipped");
+                assertTrue(content.contains("private static final LatencyRecorder latencyRecorder = new LatencyRecorder(\"LatencyTest\");"));
+                assertTrue(content.contains("given(requestSpec)\n            .filter(latencyRecorder.filter(\"Fast\"))"));
+                assertTrue(content.contains("@AfterAll\n    public static void writeLatencyReport()"));
+        }
+
+        @DisplayName("Constant headers and assertions shared by requests are declared once")
+        @Test
+        public void sharedFragmentsAreDeduplicated(@TempDir Path tempDir) throws IOException {
+                Path collectionPath = tempDir.resolve("Shared.postman_collection.json");
+                String headers = "\"header\":[{\"key\":\"Authorization\",\"value\":\"Bearer {{token}}\"},"
+                                + "{\"key\":\"Accept\",\"value\":\"application/json\"}]";
+                String status = "\"event\":[{\"listen\":\"test\",\"script\":{\"exec\":[\"pm.response.to.have.status(200);\"]}}]";
+                Files.writeString(collectionPath, "{\"info\":{\"url\":\"http://localhost\"},\"item\":["
+                                + "{\"name\":\"First\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/first\"}," + headers + "}," + status + "},"
+                                + "{\"name\":\"Second\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/second\"}," + headers + "}," + status + "},"
+                                + "{\"name\":\"Third\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/third\"}}," + status + "}],"
+                                + "\"variable\":[{\"key\":\"token\",\"value\":\"abc\"}]}");
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.shared", "SharedTest");
+                generator.setDeduplicate(true);
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.generate(collectionPath.toString());
+
+                String content = Files.readString(tempDir.resolve("src/dk/kodeninjaer/testing/converter/shared/SharedTest.java"));
+                assertTrue(content.contains("    private static final Map<String, String> headers1 = Map.of(\"Accept\", \"application/json\");\n"), content);
+                assertTrue(content.contains("        RequestSpecification spec = given(requestSpec)\n"
+                                + "            .headers(headers1)\n"
+                                + "            .header(\"Authorization\", \"Bearer \" + collectionVariables.get(\"token\"));\n"));
+                assertTrue(content.contains("        RequestSpecification spec = given(requestSpec);\n"), "Requests without headers add none");
+                assertEquals(2, Pattern.compile("\\.headers\\(headers1\\)").matcher(content).results().count());
+                assertFalse(content.contains("HashMap<String, String>() {{"), "No anonymous map classes should be generated");
+                assertTrue(content.contains("    private static void assertions1(Response response) {\n"
+                                + "        response.then().statusCode(200);\n    }"));
+                assertEquals(3, Pattern.compile("        assertions1\\(response\\);").matcher(content).results().count());
+                assertEquals(1, Pattern.compile("statusCode\\(200\\)").matcher(content).results().count(),
+                                "The assertion should be declared once");
+
+                InMemoryCompiler.Result result = new InMemoryCompiler(InMemoryCompiler.currentClasspath())
+                                .compile(java.util.Map.of("dk.kodeninjaer.testing.converter.shared.SharedTest", content));
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+        }
+
+        @DisplayName("Split classes per top-level folder share a base class holding the setup")
+        @Test
+        public void splitByFolderSharesBaseClass(@TempDir Path tempDir) throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.split", "SplitTest");
+                generator.setSplitByFolder(true);
+                generator.setOutputDirectory(tempDir.toString());
+                generator.generate("src/test/resources/TestCollectionFolders.postman_collection.json");
+
+                Path directory = tempDir.resolve("dk/kodeninjaer/testing/converter/split");
+                assertFalse(Files.exists(directory.resolve("SplitTest.java")), "No single class should be written");
+                String base = Files.readString(directory.resolve("SplitTestBase.java"));
+                assertTrue(base.contains("public abstract class SplitTestBase {"));
+                assertTrue(base.contains("    protected static Map<String, String> collectionVariables = new HashMap<>();"));
+                assertTrue(base.contains("    public static synchronized void setup() {\n        if (requestSpec != null) {"),
+                                "The setup should run once for all classes");
+                assertFalse(base.contains("@Test"));
+
+                String[] folders = {"PUTnPOST", "GET", "DELETE"};
+                for (int i = 0; i < folders.length; i++) {
+                        String content = Files.readString(directory.resolve("SplitTest" + (i + 1) + ".java"));
+                        assertTrue(content.contains("public class SplitTest" + (i + 1) + " extends SplitTestBase {"));
+                        assertTrue(content.contains("public void " + folders[i] + "_Folder_"), content);
+                        assertFalse(content.contains("setup()"));
+                }
+                String root = Files.readString(directory.resolve("SplitTest4.java"));
+                assertTrue(root.contains("public void GET_Request_NOT_in_folder()"), "Top-level requests share a class");
+                assertFalse(Files.exists(directory.resolve("SplitTest5.java")));
+
+                InMemoryCompiler.Result result = generator.compile(
+                                "src/test/resources/TestCollectionFolders.postman_collection.json", InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                assertTrue(result.getClasses().containsKey("dk.kodeninjaer.testing.converter.split.SplitTest4"));
+        }
+
+        @DisplayName("Split classes and the load driver open externalized bodies through the base class")
+        @Test
+        public void splitOpensBodiesThroughBaseClass() throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.split", "BodiesTest");
+                generator.setSplitByFolder(true);
+                generator.setSplitSize(1);
+                generator.setBodyResourceThreshold(20);
+                generator.setLoadDriver(true);
+                InMemoryCompiler.Result result = generator.compile(
+                                "src/test/resources/TestCollectionFolders.postman_collection.json", InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+                assertTrue(result.getResources().keySet().stream().anyMatch(name -> name.endsWith(".body")),
+                                "The collection should have bodies above the threshold");
+                assertTrue(result.getClasses().containsKey("dk.kodeninjaer.testing.converter.split.BodiesTestLoad"));
+        }
+
+        @DisplayName("Split classes per number of requests keep dependent requests together")
+        @Test
+        public void splitBySizeKeepsChainsTogether(@TempDir Path tempDir) throws IOException {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.split", "LoopsTest");
+                generator.setSplitSize(1);
+                generator.setOutputDirectory(tempDir.toString());
+                generator.generate("src/test/resources/TestCollectionLoops.postman_collection.json");
+
+                Path directory = tempDir.resolve("dk/kodeninjaer/testing/converter/split");
+                int classes = 0;
+                String chain = null;
+                for (int i = 1; Files.exists(directory.resolve("LoopsTest" + i + ".java")); i++) {
+                        String content = Files.readString(directory.resolve("LoopsTest" + i + ".java"));
+                        if (content.contains("class OrderedTests1 {")) {
+                                assertNull(chain, "Only one class should hold the chain");
+                                chain = content;
+                        } else {
+                                assertEquals(1, Pattern.compile("@Test").matcher(content).results().count(), content);
+                        }
+                        classes++;
+                }
+                assertNotNull(chain);
+                assertTrue(chain.indexOf("public void LoopStart()") < chain.indexOf("public void LoopMiddle()")
+                                && chain.indexOf("public void LoopMiddle()") < chain.indexOf("public void LoopEnd()"));
+                assertTrue(classes > 1);
+
+                InMemoryCompiler.Result result = generator.compile(
+                                "src/test/resources/TestCollectionLoops.postman_collection.json", InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+        }
+
+        @DisplayName("Collections are converted between streams without touching the disk")
+        @Test
+        public void streamsAreConvertedInMemory(@TempDir Path tempDir) throws Exception {
+                String collection = Files.readString(Path.of("src/test/resources/TestCollectionFolders.postman_collection.json"));
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.streams", "StreamsTest");
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.setResourceDirectory(tempDir.resolve("resources").toString());
+                generator.setBodyResourceThreshold(10);
+                generator.setIncremental(true);
+
+                StringWriter source = new StringWriter();
+                GenerationMetrics metrics = generator.generate(new StringReader(collection), source);
+                assertEquals(5, metrics.getItems());
+                assertFalse(Files.exists(tempDir.resolve("src")), "No source should be written");
+                assertFalse(Files.exists(tempDir.resolve("resources")), "Bodies should be inlined");
+                assertFalse(source.toString().contains("BodyResource"));
+                PostmanToRestAssuredGenerator reference = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.streams", "StreamsTest");
+                assertEquals(reference.renderTestClass(reference.parse(new StringReader(collection)), null), source.toString(),
+                                "The stream should hold the class generated from a file");
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                generator.generate(new ByteArrayInputStream(collection.getBytes(StandardCharsets.UTF_8)), bytes);
+                assertEquals(source.toString(), bytes.toString(StandardCharsets.UTF_8));
+
+                InMemoryCompiler.Result result = new InMemoryCompiler(InMemoryCompiler.currentClasspath())
+                                .compile(java.util.Map.of("dk.kodeninjaer.testing.converter.streams.StreamsTest", source.toString()));
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+
+                generator.setSplitSize(2);
+                assertThrows(IllegalStateException.class, () -> generator.generate(new StringReader(collection), new StringWriter()));
+        }
+
+        @DisplayName("One generator converts streams on many threads at once")
+        @Test
+        public void concurrentStreamConversions() throws Exception {
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.streams", "ConcurrentStreamsTest");
+                ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                        List<Future<String>> sources = new ArrayList<>();
+                        for (int i = 0; i < 64; i++) {
+                                int request = i;
+                                sources.add(executor.submit(() -> {
+                                        StringBuilder out = new StringBuilder();
+                                        GenerationMetrics metrics = generator.generate(new StringReader(
+                                                        "{\"info\":{\"url\":\"http://localhost\"},\"item\":[{\"name\":\"Request " + request
+                                                        + "\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/r" + request + "\"}}}]}"), out);
+                                        assertEquals(1, metrics.getItems(), "Every conversion should have its own metrics");
+                                        return out.toString();
+                                }));
+                        }
+                        for (int i = 0; i < sources.size(); i++) {
+                                String source = sources.get(i).get();
+                                assertTrue(source.contains("public void Request_" + i + "()"), source);
+                                assertEquals(1, Pattern.compile("@Test").matcher(source).results().count());
+                        }
+                } finally {
+                        executor.shutdownNow();
+                }
+        }
+
+}
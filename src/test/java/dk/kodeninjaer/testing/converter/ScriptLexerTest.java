@@ -0,0 +1,149 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Regression tests for the script lexer. The scripts of {@link PatternsTest} are lexed and the
+ * result is compared with what the regular expressions in {@link Patterns} recognise
+ */
+public class ScriptLexerTest {
+
+    @DisplayName("Test Class cannot be instantiated")
+    @Test
+    public void testConstructor() {
+        assertThrows(IllegalAccessException.class, () -> {
+            ScriptLexer.class.getDeclaredConstructor().newInstance();
+        });
+    }
+
+    /**
+     * Method to provide every script of PatternsTest
+     * @return
+     */
+    private static Stream<Arguments> provideScripts() {
+        return IntStream.range(0, PatternsTest.parameters.length)
+                .mapToObj(i -> Arguments.of(PatternsTest.parameters[i]));
+    }
+
+    @ParameterizedTest(name = "Test setter #{index} with script: {arguments}")
+    @MethodSource("provideScripts")
+    public void testSetters(String script) {
+        Matcher matcher = Patterns.VAR_SET.matcher(script);
+        List<ScriptLexer.Call> sets = calls(script, ScriptLexer.Kind.SET);
+        assertEquals(matcher.find(), !sets.isEmpty());
+        if (!sets.isEmpty()) {
+            assertEquals(matcher.group(1), sets.get(0).getScope());
+            assertEquals(matcher.group(2), sets.get(0).getKey());
+        }
+    }
+
+    @ParameterizedTest(name = "Test environment setter #{index} with script: {arguments}")
+    @MethodSource("provideScripts")
+    public void testEnvironmentSetters(String script) {
+        boolean expected = Patterns.ENVIRONMENT_SET.matcher(script).find();
+        assertEquals(expected, calls(script, ScriptLexer.Kind.SET).stream()
+                .anyMatch(call -> "environment".equals(call.getScope())));
+    }
+
+    @ParameterizedTest(name = "Test getter #{index} with script: {arguments}")
+    @MethodSource("provideScripts")
+    public void testGetters(String script) {
+        Matcher matcher = Patterns.VAR_GET.matcher(script);
+        List<ScriptLexer.Call> gets = calls(script, ScriptLexer.Kind.GET);
+        assertEquals(matcher.find(), !gets.isEmpty());
+        if (!gets.isEmpty()) {
+            assertEquals(matcher.group(1), gets.get(0).getScope());
+            assertEquals(matcher.group(2), gets.get(0).getKey());
+        }
+    }
+
+    @ParameterizedTest(name = "Test environment getter #{index} with script: {arguments}")
+    @MethodSource("provideScripts")
+    public void testEnvironmentGetters(String script) {
+        boolean expected = Patterns.ENVIRONMENT_GET.matcher(script).find();
+        assertEquals(expected, calls(script, ScriptLexer.Kind.GET).stream()
+                .anyMatch(call -> "environment".equals(call.getScope())));
+    }
+
+    @DisplayName("Setter values keep balanced parentheses")
+    @Test
+    public void testSetterValue() {
+        ScriptLexer.Call set = calls("pm.environment.set(\"someKey\",someReturnValue.method());", ScriptLexer.Kind.SET).get(0);
+        assertEquals("someReturnValue.method()", set.getValue());
+    }
+
+    @DisplayName("Expectations, status checks and tests are recognised with their enclosing test")
+    @Test
+    public void testTestBlocks() {
+        String script = String.join("\n",
+                "// pm.expect(commented).to.equal(1)",
+                "console.log(\"pm.response.to.have.status(500)\");",
+                "pm.test(\"Status code is 200\", function () {",
+                "    pm.response.to.have.status(200);",
+                "});",
+                "pm.test('Response contains json data', function () {",
+                "    var jsonData = pm.response.json();",
+                "    pm.response.to.be.json;",
+                "    pm.expect(jsonData.json.message).to.equal(pm.collectionVariables.get(\"message\"));",
+                "});");
+        List<ScriptLexer.Call> calls = ScriptLexer.lex(script);
+
+        assertEquals(List.of(ScriptLexer.Kind.TEST, ScriptLexer.Kind.STATUS, ScriptLexer.Kind.TEST,
+                ScriptLexer.Kind.JSON, ScriptLexer.Kind.EXPECT, ScriptLexer.Kind.GET),
+                calls.stream().map(ScriptLexer.Call::getKind).toList());
+        assertEquals("Status code is 200", calls.get(0).getDescription());
+        assertEquals("200", calls.get(1).getExpected());
+        assertSame(calls.get(0), calls.get(1).getTest());
+
+        ScriptLexer.Call expect = calls.get(4);
+        assertEquals("jsonData.json.message", expect.getActual());
+        assertEquals("equal", expect.getMatcher());
+        assertEquals("pm.collectionVariables.get(\"message\")", expect.getExpected());
+        assertEquals("Response contains json data", expect.getTest().getDescription());
+        assertSame(calls.get(2), calls.get(5).getTest());
+    }
+
+    @DisplayName("Getters are replaced in expressions")
+    @Test
+    public void testReplaceGets() {
+        assertEquals("x(vars.get(\"a\"), vars.get(\"b\"))",
+                ScriptLexer.replaceGets("x(pm.environment.get(\"a\"), pm.globals.get('b'))",
+                        get -> "vars.get(\"" + get.getKey() + "\")"));
+    }
+
+    @DisplayName("Long and unbalanced scripts are lexed in linear time")
+    @Test
+    public void testLinearTime() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            script.append("pm.expect(jsonData.value").append(i).append(").to.equal(\"").append(i).append("\");\n");
+            script.append("pm.expect(unbalanced(").append(i).append(".to.equal(\n");
+        }
+        long start = System.nanoTime();
+        List<ScriptLexer.Call> calls = ScriptLexer.lex(script.toString());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(20_000, calls.size());
+        assertTrue(elapsedMillis < 2_000, "Lexing took " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Method to lex a script and keep the calls of one kind
+     * @param script
+     * @param kind
+     * @return
+     */
+    private static List<ScriptLexer.Call> calls(String script, ScriptLexer.Kind kind) {
+        return ScriptLexer.lex(script).stream().filter(call -> call.getKind() == kind).toList();
+    }
+}
@@ -0,0 +1,165 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests of the timings read from JUnit reports and of the shards packed with them
+ */
+public class ShardPlannerTest {
+
+        @DisplayName("Timings are read per test method from JUnit XML reports")
+        @Test
+        public void testReadTimings(@TempDir Path tempDir) throws IOException {
+                Files.writeString(tempDir.resolve("TEST-a.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                + "<testsuite name=\"a.ATest\" tests=\"2\" time=\"3.5\">\n"
+                                + "  <testcase name=\"Get_users()\" classname=\"a.ATest\" time=\"1.25\"/>\n"
+                                + "  <testcase name=\"Login()\" classname=\"a.ATest$OrderedTests1\" time=\"2.25\">\n"
+                                + "    <failure message=\"expected 200\">stack</failure>\n"
+                                + "  </testcase>\n"
+                                + "</testsuite>\n");
+                Files.writeString(tempDir.resolve("TEST-b.xml"), "<testsuite><testcase name=\"Get_users\" time=\"0.5\"/></testsuite>");
+                Files.writeString(tempDir.resolve("notes.txt"), "not a report");
+
+                assertEquals(Map.of("a.ATest#Get_users", 1.25, "a.ATest$OrderedTests1#Login", 2.25, "#Get_users", 0.5),
+                                ShardPlanner.readTimings(tempDir));
+                assertEquals(Map.of("#Get_users", 0.5), ShardPlanner.readTimings(tempDir.resolve("TEST-b.xml")));
+
+                Files.writeString(tempDir.resolve("TEST-c.xml"), "<testsuite><testcase name=\"x\" time=\"1\"");
+                assertThrows(IOException.class, () -> ShardPlanner.readTimings(tempDir));
+        }
+
+        @DisplayName("Only the times of the generated classes are mapped to their requests")
+        @Test
+        public void testRequestTimes() {
+                Map<String, Double> timings = Map.of(
+                                "a.ATest2#Get_users", 1.0,
+                                "a.ATest#Get_users", 0.5,
+                                "a.OtherTest#Get_users", 100.0,
+                                "a.ATest1$OrderedTests1#Login", 2.0,
+                                "a.ATest3$OrderedTests2#iteration", 6.0,
+                                "a.ATestBase#Profile", 100.0);
+                double[] times = ShardPlanner.requestTimes(timings, "a.ATest",
+                                List.of("Get_users", "Login", "Profile", "Logout", "Search"),
+                                List.of(List.of(1, 2), List.of(3, 4)));
+
+                assertEquals(1.5, times[0], 1e-9, "Times of the split classes are summed");
+                assertEquals(2.0, times[1], 1e-9);
+                assertEquals(-1, times[2], "Times of other classes are ignored");
+                assertEquals(3.0, times[3], 1e-9, "Iterations are spread over the requests of their chain");
+                assertEquals(3.0, times[4], 1e-9);
+        }
+
+        @DisplayName("Shards packed by longest processing time finish within a few percent of each other")
+        @Test
+        public void testBalance() {
+                Random random = new Random(42);
+                double[] times = new double[2000];
+                List<List<Integer>> units = new ArrayList<>();
+                for (int i = 0; i < times.length; i++) {
+                        // mostly fast requests and a few slow bulk endpoints
+                        times[i] = i % 50 == 0 ? 20 + random.nextDouble() * 40 : 0.05 + random.nextDouble() * 0.5;
+                }
+                for (int i = 0; i < times.length; i += 4) {
+                        units.add(i % 100 == 0 ? List.of(i, i + 1, i + 2, i + 3) : List.of(i));
+                        if (i % 100 != 0) {
+                                units.add(List.of(i + 1));
+                                units.add(List.of(i + 2));
+                                units.add(List.of(i + 3));
+                        }
+                }
+
+                List<List<Integer>> plan = ShardPlanner.plan(units, times, 8);
+                assertEquals(8, plan.size());
+                double min = Double.MAX_VALUE;
+                double max = 0;
+                int requests = 0;
+                for (List<Integer> shard : plan) {
+                        double time = ShardPlanner.time(shard, times);
+                        min = Math.min(min, time);
+                        max = Math.max(max, time);
+                        requests += shard.size();
+                        for (int i = 1; i < shard.size(); i++) {
+                                assertTrue(shard.get(i - 1) < shard.get(i), "Shards should keep collection order");
+                        }
+                }
+                assertEquals(times.length, requests);
+                assertTrue(max / min < 1.03, "Shards should be within 3 percent, were " + min + " to " + max);
+
+                for (int i = 0; i < times.length; i += 100) {
+                        int start = i;
+                        assertTrue(plan.stream().anyMatch(shard -> shard.containsAll(List.of(start, start + 1, start + 2, start + 3))),
+                                        "Units should not be divided");
+                }
+        }
+
+        @DisplayName("Sharded test classes are tagged and balanced by the reported times")
+        @Test
+        public void testGeneratedShards(@TempDir Path tempDir) throws IOException {
+                Path collection = tempDir.resolve("Shards.postman_collection.json");
+                StringBuilder items = new StringBuilder();
+                StringBuilder report = new StringBuilder("<testsuite>");
+                for (int i = 0; i < 6; i++) {
+                        items.append("{\"name\":\"Request ").append(i).append("\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/r")
+                                        .append(i).append("\"}}},");
+                        // one slow request, the other five together take as long as it and as the chain
+                        report.append("<testcase name=\"Request_").append(i).append("()\" classname=\"")
+                                        .append("dk.kodeninjaer.testing.converter.shards.ShardsTest").append(i % 2 + 1)
+                                        .append("\" time=\"").append(i == 3 ? "10" : "2").append("\"/>");
+                        // a request of the same name in another class does not count
+                        report.append("<testcase name=\"Request_").append(i).append("()\" classname=\"other.OtherTest\" time=\"")
+                                        .append(i == 0 ? "50" : "0").append("\"/>");
+                }
+                items.append("{\"name\":\"Login\",\"request\":{\"method\":\"POST\",\"url\":{\"raw\":\"/login\"}},"
+                                + "\"event\":[{\"listen\":\"prerequest\",\"script\":{\"exec\":[\"pm.environment.set(\\\"token\\\", \\\"abc\\\");\"]}}]},"
+                                + "{\"name\":\"Profile\",\"request\":{\"method\":\"GET\",\"url\":{\"raw\":\"/profile/{{token}}\"}}}");
+                Files.writeString(collection, "{\"info\":{\"url\":\"http://localhost\"},\"item\":[" + items + "]}");
+                Path timings = tempDir.resolve("TEST-shards.xml");
+                report.append("<testcase name=\"Login()\" classname=\"dk.kodeninjaer.testing.converter.shards.ShardsTest$OrderedTests1\""
+                                + " time=\"6\"/><testcase name=\"Profile()\""
+                                + " classname=\"dk.kodeninjaer.testing.converter.shards.ShardsTest$OrderedTests1\" time=\"4\"/>");
+                Files.writeString(timings, report.append("</testsuite>").toString());
+
+                PostmanToRestAssuredGenerator generator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.shards", "ShardsTest");
+                generator.setShards(3);
+                generator.setTimingFile(timings.toString());
+                generator.setOutputDirectory(tempDir.resolve("src").toString());
+                generator.generate(collection.toString());
+
+                Path directory = tempDir.resolve("src/dk/kodeninjaer/testing/converter/shards");
+                List<String> shards = new ArrayList<>();
+                for (int i = 1; i <= 3; i++) {
+                        String shard = Files.readString(directory.resolve("ShardsTest" + i + ".java"));
+                        assertTrue(shard.contains("@Tag(\"shard" + i + "\")\npublic class ShardsTest" + i + " extends ShardsTestBase {"), shard);
+                        shards.add(shard);
+                }
+                assertTrue(Files.exists(directory.resolve("ShardsTestBase.java")));
+                assertFalse(Files.exists(directory.resolve("ShardsTest4.java")));
+
+                // 10 seconds per shard: the slow request, the chain, and the five other requests
+                assertTrue(shards.get(0).contains("public void Request_3()"), "The longest unit is packed first");
+                assertEquals(1, countTests(shards.get(0)));
+                assertTrue(shards.get(1).contains("class OrderedTests1") && shards.get(1).contains("public void Login()")
+                                && shards.get(1).contains("public void Profile()"), "Dependent requests should stay in one shard");
+                assertEquals(2, countTests(shards.get(1)));
+                assertEquals(5, countTests(shards.get(2)));
+
+                InMemoryCompiler.Result result = generator.compile(collection.toString(), InMemoryCompiler.currentClasspath());
+                assertTrue(result.isSuccess(), result.getProblems().toString());
+        }
+
+        private static long countTests(String source) {
+                return source.lines().filter(line -> line.trim().equals("@Test")).count();
+        }
+}
@@ -0,0 +1,29 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class SharedFragmentsTest {
+
+        @DisplayName("Fragments used more than once are named in order of first use")
+        @Test
+        public void testNames() {
+                SharedFragments fragments = new SharedFragments("headers");
+                fragments.add("once");
+                fragments.add("b");
+                fragments.add("a");
+                fragments.add("a");
+                fragments.add("b");
+                fragments.add("a");
+
+                assertEquals(List.of("b", "a"), List.copyOf(fragments.shared().keySet()));
+                assertEquals("headers1", fragments.name("b"));
+                assertEquals("headers2", fragments.name("a"));
+                assertNull(fragments.name("once"), "Fragments used once stay inline");
+                assertNull(fragments.name("unknown"));
+                assertThrows(IllegalStateException.class, () -> fragments.add("late"));
+        }
+}
@@ -0,0 +1,82 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StreamingCollectionParserTest {
+
+        @DisplayName("Saved responses are skipped and folders are flattened into the folder path")
+        @Test
+        public void testSkipsResponsesAndKeepsFolderPath() throws IOException {
+                String collection = "{\"info\":{\"url\":\"http://localhost\"},"
+                                + "\"item\":[{\"item\":[{\"name\":\"Inner\",\"request\":{\"method\":\"GET\"},"
+                                + "\"response\":[{\"body\":\"huge\"}]}],\"name\":\"Late Name\"},"
+                                + "{\"name\":\"Top\",\"response\":[],\"request\":{\"method\":\"POST\"}}],"
+                                + "\"variable\":[{\"key\":\"a\",\"value\":\"b\"}]}";
+                ObjectMapper mapper = new ObjectMapper();
+                StreamingCollectionParser parser = new StreamingCollectionParser(mapper);
+                List<String> visited = new ArrayList<>();
+
+                parser.parse(mapper.getFactory().createParser(collection), (item, folderPath) -> {
+                        assertFalse(item.has("response"), "Saved responses should be skipped");
+                        visited.add(folderPath + "/" + item.path("name").asText());
+                });
+
+                assertEquals(List.of("Late Name/Inner", "/Top"), visited);
+                assertEquals("http://localhost", parser.getInfo().path("url").asText());
+                assertEquals("b", parser.getVariables().path(0).path("value").asText());
+        }
+
+        @ParameterizedTest(name = "Streaming parse {index} matches tree parse for collection: {arguments}")
+        @ValueSource(strings = { "src/test/resources/TestCollection.postman_collection.json",
+                        "src/test/resources/TestCollectionFolders.postman_collection.json",
+                        "src/test/resources/TestCollectionScripts.postman_collection.json",
+                        "src/test/resources/TestCollectionVariables.postman_collection.json" })
+        void streamingOutputMatchesTreeOutput(Path collectionPath) throws IOException {
+                Path outputDir = Path.of(PostmanToRestAssuredGenerator.OUTPUT_BASEPATH
+                                + "/dk/kodeninjaer/testing/converter/streaming");
+
+                PostmanToRestAssuredGenerator treeGenerator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.streaming", "TreeParsed");
+                treeGenerator.generate(collectionPath.toString());
+
+                PostmanToRestAssuredGenerator streamingGenerator = new PostmanToRestAssuredGenerator(
+                                "dk.kodeninjaer.testing.converter.streaming", "StreamParsed");
+                streamingGenerator.setStreamingParse(true);
+                streamingGenerator.generate(collectionPath.toString());
+
+                String tree = Files.readString(outputDir.resolve("TreeParsed.java"));
+                String streamed = Files.readString(outputDir.resolve("StreamParsed.java"));
+                assertEquals(tree.replace("TreeParsed", "StreamParsed"), streamed,
+                                "Streaming parse should generate the same test class as the tree parse");
+        }
+
+        @DisplayName("Item visitor receives only the retained fields")
+        @Test
+        public void testRetainedFields() throws IOException {
+                ObjectMapper mapper = new ObjectMapper();
+                List<JsonNode> items = new ArrayList<>();
+                new StreamingCollectionParser(mapper).parse(
+                                Path.of("src/test/resources/TestCollection.postman_collection.json").toFile(),
+                                (item, folderPath) -> items.add(item));
+
+                assertFalse(items.isEmpty(), "Collection should contain request items");
+                for (JsonNode item : items) {
+                        item.fieldNames().forEachRemaining(name -> assertTrue(
+                                        List.of("name", "request", "event").contains(name),
+                                        "Unexpected field " + name));
+                }
+        }
+}
@@ -0,0 +1,136 @@
+package dk.kodeninjaer.testing.converter;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Stub server the tests send their requests to, started on a free local port before each test and
+ * stopped after it. It records every request and answers them with the configured response, an
+ * empty 200 by default. Registered as a field of the test class:
+ * <pre>
+ * &#64;RegisterExtension
+ * final StubServer server = new StubServer();
+ * </pre>
+ */
+class StubServer implements BeforeEachCallback, AfterEachCallback {
+
+        /**
+         * Request received by the server
+         */
+        static class Request {
+                final String method;
+                final String path;
+                /**
+                 * Raw query, null when the URL has none
+                 */
+                final String query;
+                final Headers headers;
+                final String body;
+
+                Request(String method, String path, String query, Headers headers, String body) {
+                        this.method = method;
+                        this.path = path;
+                        this.query = query;
+                        this.headers = headers;
+                        this.body = body;
+                }
+
+                String header(String name) {
+                        return headers.getFirst(name);
+                }
+        }
+
+        /**
+         * Response sent by the server, without a content type or body when they are null
+         */
+        static class Response {
+                final int status;
+                final String contentType;
+                final String body;
+
+                Response(int status, String contentType, String body) {
+                        this.status = status;
+                        this.contentType = contentType;
+                        this.body = body;
+                }
+        }
+
+        private final List<Request> requests = new CopyOnWriteArrayList<>();
+        private volatile Function<Request, Response> responder = request -> new Response(200, null, null);
+        private HttpServer server;
+
+        /**
+         * Method to answer every request with the same response
+         * @param status
+         * @param contentType
+         * @param body
+         * @return
+         */
+        StubServer respond(int status, String contentType, String body) {
+                return respond(request -> new Response(status, contentType, body));
+        }
+
+        /**
+         * Method to answer the requests with the response computed for each of them
+         * @param responder
+         * @return
+         */
+        StubServer respond(Function<Request, Response> responder) {
+                this.responder = responder;
+                return this;
+        }
+
+        /**
+         * @return the URI of the server, without a trailing slash
+         */
+        String baseUri() {
+                return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        /**
+         * @return the requests received in the order they were received
+         */
+        List<Request> requests() {
+                return requests;
+        }
+
+        @Override
+        public void beforeEach(ExtensionContext context) throws IOException {
+                requests.clear();
+                server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+                server.createContext("/", exchange -> {
+                        Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                                        exchange.getRequestURI().getQuery(), exchange.getRequestHeaders(),
+                                        new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                        requests.add(request);
+                        Response response = responder.apply(request);
+                        if (response.contentType != null) {
+                                exchange.getResponseHeaders().add("Content-Type", response.contentType);
+                        }
+                        if (response.body == null) {
+                                exchange.sendResponseHeaders(response.status, -1);
+                        } else {
+                                byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+                                exchange.sendResponseHeaders(response.status, body.length);
+                                exchange.getResponseBody().write(body);
+                        }
+                        exchange.close();
+                });
+                server.start();
+        }
+
+        @Override
+        public void afterEach(ExtensionContext context) {
+                server.stop(0);
+        }
+}
@@ -0,0 +1,80 @@
+package dk.kodeninjaer.testing.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+public class TemplateTest {
+
+    private static String lookup(String name) {
+        return "collectionVariables.get(" + Template.javaString(name) + ")";
+    }
+
+    @DisplayName("Test variable names with characters outside of \\w")
+    @ParameterizedTest(name = "Test variable name {arguments}")
+    @ValueSource(strings = {"api-key", "user.id", "base_url", "x y", "$guid"})
+    public void testVariableNames(String name) {
+        Template template = Template.compile("Bearer {{" + name + "}}");
+        assertEquals(List.of(name), template.getVariables());
+        assertEquals("\"Bearer \" + collectionVariables.get(\"" + name + "\")",
+                template.toJavaExpression(TemplateTest::lookup));
+    }
+
+    @DisplayName("Test literals and variables are emitted in order")
+    @Test
+    public void testSegments() {
+        Template template = Template.compile("{{url}}/get?a={{ a }}&b={{b}}");
+        assertEquals(List.of("url", "a", "b"), template.getVariables());
+        assertEquals("collectionVariables.get(\"url\") + \"/get?a=\" + collectionVariables.get(\"a\")"
+                + " + \"&b=\" + collectionVariables.get(\"b\")", template.toJavaExpression(TemplateTest::lookup));
+        assertFalse(template.isConstant());
+    }
+
+    @DisplayName("Test constant templates are emitted as escaped literals")
+    @Test
+    public void testConstant() {
+        Template template = Template.compile("{\n\t\"name\": \"a\\b\"\n}");
+        assertTrue(template.isConstant());
+        assertEquals("\"{\\n\\t\\\"name\\\": \\\"a\\\\b\\\"\\n}\"", template.toJavaExpression(TemplateTest::lookup));
+        assertEquals("\"\"", Template.compile("").toJavaExpression(TemplateTest::lookup));
+        assertEquals("\"\"", Template.compile(null).toJavaExpression(TemplateTest::lookup));
+    }
+
+    @DisplayName("Test text that is not a variable reference is kept literally")
+    @ParameterizedTest(name = "Test literal {arguments}")
+    @ValueSource(strings = {"{{unclosed", "{{}}", "{{ }}", "a}}b", "{single}", "{{a}b}}"})
+    public void testLiterals(String text) {
+        Template template = Template.compile(text);
+        assertTrue(template.isConstant());
+        assertEquals(Template.javaString(text), template.toJavaExpression(TemplateTest::lookup));
+    }
+
+    @DisplayName("Test extra braces around a reference are literal")
+    @Test
+    public void testExtraBraces() {
+        Template template = Template.compile("{{{id}}}");
+        assertEquals(List.of("id"), template.getVariables());
+        assertEquals("\"{\" + collectionVariables.get(\"id\") + \"}\"", template.toJavaExpression(TemplateTest::lookup));
+    }
+
+    @DisplayName("Test compiling a large body is linear in its length")
+    @Test
+    public void testLargeBody() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            body.append("{\"field").append(i).append("\": \"{{var").append(i % 100).append("}}\"},");
+        }
+        // an unclosed reference at the end must not cause rescanning
+        body.append("{{".repeat(10_000));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            Template template = Template.compile(body.toString());
+            assertEquals(50_000, template.getVariables().size());
+            assertTrue(template.toJavaExpression(TemplateTest::lookup).length() > body.length());
+        });
+    }
+}